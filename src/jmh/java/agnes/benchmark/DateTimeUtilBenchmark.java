@@ -0,0 +1,63 @@
+package agnes.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agnes.util.DateTimeUtil;
+
+/**
+ * Measures the parsing and formatting helpers in {@code DateTimeUtil}.
+ * <p>
+ * Date-only inputs are benchmarked separately, as they are only accepted
+ * after the date-time format has failed to parse them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateTimeUtilBenchmark {
+    private final LocalDateTime dateTime = LocalDateTime.of(2026, 2, 20, 22, 55);
+    private final LocalDateTime date = LocalDateTime.of(2026, 2, 20, 0, 0);
+
+    @Benchmark
+    public LocalDateTime parseDateTime() {
+        return DateTimeUtil.parseDateTime("2026-02-20 2255");
+    }
+
+    @Benchmark
+    public LocalDateTime parseDateOnly() {
+        return DateTimeUtil.parseDateTime("2026-02-20");
+    }
+
+    @Benchmark
+    public LocalDateTime parseFormattedDateTime() {
+        return DateTimeUtil.parseFormattedDateTime("Feb 20 2026 22:55");
+    }
+
+    @Benchmark
+    public LocalDateTime parseFormattedDateOnly() {
+        return DateTimeUtil.parseFormattedDateTime("Feb 20 2026");
+    }
+
+    @Benchmark
+    public String formatDateTime() {
+        return DateTimeUtil.formatDateTime(dateTime);
+    }
+
+    @Benchmark
+    public String formatDateOnly() {
+        return DateTimeUtil.formatDateTime(date);
+    }
+}
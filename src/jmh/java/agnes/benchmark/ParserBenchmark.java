@@ -0,0 +1,89 @@
+package agnes.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agnes.parser.Parser;
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+import agnes.ui.Ui;
+
+/**
+ * Measures {@code Parser.parse} for each command, including the {@code Storage.save}
+ * that mutating commands trigger.
+ * <p>
+ * Read-only commands, such as {@code list} or {@code find}, are answered from the
+ * parser's response cache when the same request was made before and no task changed
+ * since. With {@code cached} false, the cache is cleared before every invocation, so
+ * they are measured end to end; with it true, repeats are measured as cache hits.
+ * Mutating commands are never cached, so the two give the same results for them.
+ * <p>
+ * {@code delete} is left out as it shrinks the list between invocations.
+ * The list is regenerated every iteration, so {@code todo}, {@code deadline} and
+ * {@code event} only grow it by the number of invocations in one iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParserBenchmark {
+    @Param({"1000"})
+    private int size;
+
+    @Param({
+        "hi", "list", "on 2026-06-15", "find Homework", "upcoming 10", "mark 1", "unmark 1",
+        "update 2 /description renamed", "todo read book",
+        "deadline submit report /by 2026-06-15 2359",
+        "event team lunch /from 2026-06-15 1200 /to 2026-06-15 1330", "kns", "gibberish"
+    })
+    private String request;
+
+    @Param({"false", "true"})
+    private boolean cached;
+
+    private Path file;
+    private Parser parser;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("agnes-parser-bench", ".txt");
+        TaskList tasks = TaskFileGenerator.generateTaskList(size);
+        parser = new Parser(tasks, new Storage(file.toString()), new Ui());
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        if (!cached) {
+            parser.getResponseCache().clear();
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public List<String> parse() {
+        return parser.parse(request);
+    }
+}
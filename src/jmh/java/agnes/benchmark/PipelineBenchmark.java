@@ -0,0 +1,95 @@
+package agnes.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import agnes.metrics.CommandMetrics;
+import agnes.parser.Parser;
+import agnes.pipeline.CommandPipeline;
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+import agnes.ui.Ui;
+
+/**
+ * Measures throughput in commands per second of a burst of commands, half of them
+ * changes, run either straight through {@code Parser.parse}, saving after every
+ * change, or published to a {@link CommandPipeline}, which saves once per batch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PipelineBenchmark {
+    private static final int BURST = 256;
+    private static final String[] COMMANDS = {"mark 1", "find Homework", "unmark 1", "upcoming 5"};
+    /** Replies arrive on the pipeline's thread, where a {@code Blackhole} must not be used. */
+    private static final Consumer<List<String>> IGNORE_REPLY = response -> { };
+
+    @Param({"1000", "10000"})
+    private int size;
+
+    @Param({"inline", "pipeline"})
+    private String mode;
+
+    private Path file;
+    private Parser parser;
+    private CommandPipeline pipeline;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("agnes-pipeline-bench", ".txt");
+        TaskList tasks = TaskFileGenerator.generateTaskList(size);
+        Storage storage = new Storage(file.toString());
+        CommandMetrics metrics = new CommandMetrics();
+        parser = new Parser(tasks, storage, new Ui(), metrics);
+        if (mode.equals("pipeline")) {
+            pipeline = new CommandPipeline(parser, tasks, storage, metrics, CommandPipeline.DEFAULT_CAPACITY);
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (pipeline != null) {
+            pipeline.close();
+            pipeline = null;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public void burst(Blackhole blackhole) {
+        if (pipeline == null) {
+            for (int i = 0; i < BURST; i++) {
+                blackhole.consume(parser.parse(COMMANDS[i % COMMANDS.length]));
+            }
+            return;
+        }
+        for (int i = 0; i < BURST; i++) {
+            pipeline.publish(COMMANDS[i % COMMANDS.length], IGNORE_REPLY);
+        }
+        pipeline.awaitReplies();
+    }
+}
@@ -0,0 +1,88 @@
+package agnes.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+/**
+ * Measures a full {@code Storage.save} and {@code Storage.load} of task files of various sizes,
+ * in the plain and the compressed format.
+ * {@code saveAfterEdit} deletes a task and adds another before each save, which is the
+ * common case where the compressed format only recompresses the blocks that changed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class StorageBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    private int size;
+
+    @Param({"txt", "agz"})
+    private String format;
+
+    private Path file;
+    private Storage storage;
+    private TaskList tasks;
+    private int edits;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("agnes-storage-bench", "." + format);
+        tasks = TaskFileGenerator.generateTaskList(size);
+        if (format.equals("txt")) {
+            TaskFileGenerator.write(file, size);
+        } else {
+            Files.delete(file);
+            new Storage(file.toString()).save(tasks);
+        }
+        storage = new Storage(file.toString());
+        // Primes the compressed blocks the next save can reuse
+        storage.save(tasks);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public TaskList load() {
+        TaskList loaded = new TaskList();
+        storage.load(loaded);
+        return loaded;
+    }
+
+    @Benchmark
+    public void save() {
+        storage.save(tasks);
+    }
+
+    @Benchmark
+    public void saveAfterEdit() {
+        tasks.removeTask(tasks.size() / 2);
+        tasks.addTask(new ToDo("edit " + edits++));
+        storage.save(tasks);
+    }
+}
@@ -0,0 +1,128 @@
+package agnes.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Random;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+/**
+ * Generates synthetic tasks and task files for the benchmarks.
+ * <p>
+ * The generated mix is roughly 40% {@code ToDo}, 35% {@code Deadline} and 25% {@code Event},
+ * with a quarter of the tasks marked as done. Descriptions are drawn from a small pool of
+ * recurring chores, and dates are spread over the years 2026 and 2027. A fixed seed makes
+ * every run produce the same tasks, so results stay comparable across runs.
+ */
+public class TaskFileGenerator {
+    public static final long DEFAULT_SEED = 2103L;
+    public static final LocalDateTime EPOCH = LocalDateTime.of(2026, 1, 1, 0, 0);
+    public static final int DAY_RANGE = 730;
+
+    private static final String[] DESCRIPTIONS = {
+        "Math Homework", "standup", "gym", "read book", "buy groceries",
+        "CS2103T tutorial", "project meeting", "submit report", "call mum", "pay rent",
+        "water the plants", "weekly review", "dentist appointment", "team lunch", "laundry"
+    };
+
+    private final Random random;
+
+    /**
+     * Creates a generator producing the same sequence of tasks for the same seed.
+     *
+     * @param seed The seed of the underlying random number generator.
+     */
+    public TaskFileGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * Returns the next synthetic task.
+     *
+     * @return A randomly generated {@code ToDo}, {@code Deadline} or {@code Event}.
+     */
+    public Task next() {
+        String description = DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)];
+        int kind = random.nextInt(100);
+        Task task;
+        if (kind < 40) {
+            task = new ToDo(description);
+        } else if (kind < 75) {
+            task = new Deadline(description, nextDateTime());
+        } else {
+            LocalDateTime from = nextDateTime();
+            task = new Event(description, from, from.plusHours(1 + random.nextInt(72)));
+        }
+        if (random.nextInt(4) == 0) {
+            task.setMarked();
+        }
+        return task;
+    }
+
+    private LocalDateTime nextDateTime() {
+        LocalDateTime date = EPOCH.plusDays(random.nextInt(DAY_RANGE));
+        // Half of the tasks are date only, which is stored and parsed differently
+        if (random.nextBoolean()) {
+            return date;
+        }
+        return date.plusMinutes(15L * random.nextInt(96));
+    }
+
+    /**
+     * Creates a {@code TaskList} holding {@code count} synthetic tasks.
+     *
+     * @param count The number of tasks to generate.
+     * @return      The populated {@code TaskList}.
+     */
+    public static TaskList generateTaskList(int count) {
+        TaskFileGenerator generator = new TaskFileGenerator(DEFAULT_SEED);
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < count; i++) {
+            tasks.addTask(generator.next());
+        }
+        return tasks;
+    }
+
+    /**
+     * Writes {@code count} synthetic tasks to {@code path} in the storage file format.
+     * Tasks are streamed to disk, so arbitrarily large files can be generated.
+     *
+     * @param path  The file to write, replacing any existing content.
+     * @param count The number of tasks to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Path path, int count) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        TaskFileGenerator generator = new TaskFileGenerator(DEFAULT_SEED);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < count; i++) {
+                writer.write(generator.next().toFileFormat());
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * Writes a synthetic task file.
+     *
+     * @param args The output path and the number of tasks, e.g. {@code build/bench/tasks.txt 100000}.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        Path path = Paths.get(args.length > 0 ? args[0] : "build/bench/tasks.txt");
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        write(path, count);
+        System.out.println("Wrote " + count + " tasks to " + path);
+    }
+}
@@ -0,0 +1,60 @@
+package agnes.benchmark;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.ui.Ui;
+
+/**
+ * Measures the read-only {@code TaskList} queries and the rendering of {@code list}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TaskListBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    private TaskList tasks;
+    private Ui ui;
+    private final LocalDate date = LocalDate.of(2026, 6, 15);
+
+    @Setup
+    public void setUp() {
+        tasks = TaskFileGenerator.generateTaskList(size);
+        ui = new Ui();
+    }
+
+    @Benchmark
+    public List<Task> find() {
+        return tasks.find("Homework");
+    }
+
+    @Benchmark
+    public List<Task> getTasksOnDate() {
+        return tasks.getTasksOnDate(date);
+    }
+
+    @Benchmark
+    public List<String> renderTasks() {
+        return ui.getTasks(tasks);
+    }
+}
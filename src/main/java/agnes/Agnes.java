@@ -1,9 +1,20 @@
 package agnes;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.function.Consumer;
 
+import agnes.metrics.CommandMetrics;
+import agnes.parser.Command;
 import agnes.parser.Parser;
+import agnes.pipeline.CommandPipeline;
+import agnes.reminder.ReminderScheduler;
+import agnes.reminder.ReminderSink;
 import agnes.storage.Storage;
+import agnes.storage.TaskFileWatcher;
 import agnes.task.TaskList;
 import agnes.ui.Ui;
 
@@ -12,26 +23,134 @@ import agnes.ui.Ui;
  * Has dependencies on the UI, Parser, Storage and TaskList.
  */
 public class Agnes {
+    /** System property naming the file the latency statistics are written to on exit. */
+    public static final String STATS_FILE_PROPERTY = "agnes.stats.file";
+    /** System property naming the file tasks are saved to; a {@code .agz} file is stored compressed. */
+    public static final String DATA_FILE_PROPERTY = "agnes.data.file";
+    private static final String DEFAULT_DATA_FILE = "./data/tasks.txt";
+
+    private final String dataFile;
     private final TaskList tasks;
     private final Storage storage;
     private final Ui ui;
     private final Parser parser;
+    private final CommandMetrics metrics;
+    private final ReminderScheduler reminders;
+    private final CommandPipeline pipeline;
+    private TaskFileWatcher watcher;
 
     /**
      * Creates a new Agnes application with initialized components.
      * Loads previously saved tasks from storage.
+     * Tasks are kept in the file named by the {@value #DATA_FILE_PROPERTY} system property,
+     * or {@value #DEFAULT_DATA_FILE} if it is not set.
+     * If the {@value #STATS_FILE_PROPERTY} system property is set, the latency
+     * statistics are written to that file as JSON when the JVM exits.
      */
     public Agnes() {
+        this(System.getProperty(DATA_FILE_PROPERTY, DEFAULT_DATA_FILE));
+    }
+
+    /**
+     * Creates a new Agnes application that keeps its tasks in the given file.
+     *
+     * @param dataFile The file tasks are loaded from and saved to.
+     * @see #Agnes()
+     */
+    public Agnes(String dataFile) {
+        this.dataFile = dataFile;
         this.tasks = new TaskList();
-        this.storage = new Storage("./data/tasks.txt");
+        this.storage = new Storage(dataFile);
         this.ui = new Ui();
+        this.metrics = new CommandMetrics();
+        this.reminders = new ReminderScheduler();
 
-        parser = new Parser(tasks, storage, ui);
-
+        long start = System.nanoTime();
         storage.load(tasks);
+        metrics.record(CommandMetrics.STORAGE_LOAD, System.nanoTime() - start);
+        reminders.scheduleAll(tasks);
+
+        // Created after loading, so that its listeners only hear of changes made from now on
+        parser = new Parser(tasks, storage, ui, metrics, reminders);
+        pipeline = new CommandPipeline(parser, tasks, storage, metrics, CommandPipeline.DEFAULT_CAPACITY);
+
+        String statsFile = System.getProperty(STATS_FILE_PROPERTY);
+        if (statsFile != null && !statsFile.isBlank()) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpStats(statsFile)));
+        }
+    }
+
+    private void dumpStats(String statsFile) {
+        try {
+            metrics.writeJson(Paths.get(statsFile));
+        } catch (IOException e) {
+            System.err.println("Error writing statistics to file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Starts reminding the user of due deadlines and starting events.
+     * Reminders are formatted by the {@code Ui} and handed to {@code sink} on the
+     * reminder thread.
+     *
+     * @param sink Where the reminder messages are delivered.
+     */
+    public void startReminders(Consumer<List<String>> sink) {
+        ReminderSink reminderSink = (message, time) -> sink.accept(ui.getReminder(message, time));
+        reminders.start(reminderSink);
     }
 
+    /**
+     * Starts watching the task file for changes made outside Agnes, e.g. in a text editor.
+     * After such a change, a {@code reload} command is published, which merges the change
+     * into the tasks, and its reply is handed to {@code sink} on a thread of Agnes's own.
+     * Compressed task files are not watched.
+     *
+     * @param sink Where the reload messages are delivered.
+     */
+    public void startWatching(Consumer<List<String>> sink) {
+        if (watcher != null || dataFile.endsWith(Storage.COMPRESSED_EXTENSION)) {
+            return;
+        }
+        Path file = Paths.get(dataFile).toAbsolutePath();
+        try {
+            Files.createDirectories(file.getParent());
+            watcher = new TaskFileWatcher(file, () -> {
+                if (storage.hasExternalChanges()) {
+                    publish(Command.RELOAD.name().toLowerCase(), sink);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error watching the task file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs a command and waits for Agnes's reply.
+     *
+     * @param input The full user input string.
+     * @return      The messages to be shown to user.
+     */
     public List<String> getResponse(String input) {
-        return parser.parse(input);
+        return pipeline.call(input);
+    }
+
+    /**
+     * Queues a command without waiting for it to run. Replies are handed to {@code replyTo}
+     * in the order the commands were published, from all callers, on a thread of Agnes's own.
+     *
+     * @param input     The full user input string.
+     * @param replyTo   What to do with the messages to be shown to user.
+     * @see CommandPipeline
+     */
+    public void publish(String input, Consumer<List<String>> replyTo) {
+        pipeline.publish(input, replyTo);
+    }
+
+    /**
+     * Waits until every command published so far has been replied to.
+     */
+    public void awaitReplies() {
+        pipeline.awaitReplies();
     }
 }
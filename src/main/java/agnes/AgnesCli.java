@@ -0,0 +1,107 @@
+package agnes;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+import agnes.parser.Command;
+
+/**
+ * Headless entry point of Agnes that reads commands from {@code System.in}.
+ * <p>
+ * Unlike {@code Launcher}, this front end never touches JavaFX, so it starts
+ * quickly and can process piped workloads, e.g. {@code java agnes.AgnesCli < input.txt}.
+ * Commands are published to Agnes without waiting for their replies, and the replies
+ * are written through a buffered writer that is only flushed once all input currently
+ * available has been processed and replied to, rather than after every command.
+ * Reminders, and changes to the task file made outside Agnes, are written to the same
+ * output as soon as they happen.
+ * </p>
+ */
+public class AgnesCli {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    public static void main(String[] args) throws IOException {
+        BufferedReader in = new BufferedReader(
+                new InputStreamReader(System.in, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Writer out = new BufferedWriter(
+                new OutputStreamWriter(System.out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        Agnes agnes = new Agnes();
+        Consumer<List<String>> notice = messages -> {
+            try {
+                write(out, messages);
+                synchronized (out) {
+                    out.flush();
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing notice: " + e.getMessage());
+            }
+        };
+        agnes.startReminders(notice);
+        agnes.startWatching(notice);
+        run(agnes, in, out);
+    }
+
+    /**
+     * Feeds every line from {@code in} through {@link Agnes#getResponse(String)} until
+     * the input ends or the user says bye.
+     * <p>
+     * Blank lines are skipped. The writer is flushed when no more input is ready
+     * (the end of a batch) and once more before returning, each time after waiting
+     * for the replies to the batch.
+     * </p>
+     *
+     * @param agnes The Agnes instance handling the commands.
+     * @param in    The source of user commands, one per line.
+     * @param out   The destination of Agnes's replies.
+     * @throws IOException If reading or writing fails.
+     */
+    public static void run(Agnes agnes, BufferedReader in, Writer out) throws IOException {
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+
+            agnes.publish(line, response -> {
+                try {
+                    write(out, response);
+                } catch (IOException e) {
+                    System.err.println("Error writing reply: " + e.getMessage());
+                }
+            });
+
+            if (Command.from(line.strip().split(" ")[0]) == Command.BYE) {
+                break;
+            }
+            if (!in.ready()) {
+                agnes.awaitReplies();
+                synchronized (out) {
+                    out.flush();
+                }
+            }
+        }
+        agnes.awaitReplies();
+        synchronized (out) {
+            out.flush();
+        }
+    }
+
+    /**
+     * Writes messages one per line, without interleaving with other threads writing to {@code out}.
+     */
+    private static void write(Writer out, List<String> messages) throws IOException {
+        synchronized (out) {
+            for (String msg : messages) {
+                out.write(msg);
+                out.write(System.lineSeparator());
+            }
+        }
+    }
+}
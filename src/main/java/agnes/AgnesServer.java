@@ -0,0 +1,339 @@
+package agnes;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import agnes.parser.Command;
+
+/**
+ * Headless entry point of Agnes that serves commands over TCP, e.g. to scripts.
+ * <p>
+ * The protocol is line based: a client sends one command per line, and Agnes replies
+ * to each with its message lines followed by a line holding a single {@code .}. A reply
+ * line that starts with {@code .} is sent with an extra {@code .} in front, which the
+ * client removes. Blank lines are ignored, and {@code bye} is answered before the
+ * connection is closed.
+ * </p>
+ * <p>
+ * Clients may pipeline: send many commands without waiting, and read the replies, in
+ * order, later. One I/O thread serves every connection through a {@link Selector}, and
+ * publishes complete lines through {@link Agnes#publish(String, java.util.function.Consumer)},
+ * whose single writer applies them one at a time. Commands therefore apply in one
+ * order that every client sees, and no command ever runs alongside a change. A client
+ * that sends faster than Agnes keeps up, or reads its replies slower, is
+ * not read from while it has {@value #MAX_IN_FLIGHT} commands waiting or
+ * {@value #MAX_UNSENT_BYTES} bytes of unsent replies, so the rest of its commands wait
+ * in the network rather than in memory.
+ * </p>
+ */
+public class AgnesServer implements AutoCloseable {
+    /** Port listened on when none is given. */
+    public static final int DEFAULT_PORT = 5150;
+    private static final int MAX_IN_FLIGHT = 1024;
+    private static final int MAX_UNSENT_BYTES = 1 << 20;
+    private static final int MAX_LINE_BYTES = 1 << 16;
+    private static final int READ_BUFFER_SIZE = 1 << 13;
+    private static final byte[] END_OF_REPLY = ".\n".getBytes(StandardCharsets.UTF_8);
+
+    private final Agnes agnes;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Queue<Reply> replies = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean isWakeupPending = new AtomicBoolean();
+    private final Thread ioThread;
+    private volatile boolean isRunning = true;
+
+    /**
+     * An encoded reply, waiting for the I/O thread to queue it on its connection.
+     */
+    private static final class Reply {
+        private final Connection connection;
+        private final ByteBuffer bytes;
+
+        private Reply(Connection connection, ByteBuffer bytes) {
+            this.connection = connection;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * The state of one client. Only touched by the I/O thread.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final SelectionKey key;
+        private ByteBuffer input = ByteBuffer.allocate(READ_BUFFER_SIZE);
+        private final Deque<ByteBuffer> output = new ArrayDeque<>();
+        private int inFlight;
+        private long unsentBytes;
+        private boolean isInputDone;
+
+        private Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+    }
+
+    /**
+     * Starts serving an Agnes instance on the given address.
+     *
+     * @param agnes     The Agnes instance handling the commands.
+     * @param address   The address to listen on; port 0 picks a free port.
+     * @throws IOException If the address cannot be bound.
+     */
+    public AgnesServer(Agnes agnes, InetSocketAddress address) throws IOException {
+        this.agnes = agnes;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(address);
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        ioThread = new Thread(this::serve, "agnes-server-io");
+        ioThread.start();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Agnes agnes = new Agnes();
+        agnes.startWatching(messages -> messages.forEach(System.out::println));
+        AgnesServer server = new AgnesServer(agnes,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        System.out.println("Agnes is listening on " + server.getAddress());
+    }
+
+    /**
+     * Returns the address the server listens on.
+     *
+     * @return The bound address, including the port picked if port 0 was asked for.
+     * @throws IOException If the address cannot be read.
+     */
+    public InetSocketAddress getAddress() throws IOException {
+        return (InetSocketAddress) serverChannel.getLocalAddress();
+    }
+
+    /**
+     * Stops serving, closing every connection. Commands already published still run.
+     */
+    @Override
+    public void close() throws IOException {
+        isRunning = false;
+        selector.wakeup();
+        try {
+            ioThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hands a reply back to the I/O thread. Called on Agnes's reply thread.
+     */
+    private void deliver(Connection connection, List<String> response) {
+        replies.add(new Reply(connection, encode(response)));
+        if (!isWakeupPending.getAndSet(true)) {
+            selector.wakeup();
+        }
+    }
+
+    private static ByteBuffer encode(List<String> response) {
+        StringBuilder sb = new StringBuilder();
+        for (String message : response) {
+            for (String line : message.split("\n", -1)) {
+                if (line.startsWith(".")) {
+                    sb.append('.');
+                }
+                sb.append(line).append('\n');
+            }
+        }
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer bytes = ByteBuffer.allocate(body.length + END_OF_REPLY.length);
+        bytes.put(body).put(END_OF_REPLY).flip();
+        return bytes;
+    }
+
+    /**
+     * The I/O loop: accepts connections, reads commands, and writes replies.
+     */
+    private void serve() {
+        try {
+            while (isRunning) {
+                selector.select();
+                isWakeupPending.set(false);
+                deliverReplies();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Agnes server stopped: " + e.getMessage());
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                closeQuietly(key);
+            }
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing selector: " + e.getMessage());
+            }
+        }
+    }
+
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable()) {
+                read(connection);
+            }
+            if (key.isValid() && key.isWritable()) {
+                write(connection);
+            }
+            if (key.isValid()) {
+                updateInterest(connection);
+            }
+        } catch (IOException e) {
+            // The client went away or misbehaved; only its own connection is affected
+            closeQuietly(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void read(Connection connection) throws IOException {
+        if (!connection.input.hasRemaining()) {
+            if (connection.input.capacity() >= MAX_LINE_BYTES) {
+                throw new IOException("Line too long");
+            }
+            ByteBuffer bigger = ByteBuffer.allocate(connection.input.capacity() * 2);
+            connection.input.flip();
+            connection.input = bigger.put(connection.input);
+        }
+        if (connection.channel.read(connection.input) == -1) {
+            connection.isInputDone = true;
+        }
+        submitLines(connection);
+    }
+
+    /**
+     * Publishes the complete lines read so far to Agnes, until the connection
+     * has as many commands in flight as it may.
+     */
+    private void submitLines(Connection connection) {
+        ByteBuffer input = connection.input;
+        input.flip();
+        int lineStart = input.position();
+        for (int i = lineStart; i < input.limit() && connection.inFlight < MAX_IN_FLIGHT; i++) {
+            if (input.get(i) != '\n') {
+                continue;
+            }
+            int end = i > lineStart && input.get(i - 1) == '\r' ? i - 1 : i;
+            String line = new String(input.array(), lineStart, end - lineStart, StandardCharsets.UTF_8);
+            lineStart = i + 1;
+            if (line.isBlank()) {
+                continue;
+            }
+            connection.inFlight++;
+            agnes.publish(line, response -> deliver(connection, response));
+            if (Command.from(line.strip().split(" ")[0]) == Command.BYE) {
+                connection.isInputDone = true;
+                lineStart = input.limit();
+                break;
+            }
+        }
+        input.position(lineStart);
+        input.compact();
+    }
+
+    /**
+     * Queues the replies handed back by Agnes on their connections.
+     */
+    private void deliverReplies() {
+        Reply reply;
+        while ((reply = replies.poll()) != null) {
+            Connection connection = reply.connection;
+            if (!connection.key.isValid()) {
+                continue;
+            }
+            connection.inFlight--;
+            connection.output.add(reply.bytes);
+            connection.unsentBytes += reply.bytes.remaining();
+            try {
+                write(connection);
+                submitLines(connection);
+                updateInterest(connection);
+            } catch (IOException e) {
+                closeQuietly(connection.key);
+            }
+        }
+    }
+
+    private void write(Connection connection) throws IOException {
+        while (!connection.output.isEmpty()) {
+            ByteBuffer bytes = connection.output.peek();
+            int written = connection.channel.write(bytes);
+            connection.unsentBytes -= written;
+            if (bytes.hasRemaining()) {
+                return;
+            }
+            connection.output.poll();
+        }
+    }
+
+    /**
+     * Reads from a connection only while it is within its limits, writes to it only while
+     * replies are waiting, and closes it once it is done and every reply has been sent.
+     */
+    private void updateInterest(Connection connection) throws IOException {
+        if (connection.isInputDone && connection.inFlight == 0 && connection.output.isEmpty()) {
+            closeQuietly(connection.key);
+            return;
+        }
+        boolean canRead = !connection.isInputDone
+                && connection.inFlight < MAX_IN_FLIGHT
+                && connection.unsentBytes < MAX_UNSENT_BYTES;
+        int ops = (canRead ? SelectionKey.OP_READ : 0)
+                | (connection.output.isEmpty() ? 0 : SelectionKey.OP_WRITE);
+        connection.key.interestOps(ops);
+    }
+
+    private static void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+}
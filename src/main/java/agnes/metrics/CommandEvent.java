@@ -0,0 +1,51 @@
+package agnes.metrics;
+
+import agnes.parser.Command;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JDK Flight Recorder event emitted for every command handled by {@code Parser.parse}.
+ * <p>
+ * Disabled unless the recording enables it, e.g. with {@code config/jfr/agnes.jfc}.
+ */
+@Name("agnes.Command")
+@Label("Command")
+@Category("Agnes")
+@Description("Parsing and execution of a single user command")
+@StackTrace(false)
+@Enabled(false)
+public class CommandEvent extends Event {
+    @Label("Command")
+    private String command;
+
+    @Label("Argument Length")
+    @Description("Number of characters after the command keyword")
+    private int argumentLength;
+
+    @Label("Result Count")
+    @Description("Number of messages returned to the user")
+    private int resultCount;
+
+    /**
+     * Ends the event and commits it if the recording is interested in it.
+     *
+     * @param command        The command that was executed.
+     * @param argumentLength The length of the arguments given to the command.
+     * @param resultCount    The number of messages returned.
+     */
+    public void complete(Command command, int argumentLength, int resultCount) {
+        end();
+        if (shouldCommit()) {
+            this.command = command.name().toLowerCase();
+            this.argumentLength = argumentLength;
+            this.resultCount = resultCount;
+            commit();
+        }
+    }
+}
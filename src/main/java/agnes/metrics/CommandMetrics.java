@@ -0,0 +1,125 @@
+package agnes.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import agnes.parser.Command;
+
+/**
+ * Collects latency histograms and counts of the work done by Agnes.
+ * <p>
+ * One histogram is kept per {@link Command}, covering the whole dispatch of
+ * that command, plus one per named operation such as {@link #STORAGE_SAVE}.
+ * All latencies are recorded in nanoseconds.
+ * </p>
+ */
+public class CommandMetrics {
+    public static final String STORAGE_SAVE = "storage.save";
+    public static final String STORAGE_LOAD = "storage.load";
+    public static final String TASKLIST_FIND = "tasklist.find";
+    public static final String TASKLIST_FIND_FUZZY = "tasklist.findFuzzy";
+    public static final String TASKLIST_ON_DATE = "tasklist.onDate";
+    public static final String TASKLIST_QUERY = "tasklist.query";
+
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    private final Map<Command, LatencyHistogram> commands = new EnumMap<>(Command.class);
+    private final Map<String, LatencyHistogram> operations = new LinkedHashMap<>();
+
+    /**
+     * Records how long the dispatch of a command took.
+     *
+     * @param command The command that was executed.
+     * @param nanos   The time taken in nanoseconds.
+     */
+    public synchronized void recordCommand(Command command, long nanos) {
+        commands.computeIfAbsent(command, c -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Records how long a named operation took.
+     *
+     * @param operation The name of the operation, e.g. {@link #STORAGE_SAVE}.
+     * @param nanos     The time taken in nanoseconds.
+     */
+    public synchronized void record(String operation, long nanos) {
+        operations.computeIfAbsent(operation, o -> new LatencyHistogram()).record(nanos);
+    }
+
+    /**
+     * Returns the histograms of all commands that have been executed at least once.
+     *
+     * @return An unmodifiable copy, in {@code Command} declaration order.
+     */
+    public synchronized Map<Command, LatencyHistogram> getCommandHistograms() {
+        return Collections.unmodifiableMap(new EnumMap<>(commands));
+    }
+
+    /**
+     * Returns the histograms of all operations that have been recorded at least once.
+     *
+     * @return An unmodifiable copy, in order of first use.
+     */
+    public synchronized Map<String, LatencyHistogram> getOperationHistograms() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(operations));
+    }
+
+    /**
+     * Returns all histograms as a JSON document, with latencies in nanoseconds.
+     *
+     * @return The JSON text.
+     */
+    public synchronized String toJson() {
+        StringBuilder sb = new StringBuilder("{\n  \"unit\": \"ns\",\n  \"commands\": {");
+        appendHistograms(sb, commands);
+        sb.append("},\n  \"operations\": {");
+        appendHistograms(sb, operations);
+        sb.append("}\n}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Writes {@link #toJson()} to the given file, creating parent folders if needed.
+     *
+     * @param path The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeJson(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Files.writeString(path, toJson(), StandardCharsets.UTF_8);
+    }
+
+    private static void appendHistograms(StringBuilder sb, Map<?, LatencyHistogram> histograms) {
+        String separator = "\n";
+        for (Map.Entry<?, LatencyHistogram> entry : histograms.entrySet()) {
+            LatencyHistogram h = entry.getValue();
+            sb.append(separator)
+                    .append("    \"").append(entry.getKey().toString().toLowerCase()).append("\": {")
+                    .append("\"count\": ").append(h.getCount())
+                    .append(", \"min\": ").append(h.getMin())
+                    .append(", \"mean\": ").append(Math.round(h.getMean()));
+            for (double p : REPORTED_PERCENTILES) {
+                sb.append(", \"p").append(formatPercentile(p)).append("\": ")
+                        .append(h.getValueAtPercentile(p));
+            }
+            sb.append(", \"max\": ").append(h.getMax()).append("}");
+            separator = ",\n";
+        }
+        if (!histograms.isEmpty()) {
+            sb.append("\n  ");
+        }
+    }
+
+    private static String formatPercentile(double p) {
+        return p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p).replace(".", "");
+    }
+}
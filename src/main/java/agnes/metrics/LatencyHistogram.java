@@ -0,0 +1,104 @@
+package agnes.metrics;
+
+/**
+ * Records a distribution of latencies with bounded relative error, in the style of HdrHistogram.
+ * <p>
+ * Values are counted in log-linear buckets: every power of two is split into
+ * {@value #HALF_COUNT} equally sized sub-buckets, so any recorded value is
+ * reported within about 3% of its true value while the histogram stays a
+ * fixed-size array regardless of how many values are recorded.
+ * <p>
+ * Values are expected in nanoseconds. Values above {@link #MAX_VALUE} are
+ * clamped to it.
+ */
+public class LatencyHistogram {
+    /** Largest trackable value, about 18 minutes in nanoseconds. */
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int HALF_COUNT = SUB_BUCKET_COUNT / 2;
+    private static final long SUB_BUCKET_MASK = SUB_BUCKET_COUNT - 1;
+
+    private final long[] counts = new long[indexOf(MAX_VALUE) + 1];
+    private long totalCount;
+    private long totalValue;
+    private long min = Long.MAX_VALUE;
+    private long max;
+
+    /**
+     * Records a single value.
+     *
+     * @param value The value to record; negative values are treated as 0.
+     */
+    public synchronized void record(long value) {
+        long clamped = Math.min(Math.max(value, 0), MAX_VALUE);
+        counts[indexOf(clamped)]++;
+        totalCount++;
+        totalValue += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    public synchronized long getCount() {
+        return totalCount;
+    }
+
+    public synchronized long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    public synchronized long getMax() {
+        return max;
+    }
+
+    public synchronized double getMean() {
+        return totalCount == 0 ? 0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Returns the value at or below which the given percentage of recorded values fall.
+     * <p>
+     * The result is the highest value that shares a bucket with the percentile,
+     * capped at the largest value actually recorded.
+     * </p>
+     *
+     * @param percentile The percentile to look up, from 0 to 100.
+     * @return The value at the percentile, or 0 if nothing has been recorded.
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        double clamped = Math.min(Math.max(percentile, 0), 100);
+        long target = Math.max(1, (long) Math.ceil(clamped / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) {
+                return Math.min(highestEquivalentValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Maps a value to its bucket. Values below {@code SUB_BUCKET_COUNT} get a bucket
+     * each; above that, each power of two shares {@code HALF_COUNT} buckets.
+     */
+    private static int indexOf(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | SUB_BUCKET_MASK);
+        int shift = magnitude - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (value >>> shift);
+        return shift * HALF_COUNT + subBucket;
+    }
+
+    private static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / HALF_COUNT - 1;
+        long subBucket = index - (long) shift * HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
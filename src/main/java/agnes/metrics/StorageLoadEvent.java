@@ -0,0 +1,48 @@
+package agnes.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event emitted for every {@code Storage.load}.
+ * <p>
+ * Disabled unless the recording enables it, e.g. with {@code config/jfr/agnes.jfc}.
+ */
+@Name("agnes.StorageLoad")
+@Label("Storage Load")
+@Category("Agnes")
+@Description("Read and parse of the task file")
+@Enabled(false)
+public class StorageLoadEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Lines")
+    @Description("Number of non-blank lines read")
+    private int lines;
+
+    @Label("Parse Failures")
+    @Description("Number of lines that could not be parsed into a task and were skipped")
+    private int parseFailures;
+
+    /**
+     * Ends the event and commits it if the recording is interested in it.
+     *
+     * @param path          The file that was read.
+     * @param lines         The number of non-blank lines read.
+     * @param parseFailures The number of lines skipped as unparsable.
+     */
+    public void complete(String path, int lines, int parseFailures) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.lines = lines;
+            this.parseFailures = parseFailures;
+            commit();
+        }
+    }
+}
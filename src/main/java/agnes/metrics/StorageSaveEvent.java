@@ -0,0 +1,48 @@
+package agnes.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder event emitted for every {@code Storage.save}.
+ * <p>
+ * Disabled unless the recording enables it, e.g. with {@code config/jfr/agnes.jfc}.
+ */
+@Name("agnes.StorageSave")
+@Label("Storage Save")
+@Category("Agnes")
+@Description("Rewrite of the task file")
+@Enabled(false)
+public class StorageSaveEvent extends Event {
+    @Label("Path")
+    private String path;
+
+    @Label("Tasks")
+    private int taskCount;
+
+    @Label("Bytes Written")
+    @DataAmount
+    private long bytesWritten;
+
+    /**
+     * Ends the event and commits it if the recording is interested in it.
+     *
+     * @param path          The file that was written.
+     * @param taskCount     The number of tasks saved.
+     * @param bytesWritten  The size of the file written, or -1 if writing failed.
+     */
+    public void complete(String path, int taskCount, long bytesWritten) {
+        end();
+        if (shouldCommit()) {
+            this.path = path;
+            this.taskCount = taskCount;
+            this.bytesWritten = bytesWritten;
+            commit();
+        }
+    }
+}
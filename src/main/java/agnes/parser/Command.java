@@ -8,6 +8,7 @@ public enum Command {
     BYE,
     LIST,
     ON,
+    BETWEEN,
     TODO,
     DEADLINE,
     EVENT,
@@ -15,7 +16,14 @@ public enum Command {
     UNMARK,
     DELETE,
     FIND,
+    QUERY,
     UPDATE,
+    STATS,
+    UPCOMING,
+    CONFLICTS,
+    IMPORT,
+    EXPORT,
+    RELOAD,
     UNKNOWN,
     KNS;
 
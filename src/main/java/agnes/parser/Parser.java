@@ -2,18 +2,33 @@ package agnes.parser;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 import agnes.exception.InvalidCommandException;
 import agnes.exception.InvalidDescriptionException;
 import agnes.exception.InvalidTaskNumberException;
 import agnes.exception.TaskIndexOutOfBoundsException;
+import agnes.metrics.CommandEvent;
+import agnes.metrics.CommandMetrics;
+import agnes.reminder.ReminderScheduler;
 import agnes.storage.Storage;
+import agnes.storage.TaskTransfer;
 import agnes.task.Deadline;
+import agnes.task.DescriptionPool;
 import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.SortKey;
 import agnes.task.Task;
 import agnes.task.TaskList;
+import agnes.task.TaskQuery;
 import agnes.task.ToDo;
 import agnes.ui.Ui;
 import agnes.util.DateTimeUtil;
@@ -35,21 +50,44 @@ public class Parser {
     //
 
     // Command prefixes
+    private static final String LIST_PREFIX = "list";
     private static final String TODO_PREFIX = "todo";
     private static final String DEADLINE_PREFIX = "deadline";
     private static final String EVENT_PREFIX = "event";
     private static final String ON_PREFIX = "on";
+    private static final String BETWEEN_PREFIX = "between";
     private static final String FIND_PREFIX = "find";
+    private static final String QUERY_PREFIX = "query";
     private static final String UPDATE_PREFIX = "update";
+    private static final String UPCOMING_PREFIX = "upcoming";
+    private static final String STATS_PREFIX = "stats";
+    private static final String LATENCY_OPTION = "latency";
+    private static final String IMPORT_PREFIX = "import";
+    private static final String EXPORT_PREFIX = "export";
+
+    private static final int DEFAULT_UPCOMING_COUNT = 5;
 
     // Delimiters
     private static final String BY_DELIMITER = " /by ";
     private static final String FROM_DELIMITER = " /from ";
     private static final String TO_DELIMITER = " /to ";
+    private static final String EVERY_DELIMITER = " /every ";
+    private static final String FUZZY_MARKER = "~";
+    private static final String DONE_FILTER = "is:done";
+    private static final String UNDONE_FILTER = "is:undone";
+    private static final String SORT_FLAG = "/sort";
+    private static final int RESPONSE_CACHE_CAPACITY = 256;
+    /** Commands whose responses depend only on the request and the tasks, and so can be cached. */
+    private static final Set<Command> CACHEABLE = EnumSet.of(Command.HI, Command.LIST, Command.ON,
+            Command.BETWEEN, Command.FIND, Command.QUERY, Command.UPCOMING, Command.CONFLICTS);
 
     private final TaskList tasks;
     private final Storage storage;
     private final Ui ui;
+    private final CommandMetrics metrics;
+    private final ResponseCache responseCache = new ResponseCache(RESPONSE_CACHE_CAPACITY);
+    private boolean isSaveDeferred;
+
     /**
      * Creates a {@code Parser} with the required dependencies.
      *
@@ -58,9 +96,37 @@ public class Parser {
      * @param ui        The user interface logic used for displaying messages.
      */
     public Parser(TaskList tasks, Storage storage, Ui ui) {
+        this(tasks, storage, ui, new CommandMetrics());
+    }
+
+    /**
+     * Creates a {@code Parser} that records its latencies into the given {@code CommandMetrics}.
+     *
+     * @param tasks     The {@code TaskList} storing all the added tasks.
+     * @param storage   The Storage logic to edit files in disk.
+     * @param ui        The user interface logic used for displaying messages.
+     * @param metrics   The collector of per-command latencies.
+     */
+    public Parser(TaskList tasks, Storage storage, Ui ui, CommandMetrics metrics) {
+        this(tasks, storage, ui, metrics, new ReminderScheduler());
+    }
+
+    /**
+     * Creates a {@code Parser} that also keeps the given reminders in step with the tasks.
+     *
+     * @param tasks     The {@code TaskList} storing all the added tasks.
+     * @param storage   The Storage logic to edit files in disk.
+     * @param ui        The user interface logic used for displaying messages.
+     * @param metrics   The collector of per-command latencies.
+     * @param reminders The scheduler to reschedule whenever a task changes.
+     */
+    public Parser(TaskList tasks, Storage storage, Ui ui, CommandMetrics metrics, ReminderScheduler reminders) {
         this.tasks = tasks;
         this.storage = storage;
         this.ui = ui;
+        this.metrics = metrics;
+        tasks.addListener(reminders);
+        tasks.addListener(changes -> save());
     }
 
     /**
@@ -75,19 +141,83 @@ public class Parser {
     public List<String> parse(String request) {
         assert request != null : "User request should never be null";
         assert !request.isBlank() : "User request should not be blank";
+        String keyword = request.split(" ")[0];
+        assert !keyword.isBlank() : "Command keyword should exist";
+        Command command = Command.from(keyword);
+
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        long start = System.nanoTime();
+        List<String> response = null;
+        long version = tasks.getVersion();
+        // Each command's changes reach the listeners, e.g. the save, as one batch
+        tasks.beginBatch();
+        try {
+            response = CACHEABLE.contains(command)
+                    ? executeCached(command, keyword, request)
+                    : execute(command, request);
+            if (tasks.getVersion() != version && storage.hasExternalChanges()) {
+                // Merge an edit made outside Agnes now, as the file would not be saved over it
+                response = new ArrayList<>(response);
+                response.addAll(ui.getTasksReloaded(storage.reload(tasks), tasks.size()));
+            }
+            return response;
+        } finally {
+            tasks.endBatch();
+            metrics.recordCommand(command, System.nanoTime() - start);
+            event.complete(command, request.length() - keyword.length(),
+                    response == null ? 0 : response.size());
+        }
+    }
+
+    /**
+     * Performs a read-only command, reusing the response to the same request if no task
+     * has changed since.
+     *
+     * @param command   The command given by the user.
+     * @param keyword   The command word of the request.
+     * @param request   The full user input string.
+     * @return          The message to be shown to user.
+     */
+    private List<String> executeCached(Command command, String keyword, String request) {
+        String key = ResponseCache.keyOf(keyword, request);
+        long version = tasks.getVersion();
+        List<String> cached = responseCache.get(key, version);
+        if (cached != null) {
+            return cached;
+        }
+        return responseCache.put(key, version, execute(command, request));
+    }
+
+    /**
+     * Returns the cache of responses to read-only commands.
+     *
+     * @return The response cache.
+     */
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    /**
+     * Performs the task operations of a parsed command.
+     *
+     * @param command   The command given by the user.
+     * @param request   The full user input string.
+     * @return          The message to be shown to user.
+     */
+    private List<String> execute(Command command, String request) {
         try {
-            String keyword = request.split(" ")[0];
-            assert !keyword.isBlank() : "Command keyword should exist";
-            Command command = Command.from(keyword);
             switch (command) {
             case HI:
                 return ui.getWelcomeMessage();
             case BYE:
                 return ui.getByeMessage();
             case LIST:
-                return ui.getTasks(tasks);
+                return handleList(request);
             case ON:
                 return handleOnDate(request);
+            case BETWEEN:
+                return handleBetween(request);
             case MARK:
                 return handleMark(request, true);
             case UNMARK:
@@ -96,10 +226,24 @@ public class Parser {
                 return handleDelete(request);
             case FIND:
                 return handleFind(request);
+            case QUERY:
+                return handleQuery(request);
             case UPDATE:
                 return handleUpdate(request);
             case KNS:
                 return handleKns(request);
+            case STATS:
+                return handleStats(request);
+            case UPCOMING:
+                return handleUpcoming(request);
+            case CONFLICTS:
+                return ui.getConflicts(tasks.getAllConflicts());
+            case IMPORT:
+                return handleImport(request);
+            case EXPORT:
+                return handleExport(request);
+            case RELOAD:
+                return ui.getTasksReloaded(storage.reload(tasks), tasks.size());
             case TODO:
             case DEADLINE:
             case EVENT:
@@ -152,7 +296,9 @@ public class Parser {
             throw new InvalidDescriptionException("Tell me what description you want!");
         }
         String content = request.substring(TODO_PREFIX.length()).trim();
-        Task t = new ToDo(content);
+        List<String> tags = new ArrayList<>();
+        Task t = new ToDo(withoutTags(content, tags));
+        t.setTags(tags);
         return addTask(t);
     }
 
@@ -169,10 +315,13 @@ public class Parser {
         }
 
         String content = request.substring(DEADLINE_PREFIX.length());
-        String[] deadlineInfo = content.split(BY_DELIMITER);
+        Recurrence recurrence = parseRecurrence(content);
+        String[] deadlineInfo = withoutRecurrence(content).split(BY_DELIMITER);
         try {
             LocalDateTime by = DateTimeUtil.parseDateTime(deadlineInfo[1].trim());
-            Task t = new Deadline(deadlineInfo[0].trim(), by);
+            List<String> tags = new ArrayList<>();
+            Task t = new Deadline(withoutTags(deadlineInfo[0].trim(), tags), by, recurrence);
+            t.setTags(tags);
             return addTask(t);
         } catch (DateTimeParseException e) {
             throw new InvalidDescriptionException("Date format should be yyyy-MM-dd or yyyy-MM-dd HHmm");
@@ -181,6 +330,7 @@ public class Parser {
 
     /**
      * Handles creation and addition of an Event task.
+     * Warns the user if the new event clashes with existing ones.
      *
      * @param request The full user input string starting with the "event" keyword.
      * @return        The list of messages to be shown to user.
@@ -192,18 +342,85 @@ public class Parser {
         }
 
         String content = request.substring(EVENT_PREFIX.length());
-        String[] eventInfo = content.split(FROM_DELIMITER);
+        Recurrence recurrence = parseRecurrence(content);
+        String[] eventInfo = withoutRecurrence(content).split(FROM_DELIMITER);
         String[] fromToInfo = eventInfo[1].split(TO_DELIMITER);
         try {
             LocalDateTime from = DateTimeUtil.parseDateTime(fromToInfo[0].trim());
             LocalDateTime to = DateTimeUtil.parseDateTime(fromToInfo[1].trim());
-            Task t = new Event(eventInfo[0].trim(), from, to);
-            return addTask(t);
+            List<String> tags = new ArrayList<>();
+            Event t = new Event(withoutTags(eventInfo[0].trim(), tags), from, to, recurrence);
+            t.setTags(tags);
+            List<String> messages = new ArrayList<>(addTask(t));
+            if (t.isRecurring()) {
+                return messages;
+            }
+            List<Task> clashes = tasks.getConflicts(t);
+            if (!clashes.isEmpty()) {
+                messages.addAll(ui.getClashWarning(clashes));
+            }
+            return messages;
         } catch (DateTimeParseException e) {
             throw new InvalidDescriptionException("Date format should be yyyy-MM-dd or yyyy-MM-dd HHmm");
         }
     }
 
+    /**
+     * Parses the optional {@code /every} part at the end of a deadline or event.
+     *
+     * @param content The user input after the command keyword.
+     * @return        The recurrence, or {@code null} if the task does not repeat.
+     * @throws InvalidDescriptionException If the recurrence is invalid.
+     */
+    private Recurrence parseRecurrence(String content) throws InvalidDescriptionException {
+        int everyIdx = content.indexOf(EVERY_DELIMITER);
+        if (everyIdx == -1) {
+            return null;
+        }
+        try {
+            return Recurrence.parse(content.substring(everyIdx + EVERY_DELIMITER.length()));
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDescriptionException(e.getMessage());
+        }
+    }
+
+    /**
+     * Removes the optional {@code /every} part from the end of a deadline or event.
+     *
+     * @param content The user input after the command keyword.
+     * @return        The input without its recurrence.
+     */
+    private String withoutRecurrence(String content) {
+        int everyIdx = content.indexOf(EVERY_DELIMITER);
+        return everyIdx == -1 ? content : content.substring(0, everyIdx);
+    }
+
+    /**
+     * Takes the {@code #tag} words out of a task description.
+     *
+     * @param description   The description as the user typed it.
+     * @param tags          The list the tags are added to, as returned by {@link Task#normalizeTag(String)}.
+     * @return              The description without its tags.
+     * @throws InvalidDescriptionException If a tag is malformed or nothing but tags is left.
+     */
+    private String withoutTags(String description, List<String> tags) throws InvalidDescriptionException {
+        if (description.indexOf('#') == -1) {
+            return description;
+        }
+        StringBuilder words = new StringBuilder();
+        for (String word : description.split(" ")) {
+            if (word.startsWith("#")) {
+                tags.add(TaskQuery.parseTag(word));
+            } else if (!word.isEmpty()) {
+                words.append(words.length() == 0 ? "" : " ").append(word);
+            }
+        }
+        if (words.length() == 0) {
+            throw new InvalidDescriptionException("Tell me what description you want!");
+        }
+        return words.toString();
+    }
+
     /**
      * Executes the adding of a {@code Task} to the {@code TaskList}.
      * @param t The {@code Task} to be added.
@@ -214,55 +431,87 @@ public class Parser {
         int oldSize = tasks.size();
         tasks.addTask(t);
         assert tasks.size() == oldSize + 1 : "TaskList size should increase after adding";
-        storage.save(tasks);
         return ui.getTaskAdded(t, tasks.size());
     }
 
     /**
-     * Handles any request to setMarked a {@code Task}.
+     * Stops saving the tasks after every change, for a caller that saves them itself,
+     * e.g. once per batch of commands.
+     */
+    public void deferSaves() {
+        isSaveDeferred = true;
+    }
+
+    /**
+     * Saves all tasks to disk, recording how long the write took, unless saves are deferred.
+     */
+    private void save() {
+        if (isSaveDeferred) {
+            return;
+        }
+        long start = System.nanoTime();
+        storage.save(tasks);
+        metrics.record(CommandMetrics.STORAGE_SAVE, System.nanoTime() - start);
+    }
+
+    /**
+     * Handles any request to setMarked one or more {@code Task}s, e.g. {@code mark 2} or {@code mark 1-5,8}.
+     * All tasks are marked before saving once.
      *
      * @param request   The full user input string.
      * @return          The list of messages to be shown to user.
-     * @throws InvalidTaskNumberException       If the task number is invalid.
-     * @throws TaskIndexOutOfBoundsException    If the task index is out of bounds.
+     * @throws InvalidTaskNumberException       If a task number is invalid.
+     * @throws TaskIndexOutOfBoundsException    If a task index is out of bounds.
      */
     private List<String> handleMark(String request, boolean mark)
             throws InvalidTaskNumberException, TaskIndexOutOfBoundsException {
-        String[] parts = request.split(" ");
+        String[] parts = request.strip().split(" ", 2);
         if (parts.length < 2) {
             throw new InvalidTaskNumberException("Don't play play... Give me a task number!");
         }
-        int taskNo = tasks.checkTaskNumber(parts[1]);
-        assert taskNo > 0 && taskNo <= tasks.size() : "Task number must be within list bounds";
-        Task task = tasks.get(taskNo - 1);
-        if (mark) {
-            task.setMarked();
-        } else {
-            task.setUnmarked();
+        int[] taskNos = tasks.checkTaskNumbers(parts[1]);
+        int[] indices = toIndices(taskNos);
+        List<Task> marked = tasks.markTasks(indices, mark);
+        if (marked.size() == 1) {
+            return ui.getTaskMarked(marked.get(0), mark);
         }
-        storage.save(tasks);
-        return ui.getTaskMarked(task, mark);
+        return ui.getTasksMarked(marked, mark);
     }
 
     /**
-     * Handles any request to delete a {@code Task} from a {@code TaskList}
+     * Handles any request to delete one or more {@code Task}s from a {@code TaskList},
+     * e.g. {@code delete 3} or {@code delete 3,7,9-20}.
+     * The tasks are removed in a single sweep and saved once.
      *
      * @param request   The full user input string.
      * @return          The list of messages to be shown to user.
-     * @throws InvalidTaskNumberException       If the task number is invalid.
-     * @throws TaskIndexOutOfBoundsException    If the task index is out of bounds.
+     * @throws InvalidTaskNumberException       If a task number is invalid.
+     * @throws TaskIndexOutOfBoundsException    If a task index is out of bounds.
      */
     public List<String> handleDelete(String request) throws InvalidTaskNumberException, TaskIndexOutOfBoundsException {
-        String[] parts = request.split(" ");
+        String[] parts = request.strip().split(" ", 2);
         if (parts.length < 2) {
             throw new InvalidTaskNumberException("Don't play play... Give me a task number!");
         }
 
-        int taskNo = tasks.checkTaskNumber(parts[1]);
-        assert taskNo > 0 && taskNo <= tasks.size() : "Task number must be valid before deletion";
-        Task removed = tasks.removeTask(taskNo - 1);
-        storage.save(tasks);
-        return ui.getTaskDeleted(removed, tasks.size());
+        int[] taskNos = tasks.checkTaskNumbers(parts[1]);
+        List<Task> removed = tasks.removeTasks(toIndices(taskNos));
+        if (removed.size() == 1) {
+            return ui.getTaskDeleted(removed.get(0), tasks.size());
+        }
+        return ui.getTasksDeleted(removed, tasks.size());
+    }
+
+    /**
+     * Converts validated task numbers, which start from 1, into list indices.
+     */
+    private static int[] toIndices(int[] taskNos) {
+        int[] indices = new int[taskNos.length];
+        for (int i = 0; i < taskNos.length; i++) {
+            assert taskNos[i] > 0 : "Task numbers must be validated before use";
+            indices[i] = taskNos[i] - 1;
+        }
+        return indices;
     }
 
 
@@ -271,18 +520,125 @@ public class Parser {
      *
      * @param request   The full user input string containing the date.
      * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If the date is missing or malformed.
      */
-    private List<String> handleOnDate(String request) {
-        LocalDate date = DateTimeUtil
-                .parseDateTime(request.substring(ON_PREFIX.length()))
-                .toLocalDate();
+    private List<String> handleOnDate(String request) throws InvalidDescriptionException {
+        LocalDate date;
+        try {
+            date = DateTimeUtil
+                    .parseDateTime(request.substring(ON_PREFIX.length()).strip())
+                    .toLocalDate();
+        } catch (DateTimeParseException e) {
+            throw new InvalidDescriptionException("Date format should be yyyy-MM-dd or yyyy-MM-dd HHmm");
+        }
         assert date != null : "Parsed date should not be null";
+        long start = System.nanoTime();
         List<Task> filteredTasks = tasks.getTasksOnDate(date);
+        metrics.record(CommandMetrics.TASKLIST_ON_DATE, System.nanoTime() - start);
         return ui.getTasksOnDate(filteredTasks, date);
     }
 
+    /**
+     * Handles any request to find all tasks between two date-times.
+     *
+     * @param request   The full user input string, in the form {@code between <from> /to <to>}.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If either date is missing or malformed, or the range is backwards.
+     */
+    private List<String> handleBetween(String request) throws InvalidDescriptionException {
+        String content = request.substring(BETWEEN_PREFIX.length());
+        int toIdx = content.indexOf(TO_DELIMITER);
+        if (toIdx == -1) {
+            throw new InvalidDescriptionException("Specify the period using 'between <from> /to <to>'...");
+        }
+
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            from = DateTimeUtil.parseDateTime(content.substring(0, toIdx).strip());
+            to = DateTimeUtil.parseEndDateTime(content.substring(toIdx + TO_DELIMITER.length()).strip());
+        } catch (DateTimeParseException e) {
+            throw new InvalidDescriptionException("Date format should be yyyy-MM-dd or yyyy-MM-dd HHmm");
+        }
+        if (to.isBefore(from)) {
+            throw new InvalidDescriptionException("Your period ends before it starts leh...");
+        }
+
+        return ui.getTasksBetween(tasks.getTasksBetween(from, to), from, to);
+    }
+
+    /**
+     * Handles any request to list tasks, optionally only those with some tags,
+     * e.g. {@code list #work #urgent is:undone}.
+     *
+     * @param request   The full user input string.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If a filter is not a tag or a done status.
+     */
+    private List<String> handleList(String request) throws InvalidDescriptionException {
+        String content = request.substring(LIST_PREFIX.length()).strip();
+        if (content.isEmpty()) {
+            return ui.getTasks(tasks);
+        }
+        if (content.startsWith(SORT_FLAG)) {
+            return handleSortedList(content.substring(SORT_FLAG.length()).strip());
+        }
+
+        List<String> tags = new ArrayList<>();
+        Boolean isDone = null;
+        for (String word : content.split(" +")) {
+            if (word.startsWith("#")) {
+                tags.add(TaskQuery.parseTag(word));
+            } else if (word.equals(DONE_FILTER) || word.equals(UNDONE_FILTER)) {
+                isDone = word.equals(DONE_FILTER);
+            } else {
+                throw new InvalidDescriptionException("I can only list tasks by #tags, "
+                        + DONE_FILTER + " and " + UNDONE_FILTER);
+            }
+        }
+        if (tags.isEmpty()) {
+            throw new InvalidDescriptionException("Tell me which #tags to list!");
+        }
+        return ui.getTasksTagged(tasks.getTasksTagged(tags, isDone), content);
+    }
+
+    /**
+     * Handles a request to list tasks in some order, e.g. {@code list /sort by 5}.
+     *
+     * @param content   The sort key, optionally followed by how many tasks to show.
+     * @throws InvalidDescriptionException If the sort key or count is malformed.
+     */
+    private List<String> handleSortedList(String content) throws InvalidDescriptionException {
+        String[] parts = content.split(" +");
+        if (parts.length > 2 || parts[0].isEmpty()) {
+            throw new InvalidDescriptionException("Format should be: list /sort by|added|status [COUNT]");
+        }
+        SortKey key;
+        try {
+            key = SortKey.from(parts[0]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDescriptionException(e.getMessage());
+        }
+        int count = tasks.size();
+        if (parts.length == 2) {
+            try {
+                count = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException e) {
+                count = 0;
+            }
+            if (count < 1) {
+                throw new InvalidDescriptionException("Tell me how many tasks you want to see, e.g. list /sort by 5");
+            }
+        }
+        return ui.getSortedTasks(tasks.getSorted(key, count), tasks.size(), key);
+    }
+
     /**
      * Handles any request to find all tasks with a keyword.
+     * <p>
+     * A keyword starting with {@value #FUZZY_MARKER} also finds tasks with words that
+     * are a typo or two away, closest first.
+     * </p>
      *
      * @param request   The full user input string containing the keyword.
      * @return          The message to be shown to user.
@@ -296,7 +652,118 @@ public class Parser {
         }
 
         assert !content.isBlank() : "Find keyword should not be blank";
-        return ui.getSearchTasks(tasks.find(content), content);
+        if (content.startsWith(FUZZY_MARKER)) {
+            String term = content.substring(FUZZY_MARKER.length()).strip();
+            if (term.isEmpty()) {
+                throw new InvalidDescriptionException("Tell me what to find after the ~!");
+            }
+            long start = System.nanoTime();
+            List<Task> found = tasks.findFuzzy(term);
+            metrics.record(CommandMetrics.TASKLIST_FIND_FUZZY, System.nanoTime() - start);
+            return ui.getSearchTasks(found, content);
+        }
+
+        long start = System.nanoTime();
+        List<Task> found = tasks.find(content);
+        metrics.record(CommandMetrics.TASKLIST_FIND, System.nanoTime() - start);
+        return ui.getSearchTasks(found, content);
+    }
+
+    /**
+     * Handles any request to filter tasks by a combination of conditions.
+     *
+     * @param request   The full user input string containing the conditions.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If there are no conditions or a condition is malformed.
+     * @see TaskQuery
+     */
+    private List<String> handleQuery(String request) throws InvalidDescriptionException {
+        String content = request.substring(QUERY_PREFIX.length()).strip();
+        TaskQuery query = TaskQuery.parse(content);
+
+        long start = System.nanoTime();
+        List<Task> found = tasks.query(query);
+        metrics.record(CommandMetrics.TASKLIST_QUERY, System.nanoTime() - start);
+        return ui.getQueryResults(found, content);
+    }
+
+    /**
+     * Handles any request to list the next pending tasks in time order.
+     *
+     * @param request   The full user input string, optionally containing how many tasks to show.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If the number of tasks is not a positive integer.
+     */
+    private List<String> handleUpcoming(String request) throws InvalidDescriptionException {
+        String content = request.substring(UPCOMING_PREFIX.length()).strip();
+        int count = DEFAULT_UPCOMING_COUNT;
+        if (!content.isEmpty()) {
+            try {
+                count = Integer.parseInt(content);
+            } catch (NumberFormatException e) {
+                count = 0;
+            }
+            if (count < 1) {
+                throw new InvalidDescriptionException("Tell me how many tasks you want to see, e.g. upcoming 5");
+            }
+        }
+        return ui.getUpcomingTasks(tasks.getUpcoming(count));
+    }
+
+    /**
+     * Handles any request to add the tasks in a CSV or iCalendar file, e.g. {@code import tasks.csv}.
+     * The file is streamed in batches and the list is saved once at the end.
+     *
+     * @param request   The full user input string containing the file path.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If the file is missing, unsupported or unreadable.
+     */
+    private List<String> handleImport(String request) throws InvalidDescriptionException {
+        Path file = parseTransferFile(request.substring(IMPORT_PREFIX.length()).strip());
+        try {
+            TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, tasks);
+            return ui.getTasksImported(result.getImported(), result.getSkipped(), tasks.size());
+        } catch (NoSuchFileException e) {
+            throw new InvalidDescriptionException("I can't find " + file + " leh...");
+        } catch (IOException e) {
+            throw new InvalidDescriptionException("I couldn't read " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Handles any request to write all tasks to a CSV or iCalendar file, e.g. {@code export tasks.ics}.
+     *
+     * @param request   The full user input string containing the file path.
+     * @return          The message to be shown to user.
+     * @throws InvalidDescriptionException If the file is unsupported or cannot be written.
+     */
+    private List<String> handleExport(String request) throws InvalidDescriptionException {
+        Path file = parseTransferFile(request.substring(EXPORT_PREFIX.length()).strip());
+        try {
+            int count = TaskTransfer.exportTo(file, tasks);
+            return ui.getTasksExported(count, file.toString());
+        } catch (IOException e) {
+            throw new InvalidDescriptionException("I couldn't write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts the file path given to {@code import} or {@code export}, checking its format.
+     */
+    private Path parseTransferFile(String content) throws InvalidDescriptionException {
+        if (content.isEmpty()) {
+            throw new InvalidDescriptionException("Which file? Give me a .csv or .ics file!");
+        }
+        Path file;
+        try {
+            file = Path.of(content);
+        } catch (InvalidPathException e) {
+            throw new InvalidDescriptionException("That doesn't look like a file path: " + content);
+        }
+        if (!TaskTransfer.isSupported(file)) {
+            throw new InvalidDescriptionException("I can only import and export .csv or .ics files");
+        }
+        return file;
     }
 
     /**
@@ -312,6 +779,28 @@ public class Parser {
         return ui.getKnsResponse(content);
     }
 
+    /**
+     * Handles a request for an overview of the tasks, or with {@value #LATENCY_OPTION},
+     * for the timings and other statistics Agnes has collected.
+     *
+     * @param request   The full user input string.
+     * @return          The messages to be shown to user.
+     * @throws InvalidDescriptionException If the option is not recognised.
+     */
+    private List<String> handleStats(String request) throws InvalidDescriptionException {
+        String content = request.substring(STATS_PREFIX.length()).strip();
+        if (content.isEmpty()) {
+            return ui.getSummary(tasks.getSummary(LocalDateTime.now()));
+        }
+        if (!content.equals(LATENCY_OPTION)) {
+            throw new InvalidDescriptionException("Try stats, or stats " + LATENCY_OPTION + " for timings");
+        }
+        List<String> messages = new ArrayList<>(ui.getLatencyStats(metrics));
+        messages.addAll(ui.getDescriptionPoolStats(DescriptionPool.getInstance()));
+        messages.addAll(ui.getResponseCacheStats(responseCache));
+        return messages;
+    }
+
     /**
      * Handles an update request.
      *
@@ -352,7 +841,6 @@ public class Parser {
         }
 
         Task t = this.tasks.updateTask(index, field, value);
-        storage.save(tasks);
 
         return ui.getTaskUpdated(t);
     }
@@ -0,0 +1,130 @@
+package agnes.parser;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Remembers the responses to read-only requests, such as {@code list} or {@code find book}.
+ * <p>
+ * Responses are keyed by the request with its command word lower-cased and its ends
+ * trimmed, and are only valid for the version of the {@code TaskList} they were made
+ * from: once the list changes, the whole cache is dropped on the next lookup. At most
+ * {@code capacity} responses are kept, evicting the least recently used. Like
+ * {@link Parser}, a cache is used by one thread at a time.
+ * </p>
+ */
+public class ResponseCache {
+    private final int capacity;
+    private final Map<String, List<String>> responses;
+    private long version = -1;
+    private long hits;
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacity  The most responses to keep.
+     */
+    public ResponseCache(int capacity) {
+        assert capacity > 0 : "Cache capacity should be positive";
+        this.capacity = capacity;
+        this.responses = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<String>> eldest) {
+                return size() > ResponseCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Normalises a request into the key its response is cached under.
+     *
+     * @param keyword   The command word of the request.
+     * @param request   The full request.
+     * @return          The cache key.
+     */
+    static String keyOf(String keyword, String request) {
+        return keyword.toLowerCase() + " " + request.substring(keyword.length()).strip();
+    }
+
+    /**
+     * Returns the cached response to a request, if it was made from the current version of the list.
+     *
+     * @param key       The normalised request.
+     * @param version   The current version of the list.
+     * @return          The response, or {@code null} if there is none.
+     */
+    List<String> get(String key, long version) {
+        if (version != this.version) {
+            responses.clear();
+            this.version = version;
+        }
+        List<String> response = responses.get(key);
+        if (response == null) {
+            misses++;
+        } else {
+            hits++;
+        }
+        return response;
+    }
+
+    /**
+     * Caches the response to a request.
+     *
+     * @param key       The normalised request.
+     * @param version   The version of the list the response was made from.
+     * @param response  The response.
+     * @return          An unmodifiable copy of the response, as cached.
+     */
+    List<String> put(String key, long version, List<String> response) {
+        List<String> cached = List.copyOf(response);
+        if (version == this.version) {
+            responses.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Drops every cached response, e.g. to measure requests as if none had been cached.
+     */
+    public void clear() {
+        responses.clear();
+    }
+
+    /**
+     * Returns the number of requests answered from the cache.
+     *
+     * @return The number of hits so far.
+     */
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of cacheable requests that had to be computed.
+     *
+     * @return The number of misses so far.
+     */
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of responses currently cached.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return responses.size();
+    }
+
+    /**
+     * Returns the most responses this cache keeps.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,329 @@
+package agnes.pipeline;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import agnes.metrics.CommandMetrics;
+import agnes.parser.Parser;
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+
+/**
+ * Runs commands from any number of threads through a single writer, in the style of a disruptor.
+ * <p>
+ * Producers, such as the GUI, the command line or the server, claim a slot in a ring
+ * of preallocated slots with one atomic increment, fill it in and publish it. Three
+ * stages, each on its own thread, then follow each other around the ring:
+ * </p>
+ * <ol>
+ *     <li>apply: runs each command through the {@link Parser}, the only thread to touch
+ *     the tasks. At the end of each batch of commands that changed any task, it turns
+ *     the tasks into the lines of the task file.</li>
+ *     <li>persist: writes the newest lines of everything applied so far, so a burst of
+ *     changes is saved once rather than once per command. If the task file was changed
+ *     outside Agnes since the apply stage merged such changes, it is not saved over, and
+ *     the reply says so.</li>
+ *     <li>reply: hands each response back to its producer, once the change it made is saved.</li>
+ * </ol>
+ * <p>
+ * Each stage only reads the sequence of the stage before it, and a producer only waits
+ * for the reply stage when the ring is full, so the hot path takes no locks. A waiting
+ * thread spins, then yields. A stage that is still idle then parks until a producer or
+ * the stage before it wakes it, so an idle pipeline uses no CPU; a producer waiting for
+ * room parks briefly instead.
+ * </p>
+ */
+public class CommandPipeline implements AutoCloseable {
+    /** Slots in the ring when none is given; a power of two. */
+    public static final int DEFAULT_CAPACITY = 1024;
+    private static final int SPINS = 100;
+    private static final int YIELDS = 100;
+    private static final long PARK_NANOS = 50_000;
+    private static final String SAVE_REFUSED = "I couldn't save that, as your task file was just changed"
+            + " outside Agnes. Say reload to merge the change, and I'll save both.";
+
+    private final Parser parser;
+    private final TaskList tasks;
+    private final Storage storage;
+    private final CommandMetrics metrics;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final int shift;
+    /** The lap each slot was last published in, so a slot from the previous lap is not mistaken for new. */
+    private final AtomicIntegerArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong applied = new AtomicLong(-1);
+    private final AtomicLong persisted = new AtomicLong(-1);
+    private final AtomicLong replied = new AtomicLong(-1);
+    /** The stage threads parked waiting for work, if any, so that whoever makes the work can wake them. */
+    private final AtomicReference<Thread> applyWaiter = new AtomicReference<>();
+    private final AtomicReference<Thread> persistWaiter = new AtomicReference<>();
+    private final AtomicReference<Thread> replyWaiter = new AtomicReference<>();
+    private final Thread[] stages;
+    private volatile boolean isClosed;
+
+    /**
+     * One command and its progress through the stages. Reused every lap of the ring.
+     */
+    private static final class Slot {
+        private String request;
+        private Consumer<List<String>> replyTo;
+        private List<String> response;
+        /** The task file lines after this command, if it ended a batch that changed tasks. */
+        private List<String> snapshot;
+    }
+
+    /**
+     * Creates a pipeline and starts its stages.
+     * From then on, the parser must only be used through the pipeline.
+     *
+     * @param parser    The parser running the commands, which stops saving after each change.
+     * @param tasks     The tasks the parser changes.
+     * @param storage   Where the tasks are saved.
+     * @param metrics   The collector of save latencies.
+     * @param capacity  The number of slots in the ring, a power of two.
+     */
+    public CommandPipeline(Parser parser, TaskList tasks, Storage storage, CommandMetrics metrics, int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two");
+        }
+        this.parser = parser;
+        this.tasks = tasks;
+        this.storage = storage;
+        this.metrics = metrics;
+        parser.deferSaves();
+
+        slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        mask = capacity - 1;
+        shift = Integer.numberOfTrailingZeros(capacity);
+        published = new AtomicIntegerArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            published.set(i, -1);
+        }
+
+        stages = new Thread[] {
+            new Thread(this::apply, "agnes-apply"),
+            new Thread(this::persist, "agnes-persist"),
+            new Thread(this::reply, "agnes-reply")
+        };
+        for (Thread stage : stages) {
+            stage.setDaemon(true);
+            stage.start();
+        }
+    }
+
+    /**
+     * Queues a command. Responses are handed back in the order the commands were published,
+     * on the reply thread. Waits while the ring is full.
+     *
+     * @param request   The full user input string.
+     * @param replyTo   What to do with the response, once any change it made is saved.
+     * @throws IllegalStateException If the pipeline is closed.
+     */
+    public void publish(String request, Consumer<List<String>> replyTo) {
+        if (isClosed) {
+            throw new IllegalStateException("The command pipeline is closed");
+        }
+        long sequence = claimed.getAndIncrement();
+        long wrapPoint = sequence - slots.length;
+        for (int idle = 0; replied.get() < wrapPoint; idle++) {
+            idle(idle);
+        }
+        Slot slot = slots[(int) sequence & mask];
+        slot.request = request;
+        slot.replyTo = replyTo;
+        // A full write, so that a stage about to park either sees it or is seen waiting
+        published.set((int) sequence & mask, (int) (sequence >>> shift));
+        wake(applyWaiter);
+    }
+
+    /**
+     * Runs a command and waits for its response.
+     *
+     * @param request   The full user input string.
+     * @return          The messages to be shown to user.
+     */
+    public List<String> call(String request) {
+        CompletableFuture<List<String>> response = new CompletableFuture<>();
+        publish(request, response::complete);
+        return response.join();
+    }
+
+    /**
+     * Waits until every command published so far has been replied to.
+     */
+    public void awaitReplies() {
+        long last = claimed.get() - 1;
+        for (int idle = 0; replied.get() < last; idle++) {
+            idle(idle);
+        }
+    }
+
+    /**
+     * Stops taking commands, and stops the stages once every command taken has been replied to.
+     */
+    @Override
+    public void close() {
+        isClosed = true;
+        awaitReplies();
+        for (Thread stage : stages) {
+            stage.interrupt();
+        }
+    }
+
+    private boolean isPublished(long sequence) {
+        return published.get((int) sequence & mask) == (int) (sequence >>> shift);
+    }
+
+    private void apply() {
+        long next = 0;
+        long savedVersion = tasks.getVersion();
+        int idle = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long last = next - 1;
+            while (isPublished(last + 1)) {
+                last++;
+            }
+            if (last < next) {
+                // A claimed slot is published soon, so only park while nothing is claimed
+                await(idle++, applyWaiter, claimed, next + 1);
+                continue;
+            }
+            idle = 0;
+            for (long sequence = next; sequence <= last; sequence++) {
+                Slot slot = slots[(int) sequence & mask];
+                slot.response = run(slot.request);
+            }
+            long version = tasks.getVersion();
+            if (version != savedVersion) {
+                slots[(int) last & mask].snapshot = storage.snapshot(tasks);
+                savedVersion = version;
+            }
+            applied.set(last);
+            wake(persistWaiter);
+            next = last + 1;
+        }
+    }
+
+    private List<String> run(String request) {
+        try {
+            return parser.parse(request);
+        } catch (RuntimeException | AssertionError e) {
+            // One bad command must not stop the only thread that applies commands
+            return List.of("Something went wrong: " + e.getMessage());
+        }
+    }
+
+    private void persist() {
+        long next = 0;
+        int idle = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long last = applied.get();
+            if (last < next) {
+                await(idle++, persistWaiter, applied, next);
+                continue;
+            }
+            idle = 0;
+            List<String> lines = null;
+            for (long sequence = next; sequence <= last; sequence++) {
+                Slot slot = slots[(int) sequence & mask];
+                if (slot.snapshot != null) {
+                    lines = slot.snapshot;
+                    slot.snapshot = null;
+                }
+            }
+            if (lines != null) {
+                long start = System.nanoTime();
+                boolean isSaved = storage.write(lines);
+                metrics.record(CommandMetrics.STORAGE_SAVE, System.nanoTime() - start);
+                if (!isSaved) {
+                    // The file changed after the apply stage checked it, so the user must reload
+                    Slot slot = slots[(int) last & mask];
+                    List<String> response = new ArrayList<>(slot.response);
+                    response.add(SAVE_REFUSED);
+                    slot.response = response;
+                }
+            }
+            persisted.set(last);
+            wake(replyWaiter);
+            next = last + 1;
+        }
+    }
+
+    private void reply() {
+        long next = 0;
+        int idle = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            long last = persisted.get();
+            if (last < next) {
+                await(idle++, replyWaiter, persisted, next);
+                continue;
+            }
+            idle = 0;
+            for (long sequence = next; sequence <= last; sequence++) {
+                Slot slot = slots[(int) sequence & mask];
+                try {
+                    slot.replyTo.accept(slot.response);
+                } catch (RuntimeException e) {
+                    System.err.println("Error delivering a response: " + e.getMessage());
+                }
+                slot.request = null;
+                slot.replyTo = null;
+                slot.response = null;
+            }
+            replied.lazySet(last);
+            next = last + 1;
+        }
+    }
+
+    /**
+     * Waits a little for a stage's next sequence, parking the stage until it is woken
+     * once spinning and yielding have not helped.
+     *
+     * @param count     How many times the stage has waited in a row.
+     * @param waiter    Where the stage registers itself before parking.
+     * @param upstream  The sequence the stage waits on.
+     * @param needed    The value of {@code upstream} that gives the stage work.
+     */
+    private void await(int count, AtomicReference<Thread> waiter, AtomicLong upstream, long needed) {
+        if (count < SPINS + YIELDS) {
+            idle(count);
+            return;
+        }
+        waiter.set(Thread.currentThread());
+        // Checked again after registering, so a wake in between is not missed
+        if (upstream.get() < needed) {
+            LockSupport.park(this);
+        } else {
+            Thread.onSpinWait();
+        }
+        waiter.set(null);
+    }
+
+    private static void wake(AtomicReference<Thread> waiter) {
+        Thread thread = waiter.get();
+        if (thread != null) {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private static void idle(int count) {
+        if (count < SPINS) {
+            Thread.onSpinWait();
+        } else if (count < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(PARK_NANOS);
+        }
+    }
+}
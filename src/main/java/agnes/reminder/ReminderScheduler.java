@@ -0,0 +1,216 @@
+package agnes.reminder;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import agnes.task.Task;
+import agnes.task.TaskChange;
+import agnes.task.TaskList;
+import agnes.task.TaskListener;
+import agnes.task.UpcomingOccurrence;
+import agnes.util.DateTimeUtil;
+
+/**
+ * Reminds the user when deadlines are due and events start.
+ * <p>
+ * Every pending deadline and event is kept in one {@link TimingWheel} ticking once a
+ * minute, so thousands of tasks cost one daemon thread and O(1) per change, rather
+ * than one scheduled job each. Tasks are rescheduled incrementally whenever they are
+ * added, updated, marked or deleted, which the scheduler hears of as a
+ * {@link TaskListener} of the list. A recurring task is reminded of each occurrence
+ * that is not done yet.
+ * </p>
+ * <p>
+ * Tasks are only read by the thread that schedules them, which is the thread that
+ * changed them. The wheel holds the description and an {@link UpcomingOccurrence}
+ * copied at that point, so the reminder thread fires reminders and moves recurring
+ * tasks on to their next occurrence without touching a task while it changes.
+ * </p>
+ * <p>
+ * The wheel is kept up to date from construction, but reminders only fire once
+ * {@link #start(ReminderSink)} has been called. Times that have already passed are
+ * never reminded of.
+ * </p>
+ */
+public class ReminderScheduler implements TaskListener {
+    private static final long MILLIS_PER_MINUTE = 60_000;
+
+    private final Clock clock;
+    private final TimingWheel<Reminder> wheel;
+    private final Map<Task, Reminder> reminders = new IdentityHashMap<>();
+    private Thread ticker;
+
+    /**
+     * A reminder for a task, as it was when the reminder was scheduled.
+     * The task is only kept to find the reminder again, and is never read.
+     */
+    private static final class Reminder {
+        private final Task task;
+        private final String message;
+        private UpcomingOccurrence occurrence;
+
+        private Reminder(Task task, String message, UpcomingOccurrence occurrence) {
+            this.task = task;
+            this.message = message;
+            this.occurrence = occurrence;
+        }
+    }
+
+    /**
+     * Creates a scheduler using the system clock.
+     */
+    public ReminderScheduler() {
+        this(Clock.systemDefaultZone());
+    }
+
+    /**
+     * Creates a scheduler using the given clock.
+     *
+     * @param clock The clock deciding the current minute.
+     */
+    public ReminderScheduler(Clock clock) {
+        this.clock = clock;
+        this.wheel = new TimingWheel<>(currentMinute());
+    }
+
+    /**
+     * Schedules a reminder for every task in the list.
+     *
+     * @param tasks The tasks to be reminded of.
+     */
+    public synchronized void scheduleAll(TaskList tasks) {
+        for (Task t : tasks.getAll()) {
+            schedule(t);
+        }
+    }
+
+    /**
+     * Schedules, moves or cancels the reminder of a task to match its current state.
+     * Call after the task is added, updated, marked or unmarked.
+     *
+     * @param task The task to be reminded of.
+     */
+    public synchronized void schedule(Task task) {
+        cancel(task);
+        UpcomingOccurrence next = task.getNextOccurrenceAfter(DateTimeUtil.fromEpochMinute(wheel.getCurrentTick()));
+        if (next != null) {
+            Reminder reminder = new Reminder(task, task.getMessage(), next);
+            reminders.put(task, reminder);
+            wheel.schedule(reminder, DateTimeUtil.toEpochMinute(next.getTime()));
+        }
+    }
+
+    /**
+     * Cancels the reminder of a task, e.g. when it is deleted.
+     *
+     * @param task The task not to be reminded of.
+     */
+    public synchronized void cancel(Task task) {
+        Reminder reminder = reminders.remove(task);
+        if (reminder != null) {
+            wheel.cancel(reminder);
+        }
+    }
+
+    /**
+     * Reschedules the tasks that changed, cancelling the reminders of removed tasks.
+     *
+     * @param changes The changes made to the list.
+     */
+    @Override
+    public synchronized void onChanges(List<TaskChange> changes) {
+        for (TaskChange change : changes) {
+            if (change.getKind() == TaskChange.Kind.REMOVED) {
+                cancel(change.getTask());
+            } else {
+                schedule(change.getTask());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of tasks waiting to be reminded of.
+     *
+     * @return The number of scheduled reminders.
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+
+    /**
+     * Starts delivering reminders on a daemon thread.
+     *
+     * @param sink Where reminders are delivered.
+     * @throws IllegalStateException If the scheduler was already started.
+     */
+    public synchronized void start(ReminderSink sink) {
+        if (ticker != null) {
+            throw new IllegalStateException("Reminders have already been started");
+        }
+        ticker = new Thread(() -> run(sink), "agnes-reminders");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    /**
+     * Stops delivering reminders.
+     */
+    public synchronized void stop() {
+        if (ticker != null) {
+            ticker.interrupt();
+            ticker = null;
+        }
+    }
+
+    /**
+     * Fires the reminders that are due up to the current minute.
+     *
+     * @param sink  Where reminders are delivered.
+     * @return      The number of reminders delivered.
+     */
+    public int fireDue(ReminderSink sink) {
+        List<String> due = new ArrayList<>();
+        List<LocalDateTime> times = new ArrayList<>();
+        synchronized (this) {
+            long now = currentMinute();
+            // Each item fires at the tick it was scheduled for, so reconstruct the time while advancing
+            for (long tick = wheel.getCurrentTick() + 1; tick <= now; tick++) {
+                for (Reminder reminder : wheel.advanceTo(tick)) {
+                    due.add(reminder.message);
+                    times.add(DateTimeUtil.fromEpochMinute(tick));
+                    // Move a recurring task on to its next occurrence
+                    reminder.occurrence = reminder.occurrence.next();
+                    if (reminder.occurrence == null) {
+                        reminders.remove(reminder.task);
+                    } else {
+                        wheel.schedule(reminder, DateTimeUtil.toEpochMinute(reminder.occurrence.getTime()));
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < due.size(); i++) {
+            sink.remind(due.get(i), times.get(i));
+        }
+        return due.size();
+    }
+
+    private void run(ReminderSink sink) {
+        while (!Thread.currentThread().isInterrupted()) {
+            fireDue(sink);
+            long millis = clock.millis();
+            try {
+                Thread.sleep(MILLIS_PER_MINUTE - Math.floorMod(millis, MILLIS_PER_MINUTE));
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private long currentMinute() {
+        return DateTimeUtil.toEpochMinute(LocalDateTime.now(clock));
+    }
+}
@@ -0,0 +1,20 @@
+package agnes.reminder;
+
+import java.time.LocalDateTime;
+
+/**
+ * Receives reminders fired by a {@link ReminderScheduler}.
+ * <p>
+ * Called on the scheduler's thread, so implementations hand the reminder over to
+ * their own thread if needed, e.g. with {@code Platform.runLater} in the GUI.
+ */
+@FunctionalInterface
+public interface ReminderSink {
+    /**
+     * Delivers a reminder for a task.
+     *
+     * @param message   The description of the task that is due or starting, as it was when scheduled.
+     * @param time      When the task is due or starts.
+     */
+    void remind(String message, LocalDateTime time);
+}
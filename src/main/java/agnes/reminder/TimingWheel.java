@@ -0,0 +1,209 @@
+package agnes.reminder;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A hierarchical timing wheel that fires items at whole ticks, in the style of
+ * the Linux kernel timer wheel.
+ * <p>
+ * The wheel has {@value #LEVELS} levels of {@value #SLOTS} slots. Level 0 holds items
+ * due within {@value #SLOTS} ticks, one slot per tick, and each level above covers
+ * {@value #SLOTS} times the span of the one below. An item is placed by how far away
+ * it is due. When time reaches the start of a slot on a higher level, the slot is
+ * cascaded: its items move down to lower levels. Items further away than the whole
+ * wheel wait in an overflow list until the top level wraps around.
+ * </p>
+ * <p>
+ * Scheduling and cancelling are O(1), and each item is cascaded at most once per
+ * level. Advancing the wheel costs O(1) per tick plus the items that fire. The same
+ * item cannot be scheduled twice; scheduling it again moves it.
+ * This class is not thread-safe.
+ * </p>
+ *
+ * @param <T> The type of the scheduled items, compared by identity.
+ */
+public class TimingWheel<T> {
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final int OVERFLOW = LEVELS;
+
+    private static final class Entry<T> {
+        private final T item;
+        private long expiry;
+        private int level;
+        private int slot;
+        private Entry<T> prev;
+        private Entry<T> next;
+
+        private Entry(T item) {
+            this.item = item;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final Entry<T>[][] slots = (Entry<T>[][]) new Entry<?>[LEVELS + 1][SLOTS];
+    private final Map<T, Entry<T>> entries = new IdentityHashMap<>();
+    private long currentTick;
+
+    /**
+     * Creates an empty wheel whose time starts at the given tick.
+     *
+     * @param startTick The current tick.
+     */
+    public TimingWheel(long startTick) {
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Returns the tick the wheel has advanced to.
+     *
+     * @return The current tick.
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Returns the number of items waiting to fire.
+     *
+     * @return The number of scheduled items.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Schedules an item to fire at the given tick, moving it if it was already scheduled.
+     *
+     * @param item          The item to schedule.
+     * @param expiryTick    The tick to fire at, which must be after the current tick.
+     * @throws IllegalArgumentException If the tick is not in the future.
+     */
+    public void schedule(T item, long expiryTick) {
+        if (expiryTick <= currentTick) {
+            throw new IllegalArgumentException("Can only schedule after tick " + currentTick);
+        }
+        Entry<T> entry = entries.get(item);
+        if (entry == null) {
+            entry = new Entry<>(item);
+            entries.put(item, entry);
+        } else {
+            unlink(entry);
+        }
+        entry.expiry = expiryTick;
+        place(entry);
+    }
+
+    /**
+     * Cancels an item so that it does not fire.
+     *
+     * @param item The item to cancel.
+     * @return     {@code true} if the item was scheduled.
+     */
+    public boolean cancel(T item) {
+        Entry<T> entry = entries.remove(item);
+        if (entry == null) {
+            return false;
+        }
+        unlink(entry);
+        return true;
+    }
+
+    /**
+     * Advances the wheel tick by tick up to and including the given tick.
+     *
+     * @param tick  The tick to advance to. Ticks at or before the current one are ignored.
+     * @return      The items that fired, in the order of their ticks.
+     */
+    public List<T> advanceTo(long tick) {
+        List<T> fired = new ArrayList<>();
+        while (currentTick < tick) {
+            currentTick++;
+            cascade(fired);
+            Entry<T> head = slots[0][(int) (currentTick & SLOT_MASK)];
+            slots[0][(int) (currentTick & SLOT_MASK)] = null;
+            for (Entry<T> e = head; e != null; e = e.next) {
+                entries.remove(e.item);
+                fired.add(e.item);
+            }
+        }
+        return fired;
+    }
+
+    /**
+     * Moves the items of every higher-level slot that starts at the current tick down the wheel.
+     * Higher levels go first, so an item can drop several levels in one tick.
+     */
+    private void cascade(List<T> fired) {
+        if ((currentTick & ((1L << (SLOT_BITS * LEVELS)) - 1)) == 0) {
+            replace(detach(OVERFLOW, 0), fired);
+        }
+        for (int level = LEVELS - 1; level >= 1; level--) {
+            long levelMask = (1L << (SLOT_BITS * level)) - 1;
+            if ((currentTick & levelMask) == 0) {
+                replace(detach(level, slotOf(currentTick, level)), fired);
+            }
+        }
+    }
+
+    private void replace(Entry<T> head, List<T> fired) {
+        Entry<T> e = head;
+        while (e != null) {
+            Entry<T> next = e.next;
+            e.prev = null;
+            e.next = null;
+            if (e.expiry == currentTick) {
+                entries.remove(e.item);
+                fired.add(e.item);
+            } else {
+                place(e);
+            }
+            e = next;
+        }
+    }
+
+    private Entry<T> detach(int level, int slot) {
+        Entry<T> head = slots[level][slot];
+        slots[level][slot] = null;
+        return head;
+    }
+
+    private void place(Entry<T> entry) {
+        long delta = entry.expiry - currentTick;
+        int level = 0;
+        while (level < LEVELS && delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        entry.level = level;
+        entry.slot = level == OVERFLOW ? 0 : slotOf(entry.expiry, level);
+        Entry<T> head = slots[level][entry.slot];
+        entry.prev = null;
+        entry.next = head;
+        if (head != null) {
+            head.prev = entry;
+        }
+        slots[level][entry.slot] = entry;
+    }
+
+    private void unlink(Entry<T> entry) {
+        if (entry.prev != null) {
+            entry.prev.next = entry.next;
+        } else {
+            slots[entry.level][entry.slot] = entry.next;
+        }
+        if (entry.next != null) {
+            entry.next.prev = entry.prev;
+        }
+        entry.prev = null;
+        entry.next = null;
+    }
+
+    private static int slotOf(long tick, int level) {
+        return (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+    }
+}
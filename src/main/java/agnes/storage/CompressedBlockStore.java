@@ -0,0 +1,344 @@
+package agnes.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.zip.CRC32;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores the lines of a task file as independently deflated blocks with an index.
+ * <p>
+ * Lines are grouped into blocks of roughly {@value #MIN_BLOCK_BYTES} to
+ * {@value #MAX_BLOCK_BYTES} bytes. Where a block ends is decided by the content of
+ * its lines rather than by offsets, so editing, adding or removing a task only
+ * changes the block around it. The compressed bytes of every block written or read
+ * are remembered by checksum, and a save only deflates the blocks that changed.
+ * Blocks are inflated in parallel when loading.
+ * </p>
+ * <p>
+ * File layout: the magic number, the deflated blocks back to back, then an index
+ * holding the raw length, compressed length and CRC-32 of every block, and finally
+ * the offset of the index, the number of blocks and the magic number again. A block
+ * whose CRC-32 does not match is reported as corrupt, and an index whose lengths do
+ * not add up as damaged, before anything is allocated from it.
+ * </p>
+ */
+class CompressedBlockStore {
+    /** Marks the start and end of a compressed task file: "AGZ1". */
+    static final int MAGIC = 0x41475A31;
+
+    private static final int MIN_BLOCK_BYTES = 16 * 1024;
+    private static final int MAX_BLOCK_BYTES = 256 * 1024;
+    /** On average one line in this many ends a block once the block is big enough. */
+    private static final int BOUNDARY_LINES = 512;
+    private static final int HEADER_BYTES = Integer.BYTES;
+    private static final int INDEX_ENTRY_BYTES = 3 * Integer.BYTES;
+    private static final int FOOTER_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    /** Deflate cannot expand data by more than this factor, so a larger raw length is damage. */
+    private static final int MAX_INFLATION = 1032;
+
+    /**
+     * A deflated block, identified by the checksums of its raw bytes.
+     */
+    private static final class Block {
+        private final byte[] compressed;
+        private final int rawLength;
+        private final int crc;
+
+        private Block(byte[] compressed, int rawLength, int crc) {
+            this.compressed = compressed;
+            this.rawLength = rawLength;
+            this.crc = crc;
+        }
+    }
+
+    /**
+     * Signals that the block index is damaged, so no block can be trusted.
+     */
+    static class CorruptBlockException extends IOException {
+        CorruptBlockException(String message) {
+            super(message);
+        }
+    }
+
+    private final Path path;
+    private Map<BlockKey, Block> knownBlocks = new HashMap<>();
+    private int lastBlocksReused;
+
+    /**
+     * The checksums and length of a block's raw bytes. Two independent 32-bit
+     * checksums keep the chance of mistaking a changed block for an old one negligible.
+     */
+    private record BlockKey(int crc, int crc32c, int rawLength) {
+        static BlockKey of(byte[] raw, int length) {
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, length);
+            CRC32C crc32c = new CRC32C();
+            crc32c.update(raw, 0, length);
+            return new BlockKey((int) crc.getValue(), (int) crc32c.getValue(), length);
+        }
+    }
+
+    CompressedBlockStore(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Returns how many blocks the last save could reuse without deflating them again.
+     *
+     * @return The number of reused blocks.
+     */
+    int getLastBlocksReused() {
+        return lastBlocksReused;
+    }
+
+    /**
+     * Replaces the file with the given lines.
+     * The file is written next to the old one and then moved over it.
+     *
+     * @param lines The lines to store, without line separators.
+     * @return      The size of the file written, in bytes.
+     * @throws IOException If writing fails.
+     */
+    long save(List<String> lines) throws IOException {
+        List<byte[]> raws = new ArrayList<>();
+        List<BlockKey> keys = new ArrayList<>();
+        splitIntoBlocks(lines, raws, keys);
+
+        Map<BlockKey, Block> previous = knownBlocks;
+        Block[] blocks = new Block[raws.size()];
+        int reused = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = previous.get(keys.get(i));
+            if (blocks[i] != null) {
+                reused++;
+            }
+        }
+        IntStream.range(0, blocks.length).parallel()
+                .filter(i -> blocks[i] == null)
+                .forEach(i -> blocks[i] = deflate(raws.get(i), keys.get(i)));
+
+        Map<BlockKey, Block> current = new HashMap<>();
+        for (int i = 0; i < blocks.length; i++) {
+            current.put(keys.get(i), blocks[i]);
+        }
+        long written = write(blocks);
+        knownBlocks = current;
+        lastBlocksReused = reused;
+        return written;
+    }
+
+    /**
+     * Reads every line in the file, inflating blocks in parallel.
+     * A block that fails its checksum or cannot be inflated is left out, so the other
+     * blocks can still be read.
+     *
+     * @return The text of every block, in order, or {@code null} in place of a corrupt block.
+     *         Each block holds whole lines ending in {@code '\n'}.
+     * @throws IOException If reading fails or the file is not a compressed task file.
+     * @throws CorruptBlockException If the block index is damaged.
+     */
+    List<String> loadBlocks() throws IOException {
+        ByteBuffer file;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + FOOTER_BYTES) {
+                throw new IOException(path + " is not a compressed task file");
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        long size = file.capacity();
+        if (file.getInt(0) != MAGIC || file.getInt((int) size - Integer.BYTES) != MAGIC) {
+            throw new IOException(path + " is not a compressed task file");
+        }
+        long indexOffset = file.getLong((int) size - FOOTER_BYTES);
+        int blockCount = file.getInt((int) size - FOOTER_BYTES + Long.BYTES);
+        if (blockCount < 0 || indexOffset < HEADER_BYTES
+                || indexOffset + (long) blockCount * INDEX_ENTRY_BYTES != size - FOOTER_BYTES) {
+            throw new CorruptBlockException(path + " has a damaged block index");
+        }
+
+        int[] offsets = new int[blockCount];
+        int[] rawLengths = new int[blockCount];
+        int[] compressedLengths = new int[blockCount];
+        int[] crcs = new int[blockCount];
+        long offset = HEADER_BYTES;
+        for (int i = 0; i < blockCount; i++) {
+            int entry = (int) indexOffset + i * INDEX_ENTRY_BYTES;
+            rawLengths[i] = file.getInt(entry);
+            compressedLengths[i] = file.getInt(entry + Integer.BYTES);
+            crcs[i] = file.getInt(entry + 2 * Integer.BYTES);
+            if (compressedLengths[i] < 0 || rawLengths[i] < 0
+                    || rawLengths[i] > (long) compressedLengths[i] * MAX_INFLATION + 64) {
+                throw new CorruptBlockException(path + " has a damaged block index");
+            }
+            offsets[i] = (int) offset;
+            offset += compressedLengths[i];
+            if (offset > indexOffset) {
+                throw new CorruptBlockException(path + " has a damaged block index");
+            }
+        }
+        if (offset != indexOffset) {
+            throw new CorruptBlockException(path + " has a damaged block index");
+        }
+
+        byte[][] raws = new byte[blockCount][];
+        Block[] blocks = new Block[blockCount];
+        IntStream.range(0, blockCount).parallel().forEach(i -> {
+            byte[] compressed = new byte[compressedLengths[i]];
+            file.slice(offsets[i], compressedLengths[i]).get(compressed);
+            blocks[i] = new Block(compressed, rawLengths[i], crcs[i]);
+            raws[i] = inflate(blocks[i]);
+        });
+
+        Map<BlockKey, Block> loaded = new HashMap<>();
+        List<String> texts = new ArrayList<>(blockCount);
+        for (int i = 0; i < blockCount; i++) {
+            if (raws[i] == null) {
+                texts.add(null);
+                continue;
+            }
+            loaded.put(BlockKey.of(raws[i], raws[i].length), blocks[i]);
+            texts.add(new String(raws[i], StandardCharsets.UTF_8));
+        }
+        knownBlocks = loaded;
+        return texts;
+    }
+
+    /**
+     * Groups lines into blocks, ending a block after a line whose hash picks it as a
+     * boundary once the block has reached the minimum size.
+     */
+    private static void splitIntoBlocks(List<String> lines, List<byte[]> raws, List<BlockKey> keys) {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(MIN_BLOCK_BYTES * 2);
+        for (String line : lines) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            block.write(bytes, 0, bytes.length);
+            block.write('\n');
+            boolean isBoundary = Math.floorMod(mix(line.hashCode()), BOUNDARY_LINES) == 0;
+            if ((isBoundary && block.size() >= MIN_BLOCK_BYTES) || block.size() >= MAX_BLOCK_BYTES) {
+                addBlock(block, raws, keys);
+            }
+        }
+        if (block.size() > 0) {
+            addBlock(block, raws, keys);
+        }
+    }
+
+    private static void addBlock(ByteArrayOutputStream block, List<byte[]> raws, List<BlockKey> keys) {
+        byte[] raw = block.toByteArray();
+        raws.add(raw);
+        keys.add(BlockKey.of(raw, raw.length));
+        block.reset();
+    }
+
+    /**
+     * Spreads the bits of a {@code String} hash, whose low bits vary little between similar lines.
+     */
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        return h ^ (h >>> 16);
+    }
+
+    private static Block deflate(byte[] raw, BlockKey key) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 64);
+            byte[] buffer = new byte[16 * 1024];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+            return new Block(out.toByteArray(), raw.length, key.crc());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Inflates a block and checks it against its CRC-32.
+     *
+     * @return The raw bytes, or {@code null} if the block is corrupt.
+     */
+    private static byte[] inflate(Block block) {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(block.compressed);
+            byte[] raw = new byte[block.rawLength];
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, n, raw.length - n);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    return null;
+                }
+                n += inflated;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(raw, 0, n);
+            return n == raw.length && (int) crc.getValue() == block.crc ? raw : null;
+        } catch (DataFormatException e) {
+            return null;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private long write(Block[] blocks) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        long written;
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long indexOffset = HEADER_BYTES;
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).flip();
+            writeFully(channel, header);
+            for (Block b : blocks) {
+                writeFully(channel, ByteBuffer.wrap(b.compressed));
+                indexOffset += b.compressed.length;
+            }
+            ByteBuffer index = ByteBuffer.allocate(blocks.length * INDEX_ENTRY_BYTES + FOOTER_BYTES);
+            for (Block b : blocks) {
+                index.putInt(b.rawLength).putInt(b.compressed.length).putInt(b.crc);
+            }
+            index.putLong(indexOffset).putInt(blocks.length).putInt(MAGIC).flip();
+            writeFully(channel, index);
+            written = channel.size();
+        }
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return written;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package agnes.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.OccurrenceMarks;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.ToDo;
+import agnes.util.DateTimeUtil;
+
+/**
+ * Reads and writes tasks as CSV, one task per row, following RFC 4180.
+ * <p>
+ * The columns are {@value #HEADER}. Dates use the same {@code yyyy-MM-dd HHmm}
+ * format as commands, {@code every} holds a recurrence such as {@code 2 weeks}, and
+ * {@code done_occurrences} lists the completed occurrences of a recurring task,
+ * such as {@code 0-3;7}. {@code tags} holds tags without their {@code #}, such as
+ * {@code work;urgent}. Only {@code type} and {@code description} are required;
+ * a header row is optional when importing.
+ * </p>
+ */
+final class CsvTaskFormat {
+    static final String HEADER = "type,done,description,start,end,every,done_occurrences,tags";
+
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HHmm");
+    private static final int TYPE = 0;
+    private static final int DONE = 1;
+    private static final int DESCRIPTION = 2;
+    private static final int START = 3;
+    private static final int END = 4;
+    private static final int EVERY = 5;
+    private static final int DONE_OCCURRENCES = 6;
+    private static final int TAGS = 7;
+
+    private CsvTaskFormat() {
+    }
+
+    /**
+     * Reads tasks from CSV rows.
+     */
+    static class Reader implements TaskTransfer.TaskReader {
+        /** Most physical lines a quoted field may run on for after the line that opens it. */
+        private static final int MAX_RECORD_LINES = 64;
+        /** Most characters in one record. */
+        private static final int MAX_RECORD_CHARS = 64 * 1024;
+
+        private final BufferedReader in;
+        /** Lines read ahead for a record that was skipped, to be read again in order. */
+        private final List<String> pending = new ArrayList<>();
+        private boolean isFirstRow = true;
+
+        Reader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Task read() throws IOException {
+            List<String> fields;
+            do {
+                fields = readRecord();
+                if (fields == null) {
+                    return null;
+                }
+                if (isFirstRow && fields.get(TYPE).strip().equalsIgnoreCase("type")) {
+                    fields = null;
+                }
+                isFirstRow = false;
+            } while (fields == null || (fields.size() == 1 && fields.get(0).isBlank()));
+            return toTask(fields);
+        }
+
+        /**
+         * Reads one record, joining physical lines while a quoted field is still open.
+         * <p>
+         * Only the quotes of each newly joined line are counted. A quoted field left open
+         * for more than {@value #MAX_RECORD_LINES} lines or {@value #MAX_RECORD_CHARS}
+         * characters, or up to the end of the input, is taken to be a stray quote: the record
+         * is skipped, and reading resumes at the line after the one that opened it.
+         * </p>
+         */
+        private List<String> readRecord() throws IOException {
+            String line = nextLine();
+            if (line == null) {
+                return null;
+            }
+            StringBuilder record = new StringBuilder(line);
+            boolean isQuoteOpen = hasOddQuotes(line);
+            List<String> joined = new ArrayList<>();
+            while (isQuoteOpen) {
+                String next = nextLine();
+                if (next == null || joined.size() == MAX_RECORD_LINES
+                        || record.length() + 1 + next.length() > MAX_RECORD_CHARS) {
+                    if (next != null) {
+                        joined.add(next);
+                    }
+                    pending.addAll(0, joined);
+                    throw new IllegalArgumentException("Unterminated quoted field");
+                }
+                joined.add(next);
+                record.append('\n').append(next);
+                isQuoteOpen ^= hasOddQuotes(next);
+            }
+            return splitFields(record);
+        }
+
+        /**
+         * Returns the next physical line, taking lines given back by a skipped record first.
+         */
+        private String nextLine() throws IOException {
+            return pending.isEmpty() ? in.readLine() : pending.remove(0);
+        }
+
+        private static boolean hasOddQuotes(String line) {
+            int quotes = 0;
+            for (int i = 0; i < line.length(); i++) {
+                if (line.charAt(i) == '"') {
+                    quotes++;
+                }
+            }
+            return quotes % 2 == 1;
+        }
+
+        private static List<String> splitFields(CharSequence record) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean isQuoted = false;
+            for (int i = 0; i < record.length(); i++) {
+                char c = record.charAt(i);
+                if (isQuoted) {
+                    if (c == '"' && i + 1 < record.length() && record.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        isQuoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    isQuoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+
+        private static Task toTask(List<String> fields) {
+            String description = field(fields, DESCRIPTION);
+            if (description.isEmpty()) {
+                throw new IllegalArgumentException("Missing description");
+            }
+            String every = field(fields, EVERY);
+            Recurrence recurrence = every.isEmpty() ? null : Recurrence.parse(every);
+
+            Task task;
+            switch (field(fields, TYPE).toLowerCase()) {
+            case "todo":
+            case "t":
+                task = new ToDo(description);
+                break;
+            case "deadline":
+            case "d":
+                task = new Deadline(description, DateTimeUtil.parseDateTime(field(fields, START)), recurrence);
+                break;
+            case "event":
+            case "e":
+                String end = field(fields, END);
+                LocalDateTime from = DateTimeUtil.parseDateTime(field(fields, START));
+                LocalDateTime to = end.isEmpty() ? from : DateTimeUtil.parseEndDateTime(end);
+                task = new Event(description, from, to, recurrence);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown task type: " + field(fields, TYPE));
+            }
+
+            String tags = field(fields, TAGS);
+            if (!tags.isEmpty()) {
+                task.setTags(Arrays.asList(tags.split(";")));
+            }
+
+            String doneOccurrences = field(fields, DONE_OCCURRENCES);
+            if (task.isRecurring()) {
+                if (!doneOccurrences.isEmpty()) {
+                    task.setOccurrenceMarks(OccurrenceMarks.parse(doneOccurrences.replace(';', ',')));
+                }
+            } else if (isTrue(field(fields, DONE))) {
+                task.setMarked();
+            }
+            return task;
+        }
+
+        private static String field(List<String> fields, int column) {
+            return column < fields.size() ? fields.get(column).strip() : "";
+        }
+
+        private static boolean isTrue(String value) {
+            return value.equals("1") || value.equalsIgnoreCase("true")
+                    || value.equalsIgnoreCase("yes") || value.equalsIgnoreCase("x");
+        }
+    }
+
+    /**
+     * Writes tasks as CSV rows under a header row.
+     */
+    static class Writer implements TaskTransfer.TaskWriter {
+        private final java.io.Writer out;
+
+        Writer(java.io.Writer out) throws IOException {
+            this.out = out;
+            out.write(HEADER);
+            out.write("\r\n");
+        }
+
+        @Override
+        public void write(Task t) throws IOException {
+            String type = "todo";
+            String start = "";
+            String end = "";
+            if (t instanceof Deadline) {
+                type = "deadline";
+                start = ((Deadline) t).getBy().format(DATE_TIME_FORMAT);
+            } else if (t instanceof Event) {
+                type = "event";
+                start = ((Event) t).getFrom().format(DATE_TIME_FORMAT);
+                end = ((Event) t).getTo().format(DATE_TIME_FORMAT);
+            }
+            String every = "";
+            String doneOccurrences = "";
+            if (t.isRecurring()) {
+                Recurrence r = t.getRecurrence();
+                every = r.getInterval() + " " + r.getUnit().name().toLowerCase();
+                doneOccurrences = t.getOccurrenceMarks().toFileFormat().replace(',', ';');
+            }
+
+            out.write(type);
+            out.write(',');
+            out.write(t.isComplete() ? '1' : '0');
+            out.write(',');
+            writeField(t.getMessage());
+            out.write(',');
+            out.write(start);
+            out.write(',');
+            out.write(end);
+            out.write(',');
+            out.write(every);
+            out.write(',');
+            out.write(doneOccurrences);
+            out.write(',');
+            out.write(String.join(";", t.getTags()));
+            out.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        private void writeField(String value) throws IOException {
+            boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                    || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!needsQuotes) {
+                out.write(value);
+                return;
+            }
+            out.write('"');
+            out.write(value.replace("\"", "\"\""));
+            out.write('"');
+        }
+    }
+}
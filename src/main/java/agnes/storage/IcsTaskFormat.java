@@ -0,0 +1,388 @@
+package agnes.storage;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.ToDo;
+
+/**
+ * Reads and writes tasks as iCalendar (RFC 5545) components.
+ * <p>
+ * Events become {@code VEVENT}s, and to-dos and deadlines become {@code VTODO}s,
+ * with a {@code DUE} date for deadlines. Recurrences map onto {@code RRULE}s with a
+ * {@code FREQ} and {@code INTERVAL}. Other rule parts, such as {@code COUNT} or
+ * {@code BYDAY}, are ignored when importing, and which occurrences were done is not
+ * exported. Times are written as floating local times; times in UTC or another
+ * time zone are converted to the local time zone when importing. Tags are written
+ * as {@code CATEGORIES}.
+ * </p>
+ */
+final class IcsTaskFormat {
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.BASIC_ISO_DATE;
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private IcsTaskFormat() {
+    }
+
+    /**
+     * Reads tasks from the {@code VEVENT} and {@code VTODO} components of a calendar.
+     * Other components, such as time zones and alarms, are skipped.
+     */
+    static class Reader implements TaskTransfer.TaskReader {
+        private final BufferedReader in;
+        private String pending;
+
+        Reader(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public Task read() throws IOException {
+            String line;
+            while ((line = readUnfolded()) != null) {
+                if (line.equalsIgnoreCase("BEGIN:VEVENT") || line.equalsIgnoreCase("BEGIN:VTODO")) {
+                    return readComponent(line.substring("BEGIN:".length()).toUpperCase());
+                }
+            }
+            return null;
+        }
+
+        private Task readComponent(String component) throws IOException {
+            Map<String, String> values = new HashMap<>();
+            Map<String, String> params = new HashMap<>();
+            String line;
+            int nesting = 0;
+            while ((line = readUnfolded()) != null) {
+                String upper = line.toUpperCase();
+                if (upper.equals("END:" + component) && nesting == 0) {
+                    return toTask(component, values, params);
+                }
+                // Skip nested components such as VALARM
+                if (upper.startsWith("BEGIN:")) {
+                    nesting++;
+                } else if (upper.startsWith("END:")) {
+                    nesting--;
+                } else if (nesting == 0) {
+                    int colonIdx = line.indexOf(':');
+                    if (colonIdx == -1) {
+                        continue;
+                    }
+                    String[] nameAndParams = line.substring(0, colonIdx).split(";", 2);
+                    String name = nameAndParams[0].toUpperCase();
+                    values.put(name, line.substring(colonIdx + 1));
+                    params.put(name, nameAndParams.length > 1 ? nameAndParams[1].toUpperCase() : "");
+                }
+            }
+            throw new IllegalArgumentException("Unterminated " + component);
+        }
+
+        /**
+         * Reads one logical line, joining the continuation lines that start with a space or tab.
+         */
+        private String readUnfolded() throws IOException {
+            String line = pending != null ? pending : in.readLine();
+            pending = null;
+            if (line == null) {
+                return null;
+            }
+            StringBuilder unfolded = new StringBuilder(line);
+            String next;
+            while ((next = in.readLine()) != null && !next.isEmpty()
+                    && (next.charAt(0) == ' ' || next.charAt(0) == '\t')) {
+                unfolded.append(next, 1, next.length());
+            }
+            pending = next;
+            return unfolded.toString();
+        }
+
+        private static Task toTask(String component, Map<String, String> values, Map<String, String> params) {
+            String summary = unescape(values.getOrDefault("SUMMARY", "")).strip();
+            if (summary.isEmpty()) {
+                throw new IllegalArgumentException("Missing SUMMARY");
+            }
+            Recurrence recurrence = values.containsKey("RRULE") ? parseRule(values.get("RRULE")) : null;
+
+            Task task;
+            if (component.equals("VEVENT")) {
+                if (!values.containsKey("DTSTART")) {
+                    throw new IllegalArgumentException("Missing DTSTART");
+                }
+                LocalDateTime from = parseTime(values.get("DTSTART"), params.get("DTSTART"));
+                LocalDateTime to = from;
+                if (values.containsKey("DTEND")) {
+                    to = parseTime(values.get("DTEND"), params.get("DTEND"));
+                    if (isDateOnly(values.get("DTEND"), params.get("DTEND"))) {
+                        // An all-day DTEND is exclusive, so the event ends just before it
+                        to = to.minusMinutes(1);
+                    }
+                }
+                task = new Event(summary, from, to.isBefore(from) ? from : to, recurrence);
+            } else if (values.containsKey("DUE")) {
+                task = new Deadline(summary, parseTime(values.get("DUE"), params.get("DUE")), recurrence);
+            } else {
+                task = new ToDo(summary);
+            }
+
+            if (values.containsKey("CATEGORIES")) {
+                task.setTags(parseCategories(values.get("CATEGORIES")));
+            }
+
+            boolean isDone = "COMPLETED".equalsIgnoreCase(values.getOrDefault("STATUS", "").strip());
+            if (isDone && !task.isRecurring()) {
+                task.setMarked();
+            }
+            return task;
+        }
+
+        /**
+         * Turns categories into tags, joining words with {@code -} and leaving out
+         * categories that cannot be tags.
+         */
+        private static List<String> parseCategories(String value) {
+            List<String> tags = new ArrayList<>();
+            for (String category : value.split("(?<!\\\\),")) {
+                String tag = unescape(category).strip().replaceAll("\\s+", "-");
+                try {
+                    tags.add(Task.normalizeTag(tag));
+                } catch (IllegalArgumentException e) {
+                    // Not every calendar category makes sense as a tag
+                }
+            }
+            return tags;
+        }
+
+        private static boolean isDateOnly(String value, String params) {
+            return (params.contains("VALUE=DATE") && !params.contains("VALUE=DATE-TIME")) || !value.contains("T");
+        }
+
+        private static LocalDateTime parseTime(String value, String params) {
+            String v = value.strip();
+            try {
+                if (isDateOnly(v, params)) {
+                    return LocalDate.parse(v.substring(0, 8), DATE_FORMAT).atStartOfDay();
+                }
+                if (v.endsWith("Z")) {
+                    LocalDateTime utc = parseLocal(v.substring(0, v.length() - 1));
+                    return utc.atOffset(ZoneOffset.UTC).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+                }
+                LocalDateTime local = parseLocal(v);
+                int tzidIdx = params.indexOf("TZID=");
+                if (tzidIdx == -1) {
+                    return local;
+                }
+                String tzid = params.substring(tzidIdx + "TZID=".length()).split(";", 2)[0].replace("\"", "");
+                return toLocalZone(local, tzid);
+            } catch (DateTimeParseException | StringIndexOutOfBoundsException e) {
+                throw new IllegalArgumentException("Bad date-time: " + value);
+            }
+        }
+
+        /**
+         * Parses a {@code yyyyMMdd'T'HHmmss} date-time, by hand when it is well-formed
+         * as that is much faster than the formatter for large calendars.
+         */
+        private static LocalDateTime parseLocal(String v) {
+            if (v.length() == 15 && v.charAt(8) == 'T') {
+                int date = 0;
+                int time = 0;
+                boolean isDigits = true;
+                for (int i = 0; i < 15 && isDigits; i++) {
+                    char c = v.charAt(i);
+                    if (i == 8) {
+                        continue;
+                    }
+                    isDigits = c >= '0' && c <= '9';
+                    if (i < 8) {
+                        date = date * 10 + (c - '0');
+                    } else {
+                        time = time * 10 + (c - '0');
+                    }
+                }
+                if (isDigits) {
+                    try {
+                        return LocalDateTime.of(date / 10000, date / 100 % 100, date % 100,
+                                time / 10000, time / 100 % 100, time % 100);
+                    } catch (DateTimeException e) {
+                        throw new IllegalArgumentException("Bad date-time: " + v);
+                    }
+                }
+            }
+            return LocalDateTime.parse(v, DATE_TIME_FORMAT);
+        }
+
+        private static LocalDateTime toLocalZone(LocalDateTime time, String tzid) {
+            try {
+                // Parameters were upper-cased, so look the zone up case-insensitively
+                for (String id : ZoneId.getAvailableZoneIds()) {
+                    if (id.equalsIgnoreCase(tzid)) {
+                        return time.atZone(ZoneId.of(id)).withZoneSameInstant(ZoneId.systemDefault())
+                                .toLocalDateTime();
+                    }
+                }
+            } catch (DateTimeException e) {
+                // Fall through and treat the time as local
+            }
+            return time;
+        }
+
+        private static Recurrence parseRule(String rule) {
+            String freq = null;
+            int interval = 1;
+            for (String part : rule.toUpperCase().split(";")) {
+                String[] keyValue = part.split("=", 2);
+                if (keyValue.length < 2) {
+                    continue;
+                }
+                if (keyValue[0].equals("FREQ")) {
+                    freq = keyValue[1];
+                } else if (keyValue[0].equals("INTERVAL")) {
+                    interval = Integer.parseInt(keyValue[1].strip());
+                }
+            }
+            if (freq == null) {
+                throw new IllegalArgumentException("RRULE without FREQ");
+            }
+            switch (freq) {
+            case "DAILY":
+                return new Recurrence(interval, Recurrence.Unit.DAY);
+            case "WEEKLY":
+                return new Recurrence(interval, Recurrence.Unit.WEEK);
+            case "MONTHLY":
+                return new Recurrence(interval, Recurrence.Unit.MONTH);
+            case "YEARLY":
+                return new Recurrence(interval, Recurrence.Unit.YEAR);
+            default:
+                throw new IllegalArgumentException("Unsupported RRULE frequency: " + freq);
+            }
+        }
+
+        private static String unescape(String text) {
+            StringBuilder sb = new StringBuilder(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '\\' && i + 1 < text.length()) {
+                    char next = text.charAt(++i);
+                    sb.append(next == 'n' || next == 'N' ? '\n' : next);
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * Writes tasks as components of a single calendar.
+     */
+    static class Writer implements TaskTransfer.TaskWriter {
+        private final java.io.Writer out;
+        private final String stamp;
+        private long sequence;
+
+        Writer(java.io.Writer out) throws IOException {
+            this.out = out;
+            this.stamp = LocalDateTime.now(ZoneOffset.UTC).format(DATE_TIME_FORMAT) + "Z";
+            writeLine("BEGIN:VCALENDAR");
+            writeLine("VERSION:2.0");
+            writeLine("PRODID:-//Agnes//Agnes Task Assistant//EN");
+        }
+
+        @Override
+        public void write(Task t) throws IOException {
+            String component = t instanceof Event ? "VEVENT" : "VTODO";
+            writeLine("BEGIN:" + component);
+            writeLine("UID:" + stamp + "-" + (sequence++) + "@agnes");
+            writeLine("DTSTAMP:" + stamp);
+            writeLine("SUMMARY:" + escape(t.getMessage()));
+            if (t instanceof Event) {
+                writeLine("DTSTART:" + ((Event) t).getFrom().format(DATE_TIME_FORMAT));
+                writeLine("DTEND:" + ((Event) t).getTo().format(DATE_TIME_FORMAT));
+            } else if (t instanceof Deadline) {
+                writeLine("DUE:" + ((Deadline) t).getBy().format(DATE_TIME_FORMAT));
+            }
+            if (t.isRecurring()) {
+                writeLine("RRULE:FREQ=" + toFrequency(t.getRecurrence().getUnit())
+                        + ";INTERVAL=" + t.getRecurrence().getInterval());
+            }
+            if (!t.getTags().isEmpty()) {
+                writeLine("CATEGORIES:" + String.join(",", t.getTags()));
+            }
+            if (component.equals("VTODO")) {
+                writeLine("STATUS:" + (t.isComplete() ? "COMPLETED" : "NEEDS-ACTION"));
+            }
+            writeLine("END:" + component);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writeLine("END:VCALENDAR");
+        }
+
+        private static String toFrequency(Recurrence.Unit unit) {
+            switch (unit) {
+            case DAY:
+                return "DAILY";
+            case WEEK:
+                return "WEEKLY";
+            case MONTH:
+                return "MONTHLY";
+            default:
+                return "YEARLY";
+            }
+        }
+
+        private static String escape(String text) {
+            return text.replace("\\", "\\\\").replace(";", "\\;").replace(",", "\\,")
+                    .replace("\r\n", "\\n").replace("\n", "\\n");
+        }
+
+        /**
+         * Writes a content line, folding it so no physical line exceeds 75 octets.
+         */
+        private void writeLine(String line) throws IOException {
+            int octets = 0;
+            int segmentStart = 0;
+            int i = 0;
+            while (i < line.length()) {
+                int codePoint = line.codePointAt(i);
+                int width = utf8Width(codePoint);
+                if (octets + width > MAX_LINE_OCTETS) {
+                    out.write(line, segmentStart, i - segmentStart);
+                    out.write("\r\n ");
+                    segmentStart = i;
+                    octets = 1;
+                }
+                octets += width;
+                i += Character.charCount(codePoint);
+            }
+            out.write(line, segmentStart, line.length() - segmentStart);
+            out.write("\r\n");
+        }
+
+        private static int utf8Width(int codePoint) {
+            if (codePoint < 0x80) {
+                return 1;
+            }
+            if (codePoint < 0x800) {
+                return 2;
+            }
+            return codePoint < 0x10000 ? 3 : 4;
+        }
+    }
+}
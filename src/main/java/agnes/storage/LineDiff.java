@@ -0,0 +1,215 @@
+package agnes.storage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Finds the regions that differ between two versions of the lines of a task file.
+ * <p>
+ * Each line is reduced to a 64-bit hash first, so lines are compared by a single
+ * {@code long} and only checked character by character when their hashes agree. The
+ * lines both versions start and end with are trimmed off, and only what is left in the
+ * middle goes through Myers' O((n + m) d) diff, where {@code d} is the number of lines
+ * added or removed. An edit to a few lines of a large file therefore costs a pass to
+ * hash it, not a comparison of every line with every other.
+ * </p>
+ * <p>
+ * Past {@value #MAX_EDITS} edits, the whole middle is reported as one changed region
+ * rather than searching further for a minimal diff.
+ * </p>
+ */
+class LineDiff {
+    /** Most lines added or removed before giving up on finding a minimal diff. */
+    static final int MAX_EDITS = 2048;
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final List<String> oldLines;
+    private final List<String> newLines;
+    private final long[] oldHashes;
+    private final long[] newHashes;
+
+    /**
+     * A region where the new lines {@code [newStart, newEnd)} replace the old lines
+     * {@code [oldStart, oldEnd)}. Either range may be empty.
+     *
+     * @param oldStart The index of the first replaced old line.
+     * @param oldEnd   The index after the last replaced old line.
+     * @param newStart The index of the first new line.
+     * @param newEnd   The index after the last new line.
+     */
+    record Hunk(int oldStart, int oldEnd, int newStart, int newEnd) {
+        /**
+         * Returns whether this region and another touch the same old lines. Two insertions
+         * at the same place overlap, as do an insertion and a change right next to it,
+         * since the order of the lines they would add is ambiguous.
+         *
+         * @param other A region of another diff against the same old lines.
+         * @return      {@code true} if the regions cannot both be applied.
+         */
+        boolean overlaps(Hunk other) {
+            return oldStart <= other.oldEnd && other.oldStart <= oldEnd;
+        }
+    }
+
+    private LineDiff(List<String> oldLines, List<String> newLines) {
+        this.oldLines = oldLines;
+        this.newLines = newLines;
+        this.oldHashes = hashAll(oldLines);
+        this.newHashes = hashAll(newLines);
+    }
+
+    /**
+     * Returns the regions where two versions of some lines differ.
+     *
+     * @param oldLines The earlier version.
+     * @param newLines The later version.
+     * @return         The changed regions, in order and not touching each other.
+     */
+    static List<Hunk> diff(List<String> oldLines, List<String> newLines) {
+        return new LineDiff(oldLines, newLines).diff();
+    }
+
+    private List<Hunk> diff() {
+        int oldEnd = oldLines.size();
+        int newEnd = newLines.size();
+        int start = 0;
+        while (start < oldEnd && start < newEnd && isSame(start, start)) {
+            start++;
+        }
+        while (oldEnd > start && newEnd > start && isSame(oldEnd - 1, newEnd - 1)) {
+            oldEnd--;
+            newEnd--;
+        }
+        List<Hunk> hunks = new ArrayList<>();
+        if (start == oldEnd && start == newEnd) {
+            return hunks;
+        }
+        if (start == oldEnd || start == newEnd) {
+            hunks.add(new Hunk(start, oldEnd, start, newEnd));
+            return hunks;
+        }
+        List<int[]> matches = match(start, oldEnd, start, newEnd);
+        if (matches == null) {
+            hunks.add(new Hunk(start, oldEnd, start, newEnd));
+            return hunks;
+        }
+        int i = start;
+        int j = start;
+        for (int[] match : matches) {
+            if (match[0] > i || match[1] > j) {
+                hunks.add(new Hunk(i, match[0], j, match[1]));
+            }
+            i = match[0] + 1;
+            j = match[1] + 1;
+        }
+        if (i < oldEnd || j < newEnd) {
+            hunks.add(new Hunk(i, oldEnd, j, newEnd));
+        }
+        return hunks;
+    }
+
+    /**
+     * Runs Myers' greedy diff over the old lines {@code [a0, a1)} and new lines {@code [b0, b1)}.
+     * The furthest reaching x of every diagonal is kept for each number of edits, but only
+     * for the diagonals that number of edits can reach, so the trace takes O(d^2) space.
+     *
+     * @return The matched pairs of old and new indices in order, or {@code null} if
+     *         the lines differ by more than {@link #MAX_EDITS} edits.
+     */
+    private List<int[]> match(int a0, int a1, int b0, int b1) {
+        int n = a1 - a0;
+        int m = b1 - b0;
+        int maxEdits = Math.min(n + m, MAX_EDITS);
+        List<int[]> trace = new ArrayList<>();
+        int[] v = new int[] {0, 0, 0};
+        for (int d = 0; d <= maxEdits; d++) {
+            // v holds diagonals -d to d of the previous round at index k + d, next those of this one
+            int[] next = new int[2 * d + 3];
+            for (int k = -d; k <= d; k += 2) {
+                int x;
+                if (k == -d || (k != d && reach(v, d, k - 1) < reach(v, d, k + 1))) {
+                    x = reach(v, d, k + 1);
+                } else {
+                    x = reach(v, d, k - 1) + 1;
+                }
+                int y = x - k;
+                while (x < n && y < m && isSame(a0 + x, b0 + y)) {
+                    x++;
+                    y++;
+                }
+                next[k + d + 1] = x;
+                if (x >= n && y >= m) {
+                    trace.add(next);
+                    return backtrack(trace, a0, b0, n, m);
+                }
+            }
+            trace.add(next);
+            v = next;
+        }
+        return null;
+    }
+
+    /**
+     * Returns how far diagonal {@code k} reached in the round before round {@code d}.
+     */
+    private static int reach(int[] previous, int d, int k) {
+        return previous[k + d];
+    }
+
+    private static List<int[]> backtrack(List<int[]> trace, int a0, int b0, int n, int m) {
+        List<int[]> matches = new ArrayList<>();
+        int x = n;
+        int y = m;
+        for (int d = trace.size() - 1; d > 0; d--) {
+            int[] previous = trace.get(d - 1);
+            int k = x - y;
+            boolean isDown = k == -d || (k != d && reach(previous, d, k - 1) < reach(previous, d, k + 1));
+            int previousK = isDown ? k + 1 : k - 1;
+            int previousX = reach(previous, d, previousK);
+            int previousY = previousX - previousK;
+            int startX = isDown ? previousX : previousX + 1;
+            while (x > startX) {
+                x--;
+                y--;
+                matches.add(new int[] {a0 + x, b0 + y});
+            }
+            x = previousX;
+            y = previousY;
+        }
+        while (x > 0) {
+            x--;
+            y--;
+            matches.add(new int[] {a0 + x, b0 + y});
+        }
+        Collections.reverse(matches);
+        return matches;
+    }
+
+    private boolean isSame(int oldIndex, int newIndex) {
+        return oldHashes[oldIndex] == newHashes[newIndex]
+                && oldLines.get(oldIndex).equals(newLines.get(newIndex));
+    }
+
+    private static long[] hashAll(List<String> lines) {
+        long[] hashes = new long[lines.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = hash(lines.get(i));
+        }
+        return hashes;
+    }
+
+    /**
+     * Hashes a line with 64-bit FNV-1a over its characters.
+     */
+    static long hash(String line) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < line.length(); i++) {
+            h ^= line.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return h;
+    }
+}
@@ -1,15 +1,28 @@
 package agnes.storage;
 
 import java.io.File;
-import java.io.FileWriter;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
 
+import agnes.metrics.StorageLoadEvent;
+import agnes.metrics.StorageSaveEvent;
 import agnes.task.Deadline;
 import agnes.task.Event;
+import agnes.task.OccurrenceMarks;
+import agnes.task.Recurrence;
 import agnes.task.Task;
 import agnes.task.TaskList;
 import agnes.task.ToDo;
@@ -20,9 +33,112 @@ import agnes.util.DateTimeUtil;
  * <p>
  * The {@code Storage} class is responsible for writing data to a file
  * so that data can be retrieved locally, only.
+ * <p>
+ * A file path ending in {@value #COMPRESSED_EXTENSION} is stored compressed in blocks,
+ * which suits large archives: saving only recompresses the blocks that changed and
+ * loading decompresses blocks in parallel. The lines inside are the same as in a
+ * plain task file.
+ * </p>
+ * <p>
+ * A plain task file may also be edited outside Agnes while it runs. {@code Storage}
+ * remembers the lines it last read or wrote, and the size and modification time of the
+ * file at that point, so it notices such edits: it does not save over them, and
+ * {@link #reload(TaskList)} merges them into the tasks, edits that clash with changes
+ * not saved yet being set aside in a {@value #CONFLICTS_SUFFIX} file.
+ * </p>
+ * <p>
+ * A file that cannot be read in full, e.g. a compressed file with a corrupt block, is
+ * copied to a {@value #DAMAGED_SUFFIX} file before anything is saved over it, and is
+ * not saved over at all if that copy fails.
+ * </p>
  */
 public class Storage {
+    /** The file extension that selects the compressed format. */
+    public static final String COMPRESSED_EXTENSION = ".agz";
+    /** Appended to the path of the task file to name the file of clashing lines. */
+    public static final String CONFLICTS_SUFFIX = ".conflicts";
+    /** Appended to the path of the task file to name the copy kept of a file that did not load cleanly. */
+    public static final String DAMAGED_SUFFIX = ".damaged";
+    private static final String PLAIN_EXTENSION = ".txt";
+
     private String filePath;
+    private final CompressedBlockStore blockStore;
+    /** The lines of the task file as last read or written, one per task, or {@code null} if neither happened. */
+    private List<String> knownLines;
+    /** How the tasks of {@link #knownLines} are saved, line for line; lines that did not parse are kept as they are. */
+    private List<String> knownSaved;
+    /** The size and modification time of the task file when it was last read or written. */
+    private FileStamp knownStamp;
+    /** Whether the file did not load cleanly and could not be copied aside, so it must not be saved over. */
+    private boolean isDamaged;
+
+    /**
+     * The size and modification time of a file, which change whenever the file is written.
+     */
+    private record FileStamp(long size, long modified) {
+        private static final FileStamp MISSING = new FileStamp(-1, -1);
+
+        static FileStamp of(Path path) {
+            try {
+                return new FileStamp(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            } catch (IOException e) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Counts of what a reload merged into the tasks, and what it set aside.
+     */
+    public static class ReloadResult {
+        private final int added;
+        private final int changed;
+        private final int removed;
+        private final int skipped;
+        private final List<String> conflicts;
+
+        ReloadResult(int added, int changed, int removed, int skipped, List<String> conflicts) {
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+            this.skipped = skipped;
+            this.conflicts = conflicts;
+        }
+
+        public int getAdded() {
+            return added;
+        }
+
+        public int getChanged() {
+            return changed;
+        }
+
+        public int getRemoved() {
+            return removed;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+
+        /**
+         * Returns the lines of the file that clashed with changes not saved yet.
+         *
+         * @return The lines that were set aside instead of merged, which may be empty.
+         */
+        public List<String> getConflicts() {
+            return conflicts;
+        }
+
+        /**
+         * Returns whether the reload found anything to merge or set aside.
+         *
+         * @return {@code true} if the file had changed in any way that matters.
+         */
+        public boolean hasChanges() {
+            return added + changed + removed + skipped > 0 || !conflicts.isEmpty();
+        }
+    }
 
     /**
      * Creates a {@code Storage} with a given filePath.
@@ -31,6 +147,9 @@ public class Storage {
      */
     public Storage(String filePath) {
         this.filePath = filePath;
+        this.blockStore = filePath.endsWith(COMPRESSED_EXTENSION)
+                ? new CompressedBlockStore(Paths.get(filePath))
+                : null;
     }
 
     /**
@@ -41,18 +160,79 @@ public class Storage {
      * and handled.
      *
      * @param tasks The {@code TaskList} containing tasks to be saved.
+     * @return      {@code false} if the file was changed outside Agnes, so it was not saved over.
+     */
+    public boolean save(TaskList tasks) {
+        return write(snapshot(tasks));
+    }
+
+    /**
+     * Converts every task to the line it is saved as, so that the lines can be written
+     * later, e.g. by another thread while the tasks keep changing.
+     *
+     * @param tasks The {@code TaskList} containing tasks to be saved.
+     * @return      One line per task, in list order.
      */
-    public void save(TaskList tasks) {
-        StringBuilder sb = new StringBuilder();
+    public List<String> snapshot(TaskList tasks) {
+        List<String> lines = new ArrayList<>(tasks.size());
         for (Task t : tasks.getAll()) {
-            sb.append(t.toFileFormat()).append("\n");
+            lines.add(t.toFileFormat());
         }
+        return lines;
+    }
+
+    /**
+     * Writes lines made by {@link #snapshot(TaskList)} to the storage file.
+     * If an {@code IOException} occurs during writing, the error is caught
+     * and handled.
+     * <p>
+     * A plain file is not written if it holds these lines already, or if it was changed
+     * outside Agnes, so that the change is not lost before {@link #reload(TaskList)}
+     * merges it. The caller is told, so that it can merge or tell the user.
+     * </p>
+     *
+     * @param lines The lines of the tasks to be saved.
+     * @return      {@code false} if the file was changed outside Agnes, so it was not saved over.
+     */
+    public synchronized boolean write(List<String> lines) {
+        if (blockStore == null && knownStamp != null) {
+            if (hasExternalChanges()) {
+                return false;
+            }
+            if (lines.equals(knownSaved) && !knownStamp.equals(FileStamp.MISSING)) {
+                return true;
+            }
+        }
+        writeLines(lines);
+        return true;
+    }
+
+    private void writeLines(List<String> lines) {
+        if (isDamaged) {
+            System.err.println("Not saving over " + filePath + ", which did not load cleanly;"
+                    + " repair or move it first");
+            return;
+        }
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        long bytesWritten = -1;
         try {
-            writeToFile(sb.toString());
+            if (blockStore != null) {
+                bytesWritten = blockStore.save(lines);
+            } else {
+                StringBuilder sb = new StringBuilder();
+                for (String line : lines) {
+                    sb.append(line).append("\n");
+                }
+                bytesWritten = writeToFile(sb.toString());
+                remember(lines, lines);
+            }
         } catch (IOException e) {
             // Since writeToFile conducts defensive programming checks, we
             // Do not expect any agnes.exception thrown by it
             return;
+        } finally {
+            event.complete(filePath, lines.size(), bytesWritten);
         }
     }
 
@@ -63,28 +243,298 @@ public class Storage {
      * Task subtype (ToDo, Deadline, or Event). If the file doesn't exist or
      * the folder doesn't exist, no tasks are loaded. If a line cannot be parsed,
      * it is skipped.
+     * <p>
+     * A compressed file that does not exist yet is loaded from the plain task file
+     * of the same name instead, so that switching to the compressed format keeps the
+     * existing tasks. They are saved compressed from the next save on.
+     * </p>
      *
      * @param tasks The {@code TaskList} to load tasks into.
      */
     public void load(TaskList tasks) {
         File file = new File(filePath);
         if (!file.exists()) {
+            if (blockStore != null) {
+                String plainPath = filePath.substring(0, filePath.length() - COMPRESSED_EXTENSION.length())
+                        + PLAIN_EXTENSION;
+                if (new File(plainPath).exists()) {
+                    new Storage(plainPath).load(tasks);
+                }
+            } else {
+                remember(new ArrayList<>(), new ArrayList<>());
+            }
+            return;
+        }
+        if (blockStore != null) {
+            loadCompressed(tasks);
             return;
         }
 
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        int lineCount = 0;
+        int parseFailures = 0;
         try {
             List<String> lines = Files.readAllLines(Paths.get(filePath));
+            List<String> loaded = new ArrayList<>(lines.size());
+            List<String> saved = new ArrayList<>(lines.size());
             for (String line : lines) {
                 if (line.trim().isEmpty()) {
                     continue;
                 }
+                lineCount++;
                 Task task = parseTaskFromLine(line);
-                if (task != null) {
-                    tasks.addTask(task);
+                loaded.add(line);
+                if (task != null && addLoadedTask(tasks, task)) {
+                    String savedLine = task.toFileFormat();
+                    saved.add(savedLine.equals(line) ? line : savedLine);
+                } else {
+                    // Kept in the base, so that a reload does not take it for a new line,
+                    // and seen as removed in Agnes, as the next save drops it
+                    saved.add(line);
+                    parseFailures++;
+                }
+            }
+            remember(loaded, saved);
+        } catch (IOException e) {
+            System.err.println("Error loading tasks from file: " + e.getMessage());
+            keepDamagedFile();
+        } finally {
+            event.complete(filePath, lineCount, parseFailures);
+        }
+    }
+
+    /**
+     * Returns whether the plain task file was written by something other than this
+     * {@code Storage} since it last read or wrote the file.
+     *
+     * @return {@code true} if the file changed and should be reloaded.
+     */
+    public synchronized boolean hasExternalChanges() {
+        return blockStore == null && knownStamp != null && !knownStamp.equals(FileStamp.of(Paths.get(filePath)));
+    }
+
+    /**
+     * Merges changes made to the plain task file outside Agnes into the tasks, and saves the result.
+     * <p>
+     * The lines last read or written are the common base of two diffs: one against the
+     * file now, and one against the tasks as they would be saved now. Each region the
+     * file changed is merged by removing the tasks of its old lines and inserting the tasks
+     * parsed from its new ones, at the place the region now has in the list; the rest of
+     * the list is left alone, and only the lines of changed regions are parsed. A region
+     * that overlaps or touches a region changed in Agnes since the last save is a conflict:
+     * the tasks keep the change made in Agnes, and the new lines of the file are appended
+     * to the {@value #CONFLICTS_SUFFIX} file, so neither edit is lost. Lines that cannot
+     * be parsed are skipped.
+     * </p>
+     * <p>
+     * Compressed files are only written by Agnes, so there is nothing to reload.
+     * </p>
+     *
+     * @param tasks The {@code TaskList} the file was loaded into.
+     * @return      What was merged and what was set aside.
+     */
+    public synchronized ReloadResult reload(TaskList tasks) {
+        ReloadResult unchanged = new ReloadResult(0, 0, 0, 0, List.of());
+        Path path = Paths.get(filePath);
+        FileStamp stamp = FileStamp.of(path);
+        if (blockStore != null || stamp.equals(knownStamp)) {
+            return unchanged;
+        }
+        List<String> external = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(path)) {
+                if (!line.trim().isEmpty()) {
+                    external.add(line);
                 }
             }
+        } catch (NoSuchFileException e) {
+            // The file was deleted, so the next save writes every task again
+            knownStamp = FileStamp.MISSING;
+            return unchanged;
+        } catch (IOException e) {
+            System.err.println("Error reloading tasks from file: " + e.getMessage());
+            return unchanged;
+        }
+
+        List<String> current = snapshot(tasks);
+        List<String> base = knownLines == null ? current : knownLines;
+        List<LineDiff.Hunk> theirs = LineDiff.diff(base, external);
+        List<LineDiff.Hunk> ours = LineDiff.diff(knownLines == null ? current : knownSaved, current);
+
+        // Find where each region of the file is in the list now, before changing the list
+        List<LineDiff.Hunk> merged = new ArrayList<>();
+        List<String> conflicts = new ArrayList<>();
+        int next = 0;
+        int offset = 0;
+        for (LineDiff.Hunk hunk : theirs) {
+            while (next < ours.size() && ours.get(next).oldEnd() < hunk.oldStart()) {
+                LineDiff.Hunk local = ours.get(next++);
+                offset += (local.newEnd() - local.newStart()) - (local.oldEnd() - local.oldStart());
+            }
+            if (next < ours.size() && ours.get(next).overlaps(hunk)) {
+                conflicts.addAll(external.subList(hunk.newStart(), hunk.newEnd()));
+            } else {
+                merged.add(new LineDiff.Hunk(hunk.oldStart() + offset, hunk.oldEnd() + offset,
+                        hunk.newStart(), hunk.newEnd()));
+            }
+        }
+
+        int added = 0;
+        int changed = 0;
+        int removed = 0;
+        int skipped = 0;
+        List<String> saved = new ArrayList<>(current);
+        tasks.beginBatch();
+        try {
+            // Later regions first, so that the places of earlier ones stay put
+            for (int i = merged.size() - 1; i >= 0; i--) {
+                LineDiff.Hunk hunk = merged.get(i);
+                List<Task> parsed = new ArrayList<>();
+                List<String> parsedLines = new ArrayList<>();
+                for (String line : external.subList(hunk.newStart(), hunk.newEnd())) {
+                    Task task = parseTaskFromLine(line);
+                    if (task != null) {
+                        parsed.add(task);
+                        parsedLines.add(task.toFileFormat());
+                    } else {
+                        skipped++;
+                    }
+                }
+                int[] replaced = new int[hunk.oldEnd() - hunk.oldStart()];
+                for (int j = 0; j < replaced.length; j++) {
+                    replaced[j] = hunk.oldStart() + j;
+                }
+                if (replaced.length > 0) {
+                    tasks.removeTasks(replaced);
+                }
+                tasks.insertTasks(hunk.oldStart(), parsed);
+                saved.subList(hunk.oldStart(), hunk.oldEnd()).clear();
+                saved.addAll(hunk.oldStart(), parsedLines);
+                int both = Math.min(replaced.length, parsed.size());
+                changed += both;
+                added += parsed.size() - both;
+                removed += replaced.length - both;
+            }
+        } finally {
+            tasks.endBatch();
+        }
+
+        if (!conflicts.isEmpty()) {
+            saveConflicts(conflicts);
+        }
+        // The file is written even if nothing was merged, so that it becomes the new base.
+        // Only the merged tasks are converted, as the rest are saved as they were
+        writeLines(saved);
+        return new ReloadResult(added, changed, removed, skipped, conflicts);
+    }
+
+    /**
+     * Appends lines that could not be merged to the conflicts file, under a header saying when.
+     */
+    private void saveConflicts(List<String> conflicts) {
+        List<String> lines = new ArrayList<>();
+        lines.add("# " + DateTimeUtil.formatDateTime(LocalDateTime.now())
+                + ": changed outside Agnes while the same tasks were being changed in Agnes");
+        lines.addAll(conflicts);
+        try {
+            Files.write(Paths.get(filePath + CONFLICTS_SUFFIX), lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            System.err.println("Error saving conflicting tasks: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Makes lines of the file and how their tasks are saved the base that later changes are compared with.
+     */
+    private void remember(List<String> lines, List<String> saved) {
+        knownLines = lines;
+        knownSaved = saved;
+        knownStamp = FileStamp.of(Paths.get(filePath));
+    }
+
+    /**
+     * Loads the tasks from the compressed file, parsing the blocks in parallel
+     * and adding their tasks in the order of the file. The tasks of corrupt blocks
+     * are left out, and the file is kept aside before it is saved over.
+     *
+     * @param tasks The {@code TaskList} to load tasks into.
+     */
+    private void loadCompressed(TaskList tasks) {
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        int lineCount = 0;
+        int parseFailures = 0;
+        try {
+            List<String> blocks = blockStore.loadBlocks();
+            int corruptBlocks = 0;
+            for (int i = 0; i < blocks.size(); i++) {
+                if (blocks.get(i) == null) {
+                    System.err.println("Skipping corrupt block " + i + " of " + filePath);
+                    corruptBlocks++;
+                }
+            }
+            if (corruptBlocks > 0) {
+                keepDamagedFile();
+            }
+            List<List<Task>> parsed = blocks.parallelStream()
+                    .filter(Objects::nonNull)
+                    .map(block -> block.lines()
+                            .filter(line -> !line.trim().isEmpty())
+                            .map(this::parseTaskFromLine)
+                            .collect(Collectors.toCollection(ArrayList::new)))
+                    .collect(Collectors.toList());
+            tasks.beginBatch();
+            try {
+                for (List<Task> blockTasks : parsed) {
+                    lineCount += blockTasks.size();
+                    for (Task task : blockTasks) {
+                        // Lines that could not be parsed are null
+                        if (task == null || !addLoadedTask(tasks, task)) {
+                            parseFailures++;
+                        }
+                    }
+                }
+            } finally {
+                tasks.endBatch();
+            }
         } catch (IOException e) {
             System.err.println("Error loading tasks from file: " + e.getMessage());
+            keepDamagedFile();
+        } finally {
+            event.complete(filePath, lineCount, parseFailures);
+        }
+    }
+
+    /**
+     * Adds a task read from the file, leaving it out if the list rejects it, so that one
+     * bad line cannot stop Agnes from starting.
+     *
+     * @return {@code true} if the task was added.
+     */
+    private static boolean addLoadedTask(TaskList tasks, Task task) {
+        try {
+            tasks.addTask(task);
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Error adding loaded task: " + task.getMessage() + " - " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Copies a file that did not load cleanly aside, so that saving the tasks that did
+     * load does not lose the rest. If it cannot be copied, it is not saved over.
+     */
+    private void keepDamagedFile() {
+        Path copy = Paths.get(filePath + DAMAGED_SUFFIX);
+        try {
+            Files.copy(Paths.get(filePath), copy, StandardCopyOption.REPLACE_EXISTING);
+            System.err.println("Kept a copy of " + filePath + " as " + copy);
+        } catch (IOException e) {
+            System.err.println("Error keeping a copy of " + filePath + ": " + e.getMessage());
+            isDamaged = true;
         }
     }
 
@@ -95,13 +545,17 @@ public class Storage {
      * - ToDo: "T | 0/1 | description"
      * - Deadline: "D | 0/1 | description | formatted_datetime" (or legacy "E | 0/1 | description | formatted_datetime")
      * - Event: "E | 0/1 | description | from formatted_datetime to: formatted_datetime"
+     * Deadlines and events may be followed by optional fields, which are ignored if unknown:
+     * - Recurrence: "every month", "every 2 weeks"
+     * - Completed occurrences of a recurring task: "done 0-3,7"
+     * Any task may end with its tags: "tags work,urgent"
      *
      * @param line The line to parse.
      * @return The parsed Task, or null if the line format is invalid.
      */
     private Task parseTaskFromLine(String line) {
         try {
-            String[] parts = line.split(" \\| ", 4);
+            String[] parts = line.split(" \\| ");
             if (parts.length < 3) {
                 return null;
             }
@@ -109,6 +563,20 @@ public class Storage {
             String taskType = parts[0].trim();
             boolean isComplete = parts[1].trim().equals("1");
             String description = parts[2].trim();
+            Recurrence recurrence = null;
+            OccurrenceMarks occurrenceMarks = null;
+            List<String> tags = List.of();
+            // To-dos have no dates, so their optional fields start one earlier
+            for (int i = taskType.equals("T") ? 3 : 4; i < parts.length; i++) {
+                String field = parts[i].trim();
+                if (field.startsWith("every ")) {
+                    recurrence = Recurrence.parse(field.substring("every ".length()));
+                } else if (field.startsWith("done ")) {
+                    occurrenceMarks = OccurrenceMarks.parse(field.substring("done ".length()));
+                } else if (field.startsWith("tags ")) {
+                    tags = Arrays.asList(field.substring("tags ".length()).split(","));
+                }
+            }
 
             Task task = null;
 
@@ -120,7 +588,7 @@ public class Storage {
                 if (parts.length >= 4) {
                     String dateTimeStr = parts[3].trim();
                     LocalDateTime dateTime = DateTimeUtil.parseFormattedDateTime(dateTimeStr);
-                    task = new Deadline(description, dateTime);
+                    task = new Deadline(description, dateTime, recurrence);
                 }
                 break;
             case "E":
@@ -133,10 +601,10 @@ public class Storage {
                         String toStr = fromTo[1].trim();
                         LocalDateTime fromDateTime = DateTimeUtil.parseFormattedDateTime(fromStr);
                         LocalDateTime toDateTime = DateTimeUtil.parseFormattedDateTime(toStr);
-                        task = new Event(description, fromDateTime, toDateTime);
+                        task = new Event(description, fromDateTime, toDateTime, recurrence);
                     } else {
                         LocalDateTime dateTime = DateTimeUtil.parseFormattedDateTime(dateTimeOrFromToStr);
-                        task = new Deadline(description, dateTime);
+                        task = new Deadline(description, dateTime, recurrence);
                     }
                 }
                 break;
@@ -144,8 +612,16 @@ public class Storage {
                 return null;
             }
 
-            // Set task completion status if it was marked as complete
-            if (task != null && isComplete) {
+            if (task != null) {
+                task.setTags(tags);
+            }
+            if (task != null && task.isRecurring()) {
+                // A recurring task tracks completion per occurrence instead
+                if (occurrenceMarks != null) {
+                    task.setOccurrenceMarks(occurrenceMarks);
+                }
+            } else if (task != null && isComplete) {
+                // Set task completion status if it was marked as complete
                 task.setMarked();
             }
 
@@ -164,9 +640,10 @@ public class Storage {
      * If the folder already exists, it is not re-created.
      *
      * @param textToAdd     The full text to be written.
+     * @return              The number of bytes written.
      * @throws IOException  If file operations fail.
      */
-    private void writeToFile(String textToAdd) throws IOException {
+    private long writeToFile(String textToAdd) throws IOException {
         File file = new File(filePath);
 
         // Defensive Programming, verify
@@ -181,9 +658,13 @@ public class Storage {
             file.createNewFile();
         }
 
+        // Encoded as UTF-8 to match Files.readAllLines in load()
+        byte[] bytes = textToAdd.getBytes(StandardCharsets.UTF_8);
+
         //  Using overwriting mode; Use (filePath, true) if want to append
-        FileWriter fw = new FileWriter(filePath);
-        fw.write(textToAdd);
-        fw.close();
+        try (FileOutputStream out = new FileOutputStream(filePath)) {
+            out.write(bytes);
+        }
+        return bytes.length;
     }
 }
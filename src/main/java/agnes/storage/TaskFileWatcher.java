@@ -0,0 +1,94 @@
+package agnes.storage;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches the task file for changes, e.g. by a text editor, on a daemon thread.
+ * <p>
+ * A {@link WatchService} can only watch folders, so the folder of the file is watched
+ * and events for other files are ignored. Editors often save a file in several steps,
+ * so the watcher waits until the file has been quiet for {@value #QUIET_MILLIS} ms
+ * before calling back once for the whole burst of events. The callback runs on the
+ * watcher's thread, and is also called for changes Agnes made itself, which
+ * {@link Storage#hasExternalChanges()} tells apart.
+ * </p>
+ */
+public class TaskFileWatcher implements AutoCloseable {
+    /** How long the file must go without events before the callback is called. */
+    static final long QUIET_MILLIS = 100;
+
+    private final Path fileName;
+    private final Runnable onChange;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    /**
+     * Starts watching a file.
+     *
+     * @param file     The file to watch. Its folder must exist.
+     * @param onChange What to do after the file changed.
+     * @throws IOException If the folder cannot be watched.
+     */
+    public TaskFileWatcher(Path file, Runnable onChange) throws IOException {
+        Path absolute = file.toAbsolutePath();
+        this.fileName = absolute.getFileName();
+        this.onChange = onChange;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        absolute.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.thread = new Thread(this::run, "agnes-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void run() {
+        try {
+            while (true) {
+                if (!isAboutFile(watchService.take())) {
+                    continue;
+                }
+                WatchKey more = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                while (more != null) {
+                    isAboutFile(more);
+                    more = watchService.poll(QUIET_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                onChange.run();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed, so stop watching
+        }
+    }
+
+    /**
+     * Returns whether any event of a key is about the watched file, and re-arms the key.
+     */
+    private boolean isAboutFile(WatchKey key) {
+        boolean isAboutFile = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            isAboutFile |= event.kind() == StandardWatchEventKinds.OVERFLOW || fileName.equals(event.context());
+        }
+        key.reset();
+        return isAboutFile;
+    }
+
+    /**
+     * Stops watching the file.
+     */
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.err.println("Error closing file watcher: " + e.getMessage());
+        }
+        thread.interrupt();
+    }
+}
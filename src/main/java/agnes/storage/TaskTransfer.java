@@ -0,0 +1,207 @@
+package agnes.storage;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import agnes.task.Task;
+import agnes.task.TaskList;
+
+/**
+ * Imports tasks from and exports tasks to CSV and iCalendar ({@code .ics}) files.
+ * <p>
+ * Files are streamed through buffered channels one record at a time, so memory use
+ * does not depend on the size of the file. Imported tasks are added to the
+ * {@code TaskList} in batches of {@value #BATCH_SIZE}. The format is chosen by the
+ * file extension.
+ * </p>
+ */
+public class TaskTransfer {
+    /** Number of imported tasks added to the list at a time. */
+    static final int BATCH_SIZE = 8192;
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Reads tasks one record at a time.
+     */
+    interface TaskReader {
+        /**
+         * Reads the next task.
+         *
+         * @return The task, or {@code null} at the end of the input.
+         * @throws IOException If reading fails.
+         * @throws IllegalArgumentException If the record is malformed. The record is skipped.
+         */
+        Task read() throws IOException;
+    }
+
+    /**
+     * Writes tasks one record at a time.
+     */
+    interface TaskWriter {
+        /**
+         * Writes a task.
+         *
+         * @param t The task to write.
+         * @throws IOException If writing fails.
+         */
+        void write(Task t) throws IOException;
+
+        /**
+         * Writes anything that must follow the last task.
+         *
+         * @throws IOException If writing fails.
+         */
+        void finish() throws IOException;
+    }
+
+    /**
+     * Counts of what happened during an import.
+     */
+    public static class ImportResult {
+        private final int imported;
+        private final int skipped;
+
+        ImportResult(int imported, int skipped) {
+            this.imported = imported;
+            this.skipped = skipped;
+        }
+
+        public int getImported() {
+            return imported;
+        }
+
+        public int getSkipped() {
+            return skipped;
+        }
+    }
+
+    /**
+     * Returns whether tasks can be imported from or exported to the given file.
+     *
+     * @param file The file.
+     * @return     {@code true} if the file is a {@code .csv} or {@code .ics} file.
+     */
+    public static boolean isSupported(Path file) {
+        String name = file.getFileName().toString().toLowerCase();
+        return name.endsWith(".csv") || name.endsWith(".ics");
+    }
+
+    /**
+     * Adds every task in a file to the end of the list. The list's listeners hear of
+     * the tasks as they are added.
+     *
+     * @param file      The CSV or iCalendar file to read.
+     * @param tasks     The list to add the tasks to.
+     * @return          How many tasks were imported and skipped.
+     * @throws IOException If the file cannot be read.
+     * @see #importFrom(Path, TaskList, Consumer)
+     */
+    public static ImportResult importFrom(Path file, TaskList tasks) throws IOException {
+        return importFrom(file, tasks, t -> { });
+    }
+
+    /**
+     * Adds every task in a file to the end of the list.
+     * <p>
+     * Malformed records are skipped and counted rather than stopping the import.
+     * </p>
+     *
+     * @param file      The CSV or iCalendar file to read.
+     * @param tasks     The list to add the tasks to.
+     * @param onAdded   Called with every task after it has been added to the list.
+     * @return          How many tasks were imported and skipped.
+     * @throws IOException If the file cannot be read.
+     * @throws IllegalArgumentException If the file is neither CSV nor iCalendar.
+     */
+    public static ImportResult importFrom(Path file, TaskList tasks, Consumer<Task> onAdded) throws IOException {
+        int imported = 0;
+        int skipped = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader in = new BufferedReader(
+                     Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            TaskReader reader = newReader(file, in);
+            List<Task> batch = new ArrayList<>(BATCH_SIZE);
+            while (true) {
+                Task t;
+                try {
+                    t = reader.read();
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    skipped++;
+                    continue;
+                }
+                if (t == null) {
+                    break;
+                }
+                batch.add(t);
+                if (batch.size() == BATCH_SIZE) {
+                    imported += addBatch(batch, tasks, onAdded);
+                }
+            }
+            imported += addBatch(batch, tasks, onAdded);
+        }
+        return new ImportResult(imported, skipped);
+    }
+
+    /**
+     * Writes every task in the list to a file, replacing its contents.
+     *
+     * @param file  The CSV or iCalendar file to write.
+     * @param tasks The tasks to export.
+     * @return      The number of tasks written.
+     * @throws IOException If the file cannot be written.
+     * @throws IllegalArgumentException If the file is neither CSV nor iCalendar.
+     */
+    public static int exportTo(Path file, TaskList tasks) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             Writer out = new BufferedWriter(
+                     Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            TaskWriter writer = newWriter(file, out);
+            for (Task t : tasks.getAll()) {
+                writer.write(t);
+            }
+            writer.finish();
+        }
+        return tasks.size();
+    }
+
+    private static int addBatch(List<Task> batch, TaskList tasks, Consumer<Task> onAdded) {
+        int count = batch.size();
+        tasks.addTasks(batch);
+        batch.forEach(onAdded);
+        batch.clear();
+        return count;
+    }
+
+    private static TaskReader newReader(Path file, BufferedReader in) {
+        return isIcs(file) ? new IcsTaskFormat.Reader(in) : new CsvTaskFormat.Reader(in);
+    }
+
+    private static TaskWriter newWriter(Path file, Writer out) throws IOException {
+        return isIcs(file) ? new IcsTaskFormat.Writer(out) : new CsvTaskFormat.Writer(out);
+    }
+
+    private static boolean isIcs(Path file) {
+        if (!isSupported(file)) {
+            throw new IllegalArgumentException("I can only import and export .csv or .ics files");
+        }
+        return file.getFileName().toString().toLowerCase().endsWith(".ics");
+    }
+}
@@ -0,0 +1,28 @@
+package agnes.task;
+
+/**
+ * Represents two tasks whose durations overlap.
+ */
+public class Conflict {
+    private final Task first;
+    private final Task second;
+
+    /**
+     * Creates a conflict between two tasks.
+     *
+     * @param first     The task that starts first.
+     * @param second    The task that starts at the same time or later.
+     */
+    public Conflict(Task first, Task second) {
+        this.first = first;
+        this.second = second;
+    }
+
+    public Task getFirst() {
+        return first;
+    }
+
+    public Task getSecond() {
+        return second;
+    }
+}
@@ -2,7 +2,6 @@ package agnes.task;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
 import agnes.util.DateTimeUtil;
@@ -15,10 +14,15 @@ import agnes.util.DateTimeUtil;
  * It supports date-based filtering and formatted display of the deadline.
  * Deadlines are considered to fall on a date if their due date matches
  * that calendar date (time is ignored for comparison).
+ * <p>
+ * The due date-time is kept as an epoch minute rather than a {@code LocalDateTime},
+ * which saves three objects per deadline in large task lists.
+ * <p>
+ * A recurring deadline keeps the date-time of its first occurrence and is displayed
+ * with the date-time of its earliest pending occurrence.
  */
 public class Deadline extends Task {
-    protected LocalDateTime by;
-    private final DateTimeFormatter formatDth = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
+    protected long byEpochMinute;
 
     /**
      * Constructs a Deadline task with a description and due date-time.
@@ -27,25 +31,48 @@ public class Deadline extends Task {
      * @param by        Due date (and time; optional) of the task.
      */
     public Deadline(String message, LocalDateTime by) {
-        super(message);
-        this.by = by;
+        this(message, by, null);
+    }
+
+    /**
+     * Constructs a Deadline task that may repeat.
+     *
+     * @param message       Description of the task.
+     * @param by            Due date (and time; optional) of the task, or of its first occurrence.
+     * @param recurrence    How often the deadline repeats, or {@code null} if it does not.
+     */
+    public Deadline(String message, LocalDateTime by, Recurrence recurrence) {
+        super(message, recurrence);
+        this.byEpochMinute = DateTimeUtil.toEpochMinute(by);
+    }
+
+    /**
+     * Returns the due date-time of this deadline, or of its first occurrence if it repeats.
+     *
+     * @return The date-time the task is due by.
+     */
+    public LocalDateTime getBy() {
+        return DateTimeUtil.fromEpochMinute(byEpochMinute);
     }
 
     @Override
     public String toString() {
         return String.format(
-                "[D] %s (by: %s)",
+                "[D] %s (by: %s%s)",
                 super.toString(),
-                DateTimeUtil.formatDateTime(this.by)
+                DateTimeUtil.formatDateTime(DateTimeUtil.fromEpochMinute(getStartEpochMinute())),
+                toRecurrenceString()
         );
     }
 
     @Override
     public String toFileFormat() {
         return String.format(
-                "D | %s | %s",
+                "D | %s | %s%s%s",
                 super.toFileFormat(),
-                DateTimeUtil.formatDateTime(this.by)
+                DateTimeUtil.formatDateTime(getBy()),
+                toRecurrenceFileFormat(),
+                toTagFileFormat()
         );
     }
 
@@ -61,7 +88,41 @@ public class Deadline extends Task {
      */
     @Override
     public boolean fallsOnDate(LocalDate date) {
-        return this.by.toLocalDate().equals(date);
+        if (isRecurring()) {
+            return hasOccurrenceOn(date);
+        }
+        return getBy().toLocalDate().equals(date);
+    }
+
+    @Override
+    long getStartEpochMinute() {
+        return isRecurring() ? getNextOccurrenceEpochMinute() : byEpochMinute;
+    }
+
+    @Override
+    long getEndEpochMinute() {
+        return getStartEpochMinute();
+    }
+
+    @Override
+    int getFirstEpochDay() {
+        // Recurring deadlines fall on many days and are expanded per query instead
+        return isRecurring() ? super.getFirstEpochDay() : (int) DateTimeUtil.toEpochDay(byEpochMinute);
+    }
+
+    @Override
+    int getLastEpochDay() {
+        return isRecurring() ? super.getLastEpochDay() : getFirstEpochDay();
+    }
+
+    @Override
+    long getFirstOccurrenceEpochMinute() {
+        return byEpochMinute;
+    }
+
+    @Override
+    Task createOccurrence(long startEpochMinute) {
+        return new Deadline(getMessage(), DateTimeUtil.fromEpochMinute(startEpochMinute));
     }
 
     /**
@@ -79,7 +140,7 @@ public class Deadline extends Task {
                 this.setMessage(value);
                 break;
             case "/by":
-                this.by = DateTimeUtil.parseDateTime(value);
+                this.byEpochMinute = DateTimeUtil.toEpochMinute(DateTimeUtil.parseDateTime(value));
                 break;
             default:
                 throw new IllegalArgumentException(
@@ -0,0 +1,105 @@
+package agnes.task;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Interns task descriptions so that identical descriptions share one {@code String}.
+ * <p>
+ * Recurring chores ("Math Homework", "gym") otherwise create a separate copy of the
+ * same text for every task. Entries are only weakly referenced, so a description
+ * disappears from the pool once no task uses it any more, and the pool stops
+ * admitting new descriptions once it holds {@link #MAX_ENTRIES} of them.
+ * <p>
+ * All tasks share the pool returned by {@link #getInstance()}.
+ */
+public class DescriptionPool {
+    /** Largest number of distinct descriptions held at once. */
+    public static final int MAX_ENTRIES = 1 << 16;
+
+    /** Approximate size of a {@code String} and its backing array without any characters. */
+    private static final int STRING_OVERHEAD_BYTES = 40;
+
+    private static final DescriptionPool INSTANCE = new DescriptionPool(MAX_ENTRIES);
+
+    private final WeakHashMap<String, WeakReference<String>> pool = new WeakHashMap<>();
+    private final int maxEntries;
+    private long hits;
+    private long misses;
+    private long bytesSaved;
+
+    /**
+     * Creates an empty pool.
+     *
+     * @param maxEntries The largest number of distinct descriptions to hold.
+     */
+    public DescriptionPool(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public static DescriptionPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Returns the pooled copy of a description, adding it to the pool if it is new.
+     *
+     * @param description   The description to intern, may be {@code null}.
+     * @return              An equal {@code String}, shared with other tasks where possible.
+     */
+    public synchronized String intern(String description) {
+        if (description == null) {
+            return null;
+        }
+
+        WeakReference<String> ref = pool.get(description);
+        String canonical = ref == null ? null : ref.get();
+        if (canonical != null) {
+            hits++;
+            if (canonical != description) {
+                bytesSaved += estimateSize(description);
+            }
+            return canonical;
+        }
+
+        misses++;
+        if (pool.size() < maxEntries) {
+            pool.put(description, new WeakReference<>(description));
+        }
+        return description;
+    }
+
+    /**
+     * Returns the number of distinct descriptions currently held.
+     *
+     * @return The number of live entries.
+     */
+    public synchronized int size() {
+        return pool.size();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the approximate heap saved so far by handing out pooled copies
+     * instead of keeping duplicate strings.
+     *
+     * @return The estimated number of bytes saved.
+     */
+    public synchronized long getBytesSaved() {
+        return bytesSaved;
+    }
+
+    private static long estimateSize(String s) {
+        // Compact strings store Latin-1 text in one byte per character
+        boolean isLatin1 = s.chars().allMatch(c -> c < 256);
+        long contentBytes = isLatin1 ? s.length() : 2L * s.length();
+        return STRING_OVERHEAD_BYTES + ((contentBytes + 7) & ~7L);
+    }
+}
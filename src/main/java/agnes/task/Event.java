@@ -14,10 +14,16 @@ import agnes.util.DateTimeUtil;
  * It supports date-based filtering and formatted display of the event.
  * Event are considered to fall on a date if that calendar date falls
  * in the event's duration (time is ignored for comparison).
+ * <p>
+ * The start and end date-times are kept as epoch minutes rather than
+ * {@code LocalDateTime} objects, which saves six objects per event in large task lists.
+ * <p>
+ * A recurring event keeps the date-times of its first occurrence and is displayed
+ * with the date-times of its earliest pending occurrence.
  */
 public class Event extends Task {
-    protected LocalDateTime from;
-    protected LocalDateTime to;
+    protected long fromEpochMinute;
+    protected long toEpochMinute;
 
     /**
      * Constructs an Event task with a description and start/end date-time.
@@ -27,28 +33,61 @@ public class Event extends Task {
      * @param to        End date (and time; optional) of the event.
      */
     public Event(String message, LocalDateTime from, LocalDateTime to) {
-        super(message);
-        this.from = from;
-        this.to = to;
+        this(message, from, to, null);
+    }
+
+    /**
+     * Constructs an Event task that may repeat.
+     *
+     * @param message       Description of the event.
+     * @param from          Start date (and time; optional) of the event, or of its first occurrence.
+     * @param to            End date (and time; optional) of the event, or of its first occurrence.
+     * @param recurrence    How often the event repeats, or {@code null} if it does not.
+     */
+    public Event(String message, LocalDateTime from, LocalDateTime to, Recurrence recurrence) {
+        super(message, recurrence);
+        this.fromEpochMinute = DateTimeUtil.toEpochMinute(from);
+        this.toEpochMinute = DateTimeUtil.toEpochMinute(to);
+    }
+
+    /**
+     * Returns the start date-time of this event, or of its first occurrence if it repeats.
+     *
+     * @return The date-time the event starts.
+     */
+    public LocalDateTime getFrom() {
+        return DateTimeUtil.fromEpochMinute(fromEpochMinute);
+    }
+
+    /**
+     * Returns the end date-time of this event, or of its first occurrence if it repeats.
+     *
+     * @return The date-time the event ends.
+     */
+    public LocalDateTime getTo() {
+        return DateTimeUtil.fromEpochMinute(toEpochMinute);
     }
 
     @Override
     public String toString() {
         return String.format(
-                "[E] %s (from: %s to: %s)",
+                "[E] %s (from: %s to: %s%s)",
                 super.toString(),
-                DateTimeUtil.formatDateTime(from),
-                DateTimeUtil.formatDateTime(to)
+                DateTimeUtil.formatDateTime(DateTimeUtil.fromEpochMinute(getStartEpochMinute())),
+                DateTimeUtil.formatDateTime(DateTimeUtil.fromEpochMinute(getEndEpochMinute())),
+                toRecurrenceString()
         );
     }
 
     @Override
     public String toFileFormat() {
         return String.format(
-                "E | %s | from %s to: %s",
+                "E | %s | from %s to: %s%s%s",
                 super.toFileFormat(),
-                DateTimeUtil.formatDateTime(from),
-                DateTimeUtil.formatDateTime(to)
+                DateTimeUtil.formatDateTime(getFrom()),
+                DateTimeUtil.formatDateTime(getTo()),
+                toRecurrenceFileFormat(),
+                toTagFileFormat()
         );
     }
 
@@ -66,13 +105,53 @@ public class Event extends Task {
      */
     @Override
     public boolean fallsOnDate(LocalDate date) {
-        LocalDate start = this.from.toLocalDate();
-        LocalDate end = this.to.toLocalDate();
+        if (isRecurring()) {
+            return hasOccurrenceOn(date);
+        }
+        LocalDate start = getFrom().toLocalDate();
+        LocalDate end = getTo().toLocalDate();
 
         return (date.equals(start) || date.isAfter(start))
                 && (date.equals(end) || date.isBefore(end));
     }
 
+    @Override
+    long getStartEpochMinute() {
+        return isRecurring() ? getNextOccurrenceEpochMinute() : fromEpochMinute;
+    }
+
+    @Override
+    long getEndEpochMinute() {
+        return isRecurring() ? getNextOccurrenceEpochMinute() + getDurationMinutes() : toEpochMinute;
+    }
+
+    @Override
+    int getFirstEpochDay() {
+        // Recurring events fall on many days and are expanded per query instead
+        return isRecurring() ? super.getFirstEpochDay() : (int) DateTimeUtil.toEpochDay(fromEpochMinute);
+    }
+
+    @Override
+    int getLastEpochDay() {
+        return isRecurring() ? super.getLastEpochDay() : (int) DateTimeUtil.toEpochDay(toEpochMinute);
+    }
+
+    @Override
+    long getFirstOccurrenceEpochMinute() {
+        return fromEpochMinute;
+    }
+
+    @Override
+    long getDurationMinutes() {
+        return Math.max(0, toEpochMinute - fromEpochMinute);
+    }
+
+    @Override
+    Task createOccurrence(long startEpochMinute) {
+        return new Event(getMessage(), DateTimeUtil.fromEpochMinute(startEpochMinute),
+                DateTimeUtil.fromEpochMinute(startEpochMinute + getDurationMinutes()));
+    }
+
     /**
      * Updates a field of an {@code Event}.
      *
@@ -88,10 +167,10 @@ public class Event extends Task {
                 this.setMessage(value);
                 break;
             case "/from":
-                this.from = DateTimeUtil.parseDateTime(value);
+                this.fromEpochMinute = DateTimeUtil.toEpochMinute(DateTimeUtil.parseDateTime(value));
                 break;
             case "/to":
-                this.to = DateTimeUtil.parseDateTime(value);
+                this.toEpochMinute = DateTimeUtil.toEpochMinute(DateTimeUtil.parseDateTime(value));
                 break;
             default:
                 throw new IllegalArgumentException(
@@ -0,0 +1,293 @@
+package agnes.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds tasks whose descriptions contain words close to a search term, allowing for typos.
+ * <p>
+ * Every word of every description is kept in a vocabulary, and the vocabulary is
+ * arranged in a BK-tree: a child of a word sits under the edit distance between the
+ * two, so a search for words within distance {@code k} of a term only descends into
+ * children whose distance is within {@code k} of the term's distance to the parent.
+ * That visits a small part of the vocabulary, however many tasks share its words.
+ * </p>
+ * <p>
+ * A BK-tree cannot remove words, so a word no task uses any more stays in the tree with
+ * no tasks, and is skipped by searches. The tree is rebuilt once such words outnumber
+ * the rest.
+ * </p>
+ */
+class FuzzyIndex {
+    private static final int MIN_REBUILD_SIZE = 1024;
+
+    private final Map<String, Word> vocabulary = new HashMap<>();
+    private final Map<Task, Indexed> indexed = new IdentityHashMap<>();
+    private Word root;
+    private int unusedWords;
+    private long nextSequence;
+    private int[] previousRow = new int[16];
+    private int[] currentRow = new int[16];
+
+    /**
+     * A word in the BK-tree and the tasks whose descriptions contain it.
+     */
+    private static final class Word {
+        private final String text;
+        private final Set<Task> tasks = new LinkedHashSet<>();
+        private Word[] children = new Word[0];
+
+        private Word(String text) {
+            this.text = text;
+        }
+    }
+
+    /**
+     * The words a task was indexed under, and when it was first added.
+     */
+    private static final class Indexed {
+        private final String[] words;
+        private final long sequence;
+
+        private Indexed(String[] words, long sequence) {
+            this.words = words;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Starts tracking the words of a task that was added to the list.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        add(t, nextSequence++);
+    }
+
+    private void add(Task t, long sequence) {
+        String[] words = words(t.getMessage());
+        indexed.put(t, new Indexed(words, sequence));
+        for (String w : words) {
+            Word word = vocabulary.get(w);
+            if (word == null) {
+                word = new Word(w);
+                vocabulary.put(w, word);
+                insert(word);
+            } else if (word.tasks.isEmpty()) {
+                unusedWords--;
+            }
+            word.tasks.add(t);
+        }
+    }
+
+    /**
+     * Stops tracking a task that was removed from the list.
+     *
+     * @param t The task that was removed.
+     */
+    void remove(Task t) {
+        Indexed entry = indexed.remove(t);
+        if (entry == null) {
+            return;
+        }
+        for (String w : entry.words) {
+            Word word = vocabulary.get(w);
+            word.tasks.remove(t);
+            if (word.tasks.isEmpty()) {
+                unusedWords++;
+            }
+        }
+        if (unusedWords > MIN_REBUILD_SIZE && unusedWords > vocabulary.size() - unusedWords) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Refreshes a task whose description may have changed, keeping its place among ties.
+     *
+     * @param t The task that changed.
+     */
+    void update(Task t) {
+        Indexed entry = indexed.get(t);
+        if (entry == null) {
+            return;
+        }
+        remove(t);
+        add(t, entry.sequence);
+    }
+
+    /**
+     * Returns the tasks with a word close to every word of a term, closest first.
+     * <p>
+     * Words of up to two letters must match exactly, words of up to five letters may
+     * be one edit away and longer words two. A task's distance is the sum of the
+     * distances of its closest word to each word of the term. Tasks at the same
+     * distance are in the order they were added.
+     * </p>
+     *
+     * @param term  The words to search for.
+     * @return      The matching tasks, closest first.
+     */
+    List<Task> search(String term) {
+        String[] termWords = words(term);
+        if (termWords.length == 0) {
+            return new ArrayList<>();
+        }
+        Map<Task, Integer> distances = null;
+        for (String termWord : termWords) {
+            Map<Task, Integer> closest = new IdentityHashMap<>();
+            for (Map.Entry<Word, Integer> match : findWords(termWord, maxDistance(termWord)).entrySet()) {
+                for (Task t : match.getKey().tasks) {
+                    closest.merge(t, match.getValue(), Math::min);
+                }
+            }
+            if (distances == null) {
+                distances = closest;
+            } else {
+                Map<Task, Integer> both = new IdentityHashMap<>();
+                for (Map.Entry<Task, Integer> e : distances.entrySet()) {
+                    Integer d = closest.get(e.getKey());
+                    if (d != null) {
+                        both.put(e.getKey(), e.getValue() + d);
+                    }
+                }
+                distances = both;
+            }
+        }
+        Map<Task, Integer> ranked = distances;
+        List<Task> results = new ArrayList<>(ranked.keySet());
+        results.sort(Comparator.<Task>comparingInt(ranked::get)
+                .thenComparingLong(t -> indexed.get(t).sequence));
+        return results;
+    }
+
+    /**
+     * Returns the words in use within a distance of a term, with their distances.
+     */
+    private Map<Word, Integer> findWords(String term, int maxDistance) {
+        Map<Word, Integer> matches = new IdentityHashMap<>();
+        if (root == null) {
+            return matches;
+        }
+        Deque<Word> pending = new ArrayDeque<>();
+        pending.push(root);
+        while (!pending.isEmpty()) {
+            Word word = pending.pop();
+            int d = distance(term, word.text);
+            if (d <= maxDistance && !word.tasks.isEmpty()) {
+                matches.put(word, d);
+            }
+            int from = Math.max(1, d - maxDistance);
+            int to = Math.min(word.children.length - 1, d + maxDistance);
+            for (int i = from; i <= to; i++) {
+                if (word.children[i] != null) {
+                    pending.push(word.children[i]);
+                }
+            }
+        }
+        return matches;
+    }
+
+    private static int maxDistance(String word) {
+        if (word.length() <= 2) {
+            return 0;
+        }
+        return word.length() <= 5 ? 1 : 2;
+    }
+
+    private void insert(Word word) {
+        if (root == null) {
+            root = word;
+            return;
+        }
+        Word parent = root;
+        while (true) {
+            int d = distance(word.text, parent.text);
+            if (d >= parent.children.length) {
+                parent.children = Arrays.copyOf(parent.children, d + 1);
+            }
+            if (parent.children[d] == null) {
+                parent.children[d] = word;
+                return;
+            }
+            parent = parent.children[d];
+        }
+    }
+
+    /**
+     * Rebuilds the tree from the words still in use.
+     */
+    private void rebuild() {
+        root = null;
+        vocabulary.values().removeIf(word -> word.tasks.isEmpty());
+        for (Word word : vocabulary.values()) {
+            word.children = new Word[0];
+            insert(word);
+        }
+        unusedWords = 0;
+    }
+
+    /**
+     * Splits text into lower-case words of letters and digits, without repeats.
+     * Numbers are left out, as a number one digit away from another is a different number
+     * rather than a typo, and numbered tasks would otherwise fill the vocabulary.
+     */
+    private static String[] words(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        int start = -1;
+        boolean hasLetter = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            boolean isWordChar = Character.isLetterOrDigit(c);
+            if (isWordChar && start == -1) {
+                start = i;
+            }
+            hasLetter |= Character.isLetter(c);
+            if (!isWordChar && start != -1) {
+                if (hasLetter) {
+                    words.add(text.substring(start, i).toLowerCase());
+                }
+                start = -1;
+                hasLetter = false;
+            }
+        }
+        return words.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the Levenshtein distance between two words, using two rows of the usual table.
+     * The rows are reused between calls, as a search computes thousands of distances.
+     */
+    private int distance(String a, String b) {
+        if (previousRow.length <= b.length()) {
+            previousRow = new int[b.length() + 1];
+            currentRow = new int[b.length() + 1];
+        }
+        int[] previous = previousRow;
+        int[] current = currentRow;
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= b.length(); j++) {
+                int substitute = previous[j - 1] + (c == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitute, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,238 @@
+package agnes.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.StringJoiner;
+
+/**
+ * Records which occurrences of a recurring task have been completed.
+ * <p>
+ * Occurrences are usually completed in order, so the state is kept as a count of
+ * completed leading occurrences plus a sorted array of any completed occurrences
+ * after the first pending one. A series completed in order therefore takes a
+ * single {@code int}, however many occurrences it has.
+ */
+public class OccurrenceMarks {
+    /** Most occurrences {@link #parse(String)} accepts after the first pending one. */
+    public static final int MAX_MARKED_AFTER_PREFIX = 1 << 16;
+    /**
+     * The highest occurrence index that can be marked. With an interval of at most
+     * {@value Recurrence#MAX_YEARS} years, it stays inside the range of {@code LocalDateTime}.
+     */
+    public static final int MAX_OCCURRENCE = 1_000_000;
+    private static final int[] NONE = new int[0];
+
+    private int donePrefix;
+    private int[] doneAfterPrefix = NONE;
+
+    /**
+     * Returns whether the given occurrence has been completed.
+     *
+     * @param k The index of the occurrence.
+     * @return  {@code true} if the occurrence is marked as done.
+     */
+    public boolean isMarked(long k) {
+        if (k < donePrefix) {
+            return true;
+        }
+        return k <= Integer.MAX_VALUE && Arrays.binarySearch(doneAfterPrefix, (int) k) >= 0;
+    }
+
+    /**
+     * Returns the index of the earliest occurrence that has not been completed.
+     *
+     * @return The first pending occurrence.
+     */
+    public int getFirstUnmarked() {
+        return donePrefix;
+    }
+
+    /**
+     * Returns the index of the latest completed occurrence.
+     *
+     * @return The last marked occurrence, or -1 if none is marked.
+     */
+    public int getLastMarked() {
+        if (doneAfterPrefix.length > 0) {
+            return doneAfterPrefix[doneAfterPrefix.length - 1];
+        }
+        return donePrefix - 1;
+    }
+
+    /**
+     * Returns the completed occurrences after a pending one.
+     *
+     * @param k The index of an occurrence that is not done, at or after {@link #getFirstUnmarked()}.
+     * @return  A copy of the marked occurrences after {@code k}, in ascending order.
+     */
+    int[] getMarkedAfter(long k) {
+        int from = 0;
+        while (from < doneAfterPrefix.length && doneAfterPrefix[from] <= k) {
+            from++;
+        }
+        return Arrays.copyOfRange(doneAfterPrefix, from, doneAfterPrefix.length);
+    }
+
+    /**
+     * Marks an occurrence as completed.
+     *
+     * @param k The index of the occurrence.
+     * @throws IllegalArgumentException If {@code k} is negative or above {@link #MAX_OCCURRENCE}.
+     */
+    public void mark(int k) {
+        if (k < 0 || k > MAX_OCCURRENCE) {
+            throw new IllegalArgumentException("Occurrence " + k + " is out of range");
+        }
+        if (isMarked(k)) {
+            return;
+        }
+        if (k == donePrefix) {
+            donePrefix++;
+            absorbIntoPrefix();
+            return;
+        }
+        int insertAt = -Arrays.binarySearch(doneAfterPrefix, k) - 1;
+        int[] grown = new int[doneAfterPrefix.length + 1];
+        System.arraycopy(doneAfterPrefix, 0, grown, 0, insertAt);
+        grown[insertAt] = k;
+        System.arraycopy(doneAfterPrefix, insertAt, grown, insertAt + 1, doneAfterPrefix.length - insertAt);
+        doneAfterPrefix = grown;
+    }
+
+    /**
+     * Marks an occurrence as not completed.
+     *
+     * @param k The index of the occurrence.
+     */
+    public void unmark(int k) {
+        if (!isMarked(k)) {
+            return;
+        }
+        if (k < donePrefix) {
+            // Occurrences between k and the old prefix stay done, now outside the prefix
+            int[] moved = new int[donePrefix - k - 1 + doneAfterPrefix.length];
+            for (int i = k + 1; i < donePrefix; i++) {
+                moved[i - k - 1] = i;
+            }
+            System.arraycopy(doneAfterPrefix, 0, moved, donePrefix - k - 1, doneAfterPrefix.length);
+            doneAfterPrefix = moved;
+            donePrefix = k;
+            return;
+        }
+        int removeAt = Arrays.binarySearch(doneAfterPrefix, k);
+        int[] shrunk = new int[doneAfterPrefix.length - 1];
+        System.arraycopy(doneAfterPrefix, 0, shrunk, 0, removeAt);
+        System.arraycopy(doneAfterPrefix, removeAt + 1, shrunk, removeAt, shrunk.length - removeAt);
+        doneAfterPrefix = shrunk;
+    }
+
+    /**
+     * Returns whether no occurrence has been completed.
+     *
+     * @return {@code true} if nothing is marked.
+     */
+    public boolean isEmpty() {
+        return donePrefix == 0 && doneAfterPrefix.length == 0;
+    }
+
+    /**
+     * Converts the marks into ranges of occurrence indices for the storage file, e.g. {@code 0-3,7}.
+     *
+     * @return The file-string representation of the marks.
+     */
+    public String toFileFormat() {
+        StringJoiner joiner = new StringJoiner(",");
+        if (donePrefix > 0) {
+            joiner.add(donePrefix == 1 ? "0" : "0-" + (donePrefix - 1));
+        }
+        int i = 0;
+        while (i < doneAfterPrefix.length) {
+            int j = i;
+            while (j + 1 < doneAfterPrefix.length && doneAfterPrefix[j + 1] == doneAfterPrefix[j] + 1) {
+                j++;
+            }
+            joiner.add(i == j ? String.valueOf(doneAfterPrefix[i]) : doneAfterPrefix[i] + "-" + doneAfterPrefix[j]);
+            i = j + 1;
+        }
+        return joiner.toString();
+    }
+
+    /**
+     * Parses marks written by {@link #toFileFormat()}.
+     * <p>
+     * The ranges are sorted and merged first, so the marks are built in one pass, and
+     * ranges that start within the completed prefix just extend it, however long they are.
+     * Occurrences marked after the first pending one are kept one by one, so at most
+     * {@value #MAX_MARKED_AFTER_PREFIX} of them are accepted.
+     * </p>
+     *
+     * @param input The ranges of completed occurrences.
+     * @return      The parsed marks.
+     * @throws NumberFormatException If the input is malformed, has a negative or backwards
+     *                               range, marks an occurrence above {@link #MAX_OCCURRENCE},
+     *                               or marks too many occurrences.
+     */
+    public static OccurrenceMarks parse(String input) throws NumberFormatException {
+        List<int[]> ranges = new ArrayList<>();
+        for (String range : input.strip().split(",")) {
+            if (range.isBlank()) {
+                continue;
+            }
+            String[] ends = range.strip().split("-");
+            if (ends.length > 2) {
+                throw new NumberFormatException("Malformed range: " + range);
+            }
+            int low = Integer.parseInt(ends[0].strip());
+            int high = ends.length > 1 ? Integer.parseInt(ends[1].strip()) : low;
+            if (low < 0 || high < low || high > MAX_OCCURRENCE) {
+                throw new NumberFormatException("Invalid range: " + range);
+            }
+            ranges.add(new int[] {low, high});
+        }
+        ranges.sort(Comparator.comparingInt(r -> r[0]));
+
+        OccurrenceMarks marks = new OccurrenceMarks();
+        int[] after = NONE;
+        int count = 0;
+        for (int[] range : ranges) {
+            int low = range[0];
+            int high = range[1];
+            if (count == 0 && low <= marks.donePrefix) {
+                marks.donePrefix = Math.max(marks.donePrefix, high + 1);
+                continue;
+            }
+            if (count > 0) {
+                // Sorted by start, so only the last marked occurrence can overlap this range
+                low = Math.max(low, after[count - 1] + 1);
+            }
+            if (low > high) {
+                continue;
+            }
+            if ((long) count + high - low + 1 > MAX_MARKED_AFTER_PREFIX) {
+                throw new NumberFormatException("Too many occurrences marked out of order");
+            }
+            int needed = count + high - low + 1;
+            if (needed > after.length) {
+                after = Arrays.copyOf(after, Math.min(MAX_MARKED_AFTER_PREFIX, Math.max(needed, after.length * 2)));
+            }
+            for (int k = low; k <= high; k++) {
+                after[count++] = k;
+            }
+        }
+        marks.doneAfterPrefix = count == 0 ? NONE : Arrays.copyOf(after, count);
+        return marks;
+    }
+
+    private void absorbIntoPrefix() {
+        int absorbed = 0;
+        while (absorbed < doneAfterPrefix.length && doneAfterPrefix[absorbed] == donePrefix) {
+            donePrefix++;
+            absorbed++;
+        }
+        if (absorbed > 0) {
+            doneAfterPrefix = Arrays.copyOfRange(doneAfterPrefix, absorbed, doneAfterPrefix.length);
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package agnes.task;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Represents how often a recurring {@code Deadline} or {@code Event} repeats,
+ * e.g. every month or every 2 weeks.
+ * <p>
+ * A recurrence is stored once with its task. Occurrences are never materialised
+ * as separate tasks; they are computed from the first occurrence when needed.
+ * Occurrence {@code k} is always computed from the first one, so a task on the
+ * 31st repeating monthly falls on the last day of shorter months and returns to
+ * the 31st afterwards.
+ * <p>
+ * The interval is at most {@value #MAX_YEARS} years in any unit. With at most
+ * {@link OccurrenceMarks#MAX_OCCURRENCE} occurrences tracked, every occurrence of a
+ * task dated in a four-digit year stays far inside the range of {@code LocalDateTime}.
+ * </p>
+ */
+public class Recurrence {
+    /**
+     * Units a task can repeat in.
+     */
+    public enum Unit {
+        DAY(ChronoUnit.DAYS, MAX_YEARS * 366),
+        WEEK(ChronoUnit.WEEKS, MAX_YEARS * 53),
+        MONTH(ChronoUnit.MONTHS, MAX_YEARS * 12),
+        YEAR(ChronoUnit.YEARS, MAX_YEARS);
+
+        private final ChronoUnit chronoUnit;
+        private final int maxInterval;
+
+        Unit(ChronoUnit chronoUnit, int maxInterval) {
+            this.chronoUnit = chronoUnit;
+            this.maxInterval = maxInterval;
+        }
+    }
+
+    /** The longest interval between occurrences, in years. */
+    public static final int MAX_YEARS = 100;
+
+    private final int interval;
+    private final Unit unit;
+
+    /**
+     * Creates a recurrence repeating every {@code interval} units.
+     *
+     * @param interval  The number of units between occurrences, at least 1 and at most
+     *                  {@value #MAX_YEARS} years' worth.
+     * @param unit      The unit of the interval.
+     * @throws IllegalArgumentException If the interval is out of range.
+     */
+    public Recurrence(int interval, Unit unit) {
+        if (interval < 1) {
+            throw new IllegalArgumentException("A task can only repeat every 1 or more days, weeks, months or years");
+        }
+        if (interval > unit.maxInterval) {
+            throw new IllegalArgumentException("A task can repeat at most every " + unit.maxInterval + " "
+                    + unit.name().toLowerCase() + "s");
+        }
+        this.interval = interval;
+        this.unit = unit;
+    }
+
+    /**
+     * Returns the number of units between occurrences.
+     *
+     * @return The interval, at least 1.
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * Returns the unit of the interval between occurrences.
+     *
+     * @return The unit.
+     */
+    public Unit getUnit() {
+        return unit;
+    }
+
+    /**
+     * Parses a recurrence as typed after {@code /every}, or as stored after {@code every}.
+     * <p>
+     * Accepts an optional count followed by a unit, e.g. {@code month}, {@code 2 weeks}
+     * or {@code 3 days}. The adverbs {@code daily}, {@code weekly}, {@code monthly} and
+     * {@code yearly} are accepted too.
+     * </p>
+     *
+     * @param input The recurrence text.
+     * @return      The parsed recurrence.
+     * @throws IllegalArgumentException If the text is not a valid recurrence.
+     */
+    public static Recurrence parse(String input) throws IllegalArgumentException {
+        String[] words = input.strip().toLowerCase().split("\\s+");
+        int interval = 1;
+        String unitWord = words[0];
+        if (words.length == 2) {
+            try {
+                interval = Integer.parseInt(words[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Repeat using e.g. '/every week' or '/every 2 weeks'");
+            }
+            unitWord = words[1];
+        } else if (words.length != 1) {
+            throw new IllegalArgumentException("Repeat using e.g. '/every week' or '/every 2 weeks'");
+        }
+
+        switch (unitWord) {
+        case "day":
+        case "days":
+        case "daily":
+            return new Recurrence(interval, Unit.DAY);
+        case "week":
+        case "weeks":
+        case "weekly":
+            return new Recurrence(interval, Unit.WEEK);
+        case "month":
+        case "months":
+        case "monthly":
+            return new Recurrence(interval, Unit.MONTH);
+        case "year":
+        case "years":
+        case "yearly":
+            return new Recurrence(interval, Unit.YEAR);
+        default:
+            throw new IllegalArgumentException("I can only repeat tasks every day, week, month or year");
+        }
+    }
+
+    /**
+     * Returns occurrence {@code k} of a series starting at {@code first}.
+     *
+     * @param first The first occurrence, which is occurrence 0.
+     * @param k     The index of the occurrence.
+     * @return      The date-time of the occurrence.
+     */
+    public LocalDateTime getOccurrence(LocalDateTime first, long k) {
+        return first.plus(k * interval, unit.chronoUnit);
+    }
+
+    /**
+     * Returns the index of the last occurrence at or before {@code time}.
+     *
+     * @param first The first occurrence, which is occurrence 0.
+     * @param time  The date-time to look up.
+     * @return      The index of the occurrence, or -1 if {@code time} is before the first occurrence.
+     */
+    public long getIndexAtOrBefore(LocalDateTime first, LocalDateTime time) {
+        if (time.isBefore(first)) {
+            return -1;
+        }
+        // Unit arithmetic gets within one step; month lengths decide the rest
+        long k = unit.chronoUnit.between(first, time) / interval;
+        while (k > 0 && getOccurrence(first, k).isAfter(time)) {
+            k--;
+        }
+        while (!getOccurrence(first, k + 1).isAfter(time)) {
+            k++;
+        }
+        return k;
+    }
+
+    @Override
+    public String toString() {
+        String name = unit.name().toLowerCase();
+        return interval == 1 ? "every " + name : "every " + interval + " " + name + "s";
+    }
+}
@@ -0,0 +1,44 @@
+package agnes.task;
+
+/**
+ * Represents the orders a {@code TaskList} can be listed in.
+ */
+public enum SortKey {
+    /** Deadlines and events by when they are due or start, followed by todos. */
+    BY("date"),
+    /** The order the tasks were added in. */
+    ADDED("when added"),
+    /** Tasks that are not done first, each group in the order the tasks were added. */
+    STATUS("status");
+
+    private final String description;
+
+    SortKey(String description) {
+        this.description = description;
+    }
+
+    /**
+     * Converts a sort key typed by the user into a {@code SortKey}, ignoring case.
+     *
+     * @param input The sort key, e.g. {@code by}.
+     * @return      The matching {@code SortKey}.
+     * @throws IllegalArgumentException If there is no such sort key.
+     */
+    public static SortKey from(String input) throws IllegalArgumentException {
+        for (SortKey key : values()) {
+            if (key.name().equalsIgnoreCase(input)) {
+                return key;
+            }
+        }
+        throw new IllegalArgumentException("I can only sort by 'by', 'added' or 'status'");
+    }
+
+    /**
+     * Returns how the order is described to the user, e.g. {@code "date"}.
+     *
+     * @return The description of the order.
+     */
+    public String getDescription() {
+        return description;
+    }
+}
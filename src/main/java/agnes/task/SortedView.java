@@ -0,0 +1,168 @@
+package agnes.task;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.ToLongFunction;
+
+/**
+ * The tasks of a {@code TaskList} kept in order of a key, e.g. their due dates.
+ * <p>
+ * The tasks are held in a treap ordered by the key, with ties kept in the order the
+ * tasks were added. Adding, removing or re-keying a task costs O(log n), and the first
+ * {@code k} tasks are read in O(log n + k), so showing part of a sorted list does not
+ * sort, or even visit, the rest of it.
+ * </p>
+ */
+class SortedView {
+    private final ToLongFunction<Task> key;
+    private final Map<Task, Node> nodes = new IdentityHashMap<>();
+    private final Random random = new Random(2103);
+    private Node root;
+    private long nextSequence;
+
+    /**
+     * Creates an empty view.
+     *
+     * @param key What the tasks are ordered by, smallest first.
+     */
+    SortedView(ToLongFunction<Task> key) {
+        this.key = key;
+    }
+
+    /**
+     * Starts tracking a task that was added to the list.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        insert(new Node(t, key.applyAsLong(t), nextSequence++, random.nextInt()));
+    }
+
+    /**
+     * Stops tracking a task that was removed from the list.
+     *
+     * @param t The task that was removed.
+     */
+    void remove(Task t) {
+        Node node = nodes.remove(t);
+        if (node == null) {
+            return;
+        }
+        Node[] before = split(root, node.key, node.sequence);
+        Node[] after = split(before[1], node.key, node.sequence + 1);
+        assert after[0] == node : "Only the removed task should have its key";
+        root = merge(before[0], after[1]);
+    }
+
+    /**
+     * Moves a task whose key may have changed, keeping its place among tasks with the same key.
+     *
+     * @param t The task that changed.
+     */
+    void update(Task t) {
+        Node node = nodes.get(t);
+        if (node == null || node.key == key.applyAsLong(t)) {
+            return;
+        }
+        remove(t);
+        insert(new Node(t, key.applyAsLong(t), node.sequence, node.priority));
+    }
+
+    /**
+     * Returns the first tasks in order.
+     *
+     * @param limit The most tasks to return.
+     * @return      Up to {@code limit} tasks, smallest key first.
+     */
+    List<Task> first(int limit) {
+        List<Task> results = new ArrayList<>(Math.min(limit, nodes.size()));
+        Deque<Node> path = new ArrayDeque<>();
+        Node n = root;
+        while (results.size() < limit && (n != null || !path.isEmpty())) {
+            if (n != null) {
+                path.push(n);
+                n = n.left;
+            } else {
+                Node next = path.pop();
+                results.add(next.task);
+                n = next.right;
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Returns the number of tracked tasks.
+     *
+     * @return The number of tasks in the view.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    private void insert(Node node) {
+        nodes.put(node.task, node);
+        Node[] parts = split(root, node.key, node.sequence);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Splits a subtree into the nodes ordered before the given key and the rest.
+     */
+    private static Node[] split(Node n, long key, long sequence) {
+        if (n == null) {
+            return new Node[] {null, null};
+        }
+        boolean isBefore = n.key < key || (n.key == key && n.sequence < sequence);
+        if (isBefore) {
+            Node[] parts = split(n.right, key, sequence);
+            n.right = parts[0];
+            return new Node[] {n, parts[1]};
+        }
+        Node[] parts = split(n.left, key, sequence);
+        n.left = parts[1];
+        return new Node[] {parts[0], n};
+    }
+
+    /**
+     * Joins two subtrees where every node of {@code a} is ordered before every node of {@code b}.
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return a;
+        }
+        b.left = merge(a, b.left);
+        return b;
+    }
+
+    /**
+     * A task in the treap.
+     */
+    private static class Node {
+        private final Task task;
+        private final long key;
+        private final long sequence;
+        private final int priority;
+        private Node left;
+        private Node right;
+
+        Node(Task task, long key, long sequence, int priority) {
+            this.task = task;
+            this.key = key;
+            this.sequence = sequence;
+            this.priority = priority;
+        }
+    }
+}
@@ -1,6 +1,11 @@
 package agnes.task;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import agnes.util.DateTimeUtil;
 
 /**
  * Represents a generic task with a description and completion status.
@@ -10,30 +15,123 @@ import java.time.LocalDate;
  * extend this class to include specific behavior.
  */
 public abstract class Task {
+    /** Epoch minute returned by tasks that have no date-time. */
+    static final long NO_DATE_TIME = Long.MIN_VALUE;
+
+    /** Most occurrences of one recurring task expanded for a single query. */
+    static final int MAX_EXPANDED_OCCURRENCES = 1000;
+
+    private static final String[] NO_TAGS = new String[0];
+
     private String message;
     private boolean isComplete;
+    private final Recurrence recurrence;
+    private OccurrenceMarks occurrenceMarks;
+    private String[] tags = NO_TAGS;
 
     /**
      * Creates a task with the specified description.
-     * The task is initially marked as incomplete.
+     * The task is initially marked as incomplete. Descriptions are shared
+     * with other tasks through the {@link DescriptionPool}.
      *
      * @param message The description of the task.
      */
     public Task(String message) {
-        this.message = message;
+        this(message, null);
+    }
+
+    /**
+     * Creates a task with the specified description that may repeat.
+     *
+     * @param message       The description of the task.
+     * @param recurrence    How often the task repeats, or {@code null} if it does not.
+     */
+    protected Task(String message, Recurrence recurrence) {
+        this.message = DescriptionPool.getInstance().intern(message);
         this.isComplete = false;
+        this.recurrence = recurrence;
+        this.occurrenceMarks = recurrence == null ? null : new OccurrenceMarks();
     }
 
-    /** Marks a task as complete. */
+    /**
+     * Marks a task as complete.
+     * <p>
+     * For a recurring task, only the earliest pending occurrence is marked.
+     */
     public void setMarked() {
+        if (isRecurring()) {
+            occurrenceMarks.mark(occurrenceMarks.getFirstUnmarked());
+            return;
+        }
         this.isComplete = true;
     }
 
-    /** Marks a task as incomplete. */
+    /**
+     * Marks a task as incomplete.
+     * <p>
+     * For a recurring task, only the latest completed occurrence is unmarked.
+     */
     public void setUnmarked() {
+        if (isRecurring()) {
+            int last = occurrenceMarks.getLastMarked();
+            if (last >= 0) {
+                occurrenceMarks.unmark(last);
+            }
+            return;
+        }
         this.isComplete = false;
     }
 
+    /**
+     * Returns whether the task has been marked as complete.
+     * A recurring task always has another occurrence to do, so it is never complete.
+     *
+     * @return {@code true} if the task is complete, otherwise {@code false}.
+     */
+    public boolean isComplete() {
+        return this.isComplete;
+    }
+
+    /**
+     * Returns whether this task repeats.
+     *
+     * @return {@code true} if the task has a recurrence.
+     */
+    public boolean isRecurring() {
+        return recurrence != null;
+    }
+
+    /**
+     * Returns how often this task repeats.
+     *
+     * @return The recurrence, or {@code null} if the task does not repeat.
+     */
+    public Recurrence getRecurrence() {
+        return recurrence;
+    }
+
+    /**
+     * Returns which occurrences of this recurring task have been completed.
+     *
+     * @return The occurrence marks, or {@code null} if the task does not repeat.
+     */
+    public OccurrenceMarks getOccurrenceMarks() {
+        return occurrenceMarks;
+    }
+
+    /**
+     * Replaces the completed occurrences of this recurring task, e.g. when loading from storage.
+     *
+     * @param occurrenceMarks The completed occurrences.
+     * @throws IllegalStateException If the task does not repeat.
+     */
+    public void setOccurrenceMarks(OccurrenceMarks occurrenceMarks) {
+        if (!isRecurring()) {
+            throw new IllegalStateException("Only recurring tasks have occurrences");
+        }
+        this.occurrenceMarks = occurrenceMarks;
+    }
+
     /**
      * Returns the description of the {@code Task}.
      *
@@ -49,7 +147,69 @@ public abstract class Task {
      * @param newMessage    The new message to be assigned as the description.
      */
     public void setMessage(String newMessage) {
-        this.message = newMessage;
+        this.message = DescriptionPool.getInstance().intern(newMessage);
+    }
+
+    /**
+     * Returns the tags of the {@code Task}, without their {@code #}, in the order they were given.
+     *
+     * @return The tags, which may be empty.
+     */
+    public List<String> getTags() {
+        return List.of(tags);
+    }
+
+    /**
+     * Returns whether the {@code Task} has a tag.
+     *
+     * @param tag   A tag as returned by {@link #normalizeTag(String)}.
+     * @return      {@code true} if the task has the tag.
+     */
+    public boolean hasTag(String tag) {
+        for (String t : tags) {
+            if (t.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the tags of the {@code Task}. Repeated tags are kept once.
+     *
+     * @param newTags   The tags, with or without their {@code #}.
+     * @throws IllegalArgumentException If a tag is not made of letters, digits, {@code _} and {@code -}.
+     */
+    public void setTags(List<String> newTags) throws IllegalArgumentException {
+        List<String> normalized = new ArrayList<>(newTags.size());
+        for (String tag : newTags) {
+            String t = normalizeTag(tag);
+            if (!normalized.contains(t)) {
+                normalized.add(t);
+            }
+        }
+        this.tags = normalized.isEmpty() ? NO_TAGS : normalized.toArray(new String[0]);
+    }
+
+    /**
+     * Returns a tag in the form tasks store it: lower case and without its {@code #}.
+     *
+     * @param tag   The tag, with or without its {@code #}.
+     * @return      The normalized tag.
+     * @throws IllegalArgumentException If the tag is not made of letters, digits, {@code _} and {@code -}.
+     */
+    public static String normalizeTag(String tag) throws IllegalArgumentException {
+        String t = (tag.startsWith("#") ? tag.substring(1) : tag).toLowerCase();
+        if (t.isEmpty()) {
+            throw new IllegalArgumentException("A tag needs a name after the #");
+        }
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_' && c != '-') {
+                throw new IllegalArgumentException("Tags can only have letters, digits, _ and -: #" + t);
+            }
+        }
+        return t;
     }
 
     /**
@@ -63,7 +223,12 @@ public abstract class Task {
 
     @Override
     public String toString() {
-        return String.format("[%s] %s", this.getStatusIcon(), this.getMessage());
+        StringBuilder sb = new StringBuilder();
+        sb.append('[').append(getStatusIcon()).append("] ").append(getMessage());
+        for (String tag : tags) {
+            sb.append(" #").append(tag);
+        }
+        return sb.toString();
     }
 
     /**
@@ -78,6 +243,39 @@ public abstract class Task {
                 this.getMessage());
     }
 
+    /**
+     * Returns the trailing storage fields describing the recurrence, e.g.
+     * {@code " | every month | done 0-3"}, to be appended after the dates.
+     *
+     * @return The recurrence fields, or an empty string if the task does not repeat.
+     */
+    protected String toRecurrenceFileFormat() {
+        if (!isRecurring()) {
+            return "";
+        }
+        String fields = " | " + recurrence;
+        return occurrenceMarks.isEmpty() ? fields : fields + " | done " + occurrenceMarks.toFileFormat();
+    }
+
+    /**
+     * Returns the trailing storage field holding the tags, e.g. {@code " | tags work,urgent"},
+     * to be appended after every other field.
+     *
+     * @return The tags field, or an empty string if the task has no tags.
+     */
+    protected String toTagFileFormat() {
+        return tags.length == 0 ? "" : " | tags " + String.join(",", tags);
+    }
+
+    /**
+     * Returns the text appended to the dates of a recurring task when displayed, e.g. {@code ", every month"}.
+     *
+     * @return The recurrence text, or an empty string if the task does not repeat.
+     */
+    protected String toRecurrenceString() {
+        return isRecurring() ? ", " + recurrence : "";
+    }
+
     /**
      * Determines whether this task occurs on the specified date.
      * <p>
@@ -92,6 +290,181 @@ public abstract class Task {
         return false;
     }
 
+    /**
+     * Returns when this task starts or is due, as an epoch minute.
+     * <p>
+     * Used by {@code TaskList} to order tasks in time. The base {@code Task}
+     * has no date-time.
+     *
+     * @return The epoch minute, or {@link #NO_DATE_TIME} if the task has no date-time.
+     */
+    long getStartEpochMinute() {
+        return NO_DATE_TIME;
+    }
+
+    /**
+     * Returns when this task ends or is due, as an epoch minute.
+     *
+     * @return The epoch minute, or {@link #NO_DATE_TIME} if the task has no date-time.
+     * @see #getStartEpochMinute()
+     */
+    long getEndEpochMinute() {
+        return NO_DATE_TIME;
+    }
+
+    /**
+     * Returns the first day this task falls on, as an epoch day.
+     * <p>
+     * Used by {@code TaskList} to keep a compact column of task dates. Must agree
+     * with {@link #fallsOnDate(LocalDate)}: the base {@code Task} falls on no day
+     * at all, which is encoded as an empty range.
+     *
+     * @return The first epoch day, or {@code Integer.MAX_VALUE} if the task has no date.
+     */
+    int getFirstEpochDay() {
+        return Integer.MAX_VALUE;
+    }
+
+    /**
+     * Returns the last day this task falls on, as an epoch day.
+     *
+     * @return The last epoch day, or {@code Integer.MIN_VALUE} if the task has no date.
+     * @see #getFirstEpochDay()
+     */
+    int getLastEpochDay() {
+        return Integer.MIN_VALUE;
+    }
+
+    /**
+     * Returns the next time after {@code after} at which this task is due or starts.
+     * <p>
+     * A one-off task has at most one such time, and none once it is complete.
+     * A recurring task skips the occurrences that are already done.
+     * </p>
+     *
+     * @param after The date-time to look after, exclusive.
+     * @return      The next due or start date-time, or {@code null} if there is none.
+     */
+    public LocalDateTime getNextDateTimeAfter(LocalDateTime after) {
+        UpcomingOccurrence next = getNextOccurrenceAfter(after);
+        return next == null ? null : next.getTime();
+    }
+
+    /**
+     * Returns the next occurrence after {@code after}, as in {@link #getNextDateTimeAfter(LocalDateTime)},
+     * together with what is needed to find the later ones without looking at this task again.
+     *
+     * @param after The date-time to look after, exclusive.
+     * @return      The next occurrence, or {@code null} if there is none.
+     */
+    public UpcomingOccurrence getNextOccurrenceAfter(LocalDateTime after) {
+        long start = getStartEpochMinute();
+        if (start == NO_DATE_TIME || isComplete()) {
+            return null;
+        }
+        if (!isRecurring()) {
+            LocalDateTime startTime = DateTimeUtil.fromEpochMinute(start);
+            return startTime.isAfter(after) ? new UpcomingOccurrence(startTime, null, null, 0, null) : null;
+        }
+        LocalDateTime first = DateTimeUtil.fromEpochMinute(getFirstOccurrenceEpochMinute());
+        long k = Math.max(occurrenceMarks.getFirstUnmarked(), recurrence.getIndexAtOrBefore(first, after) + 1);
+        while (occurrenceMarks.isMarked(k)) {
+            k++;
+        }
+        return new UpcomingOccurrence(recurrence.getOccurrence(first, k), recurrence, first, k,
+                occurrenceMarks.getMarkedAfter(k));
+    }
+
+    /**
+     * Returns when the first occurrence of a recurring task starts or is due, as an epoch minute.
+     *
+     * @return The epoch minute, or {@link #NO_DATE_TIME} if the task has no date-time.
+     */
+    long getFirstOccurrenceEpochMinute() {
+        return NO_DATE_TIME;
+    }
+
+    /**
+     * Returns how long each occurrence of this task lasts, in minutes.
+     *
+     * @return The duration, which is 0 for tasks that happen at one instant.
+     */
+    long getDurationMinutes() {
+        return 0;
+    }
+
+    /**
+     * Creates a one-off copy of this task standing for a single occurrence.
+     * Only tasks with dates can repeat, so the base {@code Task} has no occurrences.
+     *
+     * @param startEpochMinute  When the occurrence starts or is due.
+     * @return                  The occurrence, or {@code null} if this task cannot repeat.
+     */
+    Task createOccurrence(long startEpochMinute) {
+        return null;
+    }
+
+    /**
+     * Returns when the earliest pending occurrence of this recurring task starts or is due.
+     *
+     * @return The epoch minute of the next occurrence to do.
+     */
+    long getNextOccurrenceEpochMinute() {
+        LocalDateTime first = DateTimeUtil.fromEpochMinute(getFirstOccurrenceEpochMinute());
+        return DateTimeUtil.toEpochMinute(recurrence.getOccurrence(first, occurrenceMarks.getFirstUnmarked()));
+    }
+
+    /**
+     * Expands this recurring task into the occurrences overlapping a range of epoch minutes.
+     * <p>
+     * Occurrences are created on demand and never stored, so a task repeating forever
+     * costs only as much as the range being looked at. Each occurrence is a one-off
+     * task carrying the dates and completion status of that occurrence. At most
+     * {@link #MAX_EXPANDED_OCCURRENCES} occurrences are returned.
+     * </p>
+     *
+     * @param from  The start of the range, inclusive.
+     * @param to    The end of the range, inclusive.
+     * @return      The occurrences overlapping the range, in time order.
+     */
+    List<Task> getOccurrencesBetween(long from, long to) {
+        List<Task> occurrences = new ArrayList<>();
+        if (!isRecurring()) {
+            return occurrences;
+        }
+        LocalDateTime first = DateTimeUtil.fromEpochMinute(getFirstOccurrenceEpochMinute());
+        long duration = getDurationMinutes();
+        // The earliest occurrence that can still be running at 'from' starts no earlier than this
+        long k = Math.max(0, recurrence.getIndexAtOrBefore(first, DateTimeUtil.fromEpochMinute(from - duration)));
+        while (occurrences.size() < MAX_EXPANDED_OCCURRENCES) {
+            long start = DateTimeUtil.toEpochMinute(recurrence.getOccurrence(first, k));
+            if (start > to) {
+                break;
+            }
+            if (start + duration >= from) {
+                Task occurrence = createOccurrence(start);
+                occurrence.tags = tags;
+                if (occurrenceMarks.isMarked(k)) {
+                    occurrence.setMarked();
+                }
+                occurrences.add(occurrence);
+            }
+            k++;
+        }
+        return occurrences;
+    }
+
+    /**
+     * Returns whether any occurrence of this recurring task falls on the given date.
+     *
+     * @param date The date to check.
+     * @return {@code true} if an occurrence overlaps the date.
+     */
+    boolean hasOccurrenceOn(LocalDate date) {
+        long dayStart = date.toEpochDay() * DateTimeUtil.MINUTES_PER_DAY;
+        return !getOccurrencesBetween(dayStart, dayStart + DateTimeUtil.MINUTES_PER_DAY - 1).isEmpty();
+    }
+
     /**
      * Updates a field of the task with the specified new value.
      *
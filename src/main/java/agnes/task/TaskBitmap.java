@@ -0,0 +1,310 @@
+package agnes.task;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A compressed set of task ids, in the style of a roaring bitmap.
+ * <p>
+ * Ids are split by their upper 16 bits into chunks of 65536. Each chunk that holds
+ * any ids keeps its lower 16 bits in a container: a sorted {@code char[]} while it holds
+ * at most {@value #ARRAY_LIMIT} ids, and a 1024-word {@code long[]} bitmap once it holds
+ * more. Either way a chunk takes at most 8 KiB, sparse tags stay small, and
+ * {@link #and(TaskBitmap)} combines chunks by probing the ids of an array or
+ * ANDing whole words of bitmaps, instead of looking at every task.
+ * </p>
+ */
+class TaskBitmap {
+    /** Largest number of ids kept in a sorted array rather than a bitmap. */
+    static final int ARRAY_LIMIT = 4096;
+    private static final int BITMAP_WORDS = 1024;
+
+    private char[] keys = new char[0];
+    private Object[] containers = new Object[0];
+    private int[] cardinalities = new int[0];
+    private int chunks;
+    private int size;
+
+    /**
+     * Adds an id to the set.
+     *
+     * @param id A non-negative id.
+     */
+    void add(int id) {
+        char key = (char) (id >>> 16);
+        char low = (char) id;
+        int i = findChunk(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, key, new char[] {low}, 1);
+            size++;
+            return;
+        }
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                words[low >>> 6] |= bit;
+                cardinalities[i]++;
+                size++;
+            }
+            return;
+        }
+        char[] values = (char[]) container;
+        int n = cardinalities[i];
+        int at = Arrays.binarySearch(values, 0, n, low);
+        if (at >= 0) {
+            return;
+        }
+        at = -at - 1;
+        if (n == ARRAY_LIMIT) {
+            long[] words = toBitmap(values, n);
+            words[low >>> 6] |= 1L << low;
+            containers[i] = words;
+        } else {
+            if (n == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_LIMIT, n * 2));
+                containers[i] = values;
+            }
+            System.arraycopy(values, at, values, at + 1, n - at);
+            values[at] = low;
+        }
+        cardinalities[i]++;
+        size++;
+    }
+
+    /**
+     * Removes an id from the set, if it is there.
+     *
+     * @param id A non-negative id.
+     */
+    void remove(int id) {
+        int i = findChunk((char) (id >>> 16));
+        if (i < 0) {
+            return;
+        }
+        char low = (char) id;
+        Object container = containers[i];
+        if (container instanceof long[]) {
+            long[] words = (long[]) container;
+            long bit = 1L << low;
+            if ((words[low >>> 6] & bit) == 0) {
+                return;
+            }
+            words[low >>> 6] &= ~bit;
+            if (--cardinalities[i] == ARRAY_LIMIT) {
+                containers[i] = toArray(words, ARRAY_LIMIT);
+            }
+        } else {
+            char[] values = (char[]) container;
+            int n = cardinalities[i];
+            int at = Arrays.binarySearch(values, 0, n, low);
+            if (at < 0) {
+                return;
+            }
+            System.arraycopy(values, at + 1, values, at, n - at - 1);
+            cardinalities[i]--;
+        }
+        size--;
+        if (cardinalities[i] == 0) {
+            removeChunk(i);
+        }
+    }
+
+    /**
+     * Returns whether an id is in the set.
+     *
+     * @param id A non-negative id.
+     * @return   {@code true} if the id was added and not removed since.
+     */
+    boolean contains(int id) {
+        int i = findChunk((char) (id >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        return containsLow(containers[i], cardinalities[i], (char) id);
+    }
+
+    /**
+     * Removes every id from the set.
+     */
+    void clear() {
+        keys = new char[0];
+        containers = new Object[0];
+        cardinalities = new int[0];
+        chunks = 0;
+        size = 0;
+    }
+
+    /**
+     * Returns the number of ids in the set.
+     *
+     * @return The cardinality of the set.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns the ids in both this set and another.
+     *
+     * @param other The other set.
+     * @return      A new set of the common ids.
+     */
+    TaskBitmap and(TaskBitmap other) {
+        return combine(other, false);
+    }
+
+    /**
+     * Returns the ids in this set but not in another.
+     *
+     * @param other The set of ids to leave out.
+     * @return      A new set of the remaining ids.
+     */
+    TaskBitmap andNot(TaskBitmap other) {
+        return combine(other, true);
+    }
+
+    /**
+     * Passes every id in the set to an action, in ascending order.
+     *
+     * @param action What to do with each id.
+     */
+    void forEach(IntConsumer action) {
+        for (int i = 0; i < chunks; i++) {
+            int high = keys[i] << 16;
+            Object container = containers[i];
+            if (container instanceof long[]) {
+                long[] words = (long[]) container;
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    long word = words[w];
+                    while (word != 0) {
+                        action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] values = (char[]) container;
+                for (int j = 0; j < cardinalities[i]; j++) {
+                    action.accept(high | values[j]);
+                }
+            }
+        }
+    }
+
+    private TaskBitmap combine(TaskBitmap other, boolean isAndNot) {
+        TaskBitmap result = new TaskBitmap();
+        int j = 0;
+        for (int i = 0; i < chunks; i++) {
+            while (j < other.chunks && other.keys[j] < keys[i]) {
+                j++;
+            }
+            boolean isShared = j < other.chunks && other.keys[j] == keys[i];
+            if (!isShared && !isAndNot) {
+                continue;
+            }
+            if (containers[i] instanceof char[]) {
+                // Probing each id of a small array beats a pass over a bitmap
+                char[] values = (char[]) containers[i];
+                char[] kept = new char[cardinalities[i]];
+                int n = 0;
+                for (int k = 0; k < cardinalities[i]; k++) {
+                    boolean isInOther = isShared
+                            && containsLow(other.containers[j], other.cardinalities[j], values[k]);
+                    if (isInOther != isAndNot) {
+                        kept[n++] = values[k];
+                    }
+                }
+                if (n > 0) {
+                    result.insertChunk(result.chunks, keys[i], kept, n);
+                    result.size += n;
+                }
+                continue;
+            }
+            long[] words = ((long[]) containers[i]).clone();
+            if (isShared) {
+                long[] otherWords = other.containers[j] instanceof long[]
+                        ? (long[]) other.containers[j]
+                        : toBitmap((char[]) other.containers[j], other.cardinalities[j]);
+                for (int w = 0; w < BITMAP_WORDS; w++) {
+                    words[w] = isAndNot ? words[w] & ~otherWords[w] : words[w] & otherWords[w];
+                }
+            }
+            result.appendChunk(keys[i], words);
+        }
+        return result;
+    }
+
+    private static boolean containsLow(Object container, int cardinality, char low) {
+        if (container instanceof long[]) {
+            return (((long[]) container)[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) container, 0, cardinality, low) >= 0;
+    }
+
+    /**
+     * Adds a chunk after all existing chunks, choosing its container by its cardinality.
+     */
+    private void appendChunk(char key, long[] words) {
+        int cardinality = 0;
+        for (long word : words) {
+            cardinality += Long.bitCount(word);
+        }
+        if (cardinality == 0) {
+            return;
+        }
+        Object container = cardinality > ARRAY_LIMIT ? words : toArray(words, cardinality);
+        insertChunk(chunks, key, container, cardinality);
+        size += cardinality;
+    }
+
+    private static long[] toBitmap(char[] values, int n) {
+        long[] words = new long[BITMAP_WORDS];
+        for (int k = 0; k < n; k++) {
+            words[values[k] >>> 6] |= 1L << values[k];
+        }
+        return words;
+    }
+
+    private static char[] toArray(long[] words, int cardinality) {
+        char[] values = new char[cardinality];
+        int n = 0;
+        for (int w = 0; w < BITMAP_WORDS; w++) {
+            long word = words[w];
+            while (word != 0) {
+                values[n++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return values;
+    }
+
+    private int findChunk(char key) {
+        return Arrays.binarySearch(keys, 0, chunks, key);
+    }
+
+    private void insertChunk(int at, char key, Object container, int cardinality) {
+        if (chunks == keys.length) {
+            int capacity = Math.max(4, chunks * 2);
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cardinalities = Arrays.copyOf(cardinalities, capacity);
+        }
+        System.arraycopy(keys, at, keys, at + 1, chunks - at);
+        System.arraycopy(containers, at, containers, at + 1, chunks - at);
+        System.arraycopy(cardinalities, at, cardinalities, at + 1, chunks - at);
+        keys[at] = key;
+        containers[at] = container;
+        cardinalities[at] = cardinality;
+        chunks++;
+    }
+
+    private void removeChunk(int at) {
+        System.arraycopy(keys, at + 1, keys, at, chunks - at - 1);
+        System.arraycopy(containers, at + 1, containers, at, chunks - at - 1);
+        System.arraycopy(cardinalities, at + 1, cardinalities, at, chunks - at - 1);
+        chunks--;
+        containers[chunks] = null;
+    }
+}
@@ -0,0 +1,69 @@
+package agnes.task;
+
+/**
+ * Represents one change to a {@code TaskList}, as passed to a {@link TaskListener}.
+ */
+public class TaskChange {
+    /**
+     * The kinds of change a task can go through.
+     */
+    public enum Kind {
+        ADDED,
+        REMOVED,
+        UPDATED,
+        MARKED,
+        UNMARKED
+    }
+
+    private final Kind kind;
+    private final Task task;
+    private final int index;
+    private final String field;
+
+    /**
+     * Creates a change.
+     *
+     * @param kind  What happened to the task.
+     * @param task  The task that changed.
+     * @param index The index of the task in the list (0-based) when it changed.
+     * @param field The field that was updated, e.g. {@code /by}, or {@code null} unless updated.
+     */
+    public TaskChange(Kind kind, Task task, int index, String field) {
+        this.kind = kind;
+        this.task = task;
+        this.index = index;
+        this.field = field;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    /**
+     * Returns the index of the task when it changed. For a removed task, this is the index
+     * it had before any of the removals in the same batch.
+     *
+     * @return The 0-based index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the field that was updated, in lower case.
+     *
+     * @return The field, or {@code null} if the task was not updated.
+     */
+    public String getField() {
+        return field;
+    }
+
+    @Override
+    public String toString() {
+        return kind + (field == null ? "" : " " + field) + " #" + index + ": " + task.getMessage();
+    }
+}
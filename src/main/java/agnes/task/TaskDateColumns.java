@@ -0,0 +1,126 @@
+package agnes.task;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the date range of every task in a {@code TaskList} as parallel primitive arrays.
+ * <p>
+ * Position {@code i} of each column describes the task at index {@code i} of the list,
+ * so a date query scans two {@code int[]} sequentially instead of dereferencing every
+ * task and its date-time objects. The columns must be updated on every change to the
+ * list or to the dates of a task in it.
+ */
+class TaskDateColumns {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] firstDays = new int[INITIAL_CAPACITY];
+    private int[] lastDays = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Appends the dates of a task added to the end of the list.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        ensureCapacity(size + 1);
+        size++;
+        set(size - 1, t);
+    }
+
+    /**
+     * Inserts the dates of tasks added at an index of the list, shifting later tasks up.
+     *
+     * @param index The index of the first added task.
+     * @param batch The tasks that were added, in list order.
+     */
+    void insertAll(int index, List<Task> batch) {
+        assert index >= 0 && index <= size : "Column index should be within the list";
+        ensureCapacity(size + batch.size());
+        System.arraycopy(firstDays, index, firstDays, index + batch.size(), size - index);
+        System.arraycopy(lastDays, index, lastDays, index + batch.size(), size - index);
+        size += batch.size();
+        for (int i = 0; i < batch.size(); i++) {
+            set(index + i, batch.get(i));
+        }
+    }
+
+    /**
+     * Grows the columns so that they can hold at least the given number of tasks.
+     *
+     * @param capacity The number of tasks to make room for.
+     */
+    void ensureCapacity(int capacity) {
+        if (capacity > firstDays.length) {
+            int grown = Math.max(capacity, firstDays.length * 2);
+            firstDays = Arrays.copyOf(firstDays, grown);
+            lastDays = Arrays.copyOf(lastDays, grown);
+        }
+    }
+
+    /**
+     * Refreshes the dates of the task at the given index, e.g. after it was updated.
+     *
+     * @param index The index of the task in the list.
+     * @param t     The task at that index.
+     */
+    void set(int index, Task t) {
+        assert index >= 0 && index < size : "Column index should be within the list";
+        firstDays[index] = t.getFirstEpochDay();
+        lastDays[index] = t.getLastEpochDay();
+    }
+
+    /**
+     * Removes the dates of the task at the given index, shifting later tasks down.
+     *
+     * @param index The index of the removed task.
+     */
+    void remove(int index) {
+        assert index >= 0 && index < size : "Column index should be within the list";
+        int moved = size - index - 1;
+        System.arraycopy(firstDays, index + 1, firstDays, index, moved);
+        System.arraycopy(lastDays, index + 1, lastDays, index, moved);
+        size--;
+    }
+
+    /**
+     * Removes the dates of the tasks at the given indices in one sweep, shifting later tasks down.
+     *
+     * @param sortedIndices The indices of the removed tasks, in ascending order without duplicates.
+     */
+    void removeAll(int[] sortedIndices) {
+        int next = 0;
+        int write = 0;
+        for (int read = 0; read < size; read++) {
+            if (next < sortedIndices.length && sortedIndices[next] == read) {
+                next++;
+                continue;
+            }
+            firstDays[write] = firstDays[read];
+            lastDays[write] = lastDays[read];
+            write++;
+        }
+        size = write;
+    }
+
+    /**
+     * Returns the indices of all tasks that fall on the given day, in list order.
+     *
+     * @param epochDay The day to look for, as an epoch day.
+     * @return         The matching indices.
+     */
+    int[] indicesOn(int epochDay) {
+        int[] matches = new int[INITIAL_CAPACITY];
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (firstDays[i] <= epochDay && epochDay <= lastDays[i]) {
+                if (count == matches.length) {
+                    matches = Arrays.copyOf(matches, count * 2);
+                }
+                matches[count++] = i;
+            }
+        }
+        return Arrays.copyOf(matches, count);
+    }
+}
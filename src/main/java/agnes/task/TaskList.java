@@ -1,28 +1,76 @@
 package agnes.task;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
 
 import agnes.exception.InvalidTaskNumberException;
 import agnes.exception.TaskIndexOutOfBoundsException;
+import agnes.util.DateTimeUtil;
 
 /**
  * Represents a list of tasks that can be managed, retrieved, or filtered.
  * <p>
  * Provides methods to add, remove, and access tasks, as well as to filter tasks by date.
  * Also validates task numbers to ensure they are within the proper range.
+ * Recurring tasks are stored once and expanded into occurrences only within
+ * the dates being queried. Each task gets an id, and the ids of the tasks with each
+ * tag and of the completed tasks are kept in compressed bitmaps.
  * Design of this class draws inspiration from java.util.List.
  * </p>
+ * <p>
+ * Components kept in step with the list, such as the saved file and the reminders,
+ * register a {@link TaskListener} and are told of each change, in batches, rather
+ * than rereading the whole list.
+ * </p>
  */
 public class TaskList {
+    private static final int MIN_UNUSED_IDS = 1024;
+
     private List<Task> tasks;
+    private final TaskDateColumns dates;
+    private final UpcomingIndex upcoming;
+    private final TimeIndex timeline;
+    private final TimeIndex eventTimeline;
+    private final List<Task> recurring;
+    /** Built on the first fuzzy search, so lists that are never searched do not pay for it. */
+    private FuzzyIndex fuzzy;
+    /** Stable ids of the tasks, which the bitmaps are keyed by. Ids increase in list order. */
+    private final Map<Task, Integer> ids = new IdentityHashMap<>();
+    private final List<Task> byId = new ArrayList<>();
+    private final Map<String, TaskBitmap> tagged = new HashMap<>();
+    private final TaskBitmap done = new TaskBitmap();
+    /** Built on the first sorted listing of each order, and kept up to date from then on. */
+    private SortedView byDate;
+    private SortedView byStatus;
+    private final TaskStats stats = new TaskStats();
+    /** Bumped on every change, so callers can tell whether anything they derived is stale. */
+    private long version;
+    private final List<TaskListener> listeners = new ArrayList<>();
+    /** Changes not yet delivered to the listeners, while a batch is open. */
+    private List<TaskChange> pendingChanges = new ArrayList<>();
+    private int batchDepth;
 
     /**
      * Constructs an empty TaskList.
      */
     public TaskList() {
         this.tasks = new ArrayList<>();
+        this.dates = new TaskDateColumns();
+        this.upcoming = new UpcomingIndex();
+        this.timeline = new TimeIndex(t -> !t.isRecurring());
+        this.eventTimeline = new TimeIndex(t -> t instanceof Event && !t.isRecurring());
+        this.recurring = new ArrayList<>();
     }
 
     /**
@@ -31,7 +79,85 @@ public class TaskList {
      * @param t the Task to add
      */
     public void addTask(Task t) {
+        version++;
         tasks.add(t);
+        dates.add(t);
+        track(t);
+        assignId(t);
+        record(TaskChange.Kind.ADDED, t, tasks.size() - 1, null);
+    }
+
+    /**
+     * Adds several tasks to the end of the TaskList, e.g. when importing.
+     * Room for the whole batch is made once rather than task by task.
+     *
+     * @param batch the Tasks to add, in order
+     */
+    public void addTasks(List<Task> batch) {
+        if (tasks instanceof ArrayList) {
+            ((ArrayList<Task>) tasks).ensureCapacity(tasks.size() + batch.size());
+        }
+        dates.ensureCapacity(tasks.size() + batch.size());
+        beginBatch();
+        try {
+            for (Task t : batch) {
+                addTask(t);
+            }
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Inserts several tasks at an index of the TaskList, shifting later tasks up,
+     * e.g. when merging lines that were added to the middle of the task file.
+     * As ids must increase in list order, the ids are renumbered once for the whole batch.
+     *
+     * @param index the index the first Task is inserted at (0-based)
+     * @param batch the Tasks to insert, in order
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public void insertTasks(int index, List<Task> batch) {
+        if (index < 0 || index > tasks.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + tasks.size());
+        }
+        if (index == tasks.size()) {
+            addTasks(batch);
+            return;
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        version++;
+        tasks.addAll(index, batch);
+        dates.insertAll(index, batch);
+        beginBatch();
+        try {
+            for (int i = 0; i < batch.size(); i++) {
+                track(batch.get(i));
+                record(TaskChange.Kind.ADDED, batch.get(i), index + i, null);
+            }
+            renumberIds();
+        } finally {
+            endBatch();
+        }
+    }
+
+    /**
+     * Adds a task that was put in the list to the indexes, except for its id.
+     */
+    private void track(Task t) {
+        upcoming.add(t);
+        timeline.add(t);
+        eventTimeline.add(t);
+        if (t.isRecurring()) {
+            recurring.add(t);
+        }
+        if (fuzzy != null) {
+            fuzzy.add(t);
+        }
+        stats.add(t);
+        forEachSortedView(view -> view.add(t));
     }
 
     /**
@@ -42,7 +168,266 @@ public class TaskList {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public Task removeTask(int index) {
-        return tasks.remove(index);
+        Task removed = tasks.remove(index);
+        version++;
+        dates.remove(index);
+        upcoming.remove(removed);
+        timeline.remove(removed);
+        eventTimeline.remove(removed);
+        if (removed.isRecurring()) {
+            recurring.removeIf(t -> t == removed);
+        }
+        if (fuzzy != null) {
+            fuzzy.remove(removed);
+        }
+        releaseId(removed);
+        stats.remove(removed);
+        forEachSortedView(view -> view.remove(removed));
+        compactIds();
+        record(TaskChange.Kind.REMOVED, removed, index, null);
+        return removed;
+    }
+
+    /**
+     * Removes and returns the tasks at the specified indices.
+     * <p>
+     * The list and its date columns are compacted in a single sweep, so removing
+     * {@code k} tasks costs O(n + k log n) rather than {@code k} separate shifts.
+     * </p>
+     *
+     * @param sortedIndices the indices of the tasks to remove (0-based), in ascending order without duplicates
+     * @return the Tasks that were removed, in list order
+     * @throws IndexOutOfBoundsException if an index is out of range
+     */
+    public List<Task> removeTasks(int[] sortedIndices) {
+        int count = sortedIndices.length;
+        if (count > 0 && (sortedIndices[0] < 0 || sortedIndices[count - 1] >= tasks.size())) {
+            throw new IndexOutOfBoundsException("Indices must be within 0 and " + (tasks.size() - 1));
+        }
+        version++;
+        List<Task> removed = new ArrayList<>(count);
+        int next = 0;
+        int write = 0;
+        for (int read = 0; read < tasks.size(); read++) {
+            Task t = tasks.get(read);
+            if (next < sortedIndices.length && sortedIndices[next] == read) {
+                next++;
+                removed.add(t);
+                continue;
+            }
+            tasks.set(write++, t);
+        }
+        tasks.subList(write, tasks.size()).clear();
+        dates.removeAll(sortedIndices);
+
+        Set<Task> removedRecurring = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (Task t : removed) {
+            upcoming.remove(t);
+            timeline.remove(t);
+            eventTimeline.remove(t);
+            if (fuzzy != null) {
+                fuzzy.remove(t);
+            }
+            releaseId(t);
+            stats.remove(t);
+            forEachSortedView(view -> view.remove(t));
+            if (t.isRecurring()) {
+                removedRecurring.add(t);
+            }
+        }
+        if (!removedRecurring.isEmpty()) {
+            recurring.removeIf(removedRecurring::contains);
+        }
+        compactIds();
+        beginBatch();
+        for (int i = 0; i < count; i++) {
+            record(TaskChange.Kind.REMOVED, removed.get(i), sortedIndices[i], null);
+        }
+        endBatch();
+        return removed;
+    }
+
+    /**
+     * Gives a newly added task the next id and adds it to the bitmaps.
+     */
+    private void assignId(Task t) {
+        int id = byId.size();
+        ids.put(t, id);
+        byId.add(t);
+        for (String tag : t.getTags()) {
+            tagged.computeIfAbsent(tag, k -> new TaskBitmap()).add(id);
+        }
+        if (t.isComplete()) {
+            done.add(id);
+        }
+    }
+
+    /**
+     * Takes a task that was removed out of the bitmaps. Its id is not reused until the ids are renumbered.
+     */
+    private void releaseId(Task t) {
+        int id = ids.remove(t);
+        byId.set(id, null);
+        for (String tag : t.getTags()) {
+            TaskBitmap bitmap = tagged.get(tag);
+            bitmap.remove(id);
+            if (bitmap.size() == 0) {
+                tagged.remove(tag);
+            }
+        }
+        done.remove(id);
+    }
+
+    /**
+     * Gives every task a new id in list order once more than half of the ids are unused,
+     * so that ids and bitmaps stay compact.
+     */
+    private void compactIds() {
+        if (byId.size() > 2 * tasks.size() + MIN_UNUSED_IDS) {
+            renumberIds();
+        }
+    }
+
+    /**
+     * Gives every task a new id in list order.
+     */
+    private void renumberIds() {
+        ids.clear();
+        byId.clear();
+        tagged.clear();
+        done.clear();
+        for (Task t : tasks) {
+            assignId(t);
+        }
+    }
+
+    /**
+     * Refreshes the done bitmap and the sorted views after a task is marked or unmarked.
+     * Marking a recurring task moves it to its next occurrence, so its date changes too.
+     */
+    private void refreshDone(Task t) {
+        int id = ids.get(t);
+        if (t.isComplete()) {
+            done.add(id);
+        } else {
+            done.remove(id);
+        }
+        stats.update(t);
+        forEachSortedView(view -> view.update(t));
+    }
+
+    private void forEachSortedView(Consumer<SortedView> action) {
+        if (byDate != null) {
+            action.accept(byDate);
+        }
+        if (byStatus != null) {
+            action.accept(byStatus);
+        }
+    }
+
+    /**
+     * Returns the first tasks of the list in some order.
+     * <p>
+     * The orders other than {@link SortKey#ADDED} are kept in sorted views, which are
+     * built on their first use and kept in order on every change from then on, so
+     * listing {@code limit} tasks costs O(log n + limit) rather than a sort.
+     * </p>
+     *
+     * @param key   the order to list the tasks in
+     * @param limit the most tasks to return
+     * @return up to {@code limit} tasks in that order
+     */
+    public List<Task> getSorted(SortKey key, int limit) {
+        switch (key) {
+        case BY:
+            if (byDate == null) {
+                byDate = buildView(t -> t.getStartEpochMinute() == Task.NO_DATE_TIME
+                        ? Long.MAX_VALUE : t.getStartEpochMinute());
+            }
+            return byDate.first(limit);
+        case STATUS:
+            if (byStatus == null) {
+                byStatus = buildView(t -> t.isComplete() ? 1 : 0);
+            }
+            return byStatus.first(limit);
+        default:
+            return new ArrayList<>(tasks.subList(0, Math.min(limit, tasks.size())));
+        }
+    }
+
+    /**
+     * Returns an overview of the list: how many tasks of each type there are, how many
+     * are done, and how many pending deadlines are overdue or due by the end of the week.
+     * <p>
+     * The counts are kept up to date on every change, so this does not scan the list.
+     * </p>
+     *
+     * @param now the moment deadlines are overdue before, and due this week from
+     * @return the overview
+     */
+    public TaskSummary getSummary(LocalDateTime now) {
+        return stats.summarize(DateTimeUtil.toEpochMinute(now));
+    }
+
+    private SortedView buildView(ToLongFunction<Task> key) {
+        SortedView view = new SortedView(key);
+        tasks.forEach(view::add);
+        return view;
+    }
+
+    /**
+     * Marks the tasks at the specified indices as complete or incomplete.
+     *
+     * @param sortedIndices the indices of the tasks to mark (0-based)
+     * @param isDone        whether to mark the tasks as complete
+     * @return the Tasks that were marked, in the given order
+     * @throws IndexOutOfBoundsException if an index is out of range
+     */
+    public List<Task> markTasks(int[] sortedIndices, boolean isDone) {
+        List<Task> marked = new ArrayList<>(sortedIndices.length);
+        beginBatch();
+        try {
+            for (int i : sortedIndices) {
+                marked.add(isDone ? markTask(i) : unmarkTask(i));
+            }
+        } finally {
+            endBatch();
+        }
+        return marked;
+    }
+
+    /**
+     * Marks the task at the specified index as complete.
+     *
+     * @param index the index of the task to mark (0-based)
+     * @return the Task that was marked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Task markTask(int index) {
+        Task task = tasks.get(index);
+        version++;
+        task.setMarked();
+        upcoming.update(task);
+        refreshDone(task);
+        record(TaskChange.Kind.MARKED, task, index, null);
+        return task;
+    }
+
+    /**
+     * Marks the task at the specified index as incomplete.
+     *
+     * @param index the index of the task to unmark (0-based)
+     * @return the Task that was unmarked
+     * @throws IndexOutOfBoundsException if the index is out of range
+     */
+    public Task unmarkTask(int index) {
+        Task task = tasks.get(index);
+        version++;
+        task.setUnmarked();
+        upcoming.update(task);
+        refreshDone(task);
+        record(TaskChange.Kind.UNMARKED, task, index, null);
+        return task;
     }
 
     /**
@@ -56,6 +441,71 @@ public class TaskList {
         return tasks.get(index);
     }
 
+    /**
+     * Registers a listener to be told of every change from now on.
+     *
+     * @param listener the listener to add
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener of changes.
+     *
+     * @param listener the listener to remove
+     */
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Starts collecting changes, so that they reach the listeners together when the
+     * matching {@link #endBatch()} is called. Batches may be nested; changes are delivered
+     * when the outermost one ends.
+     */
+    public void beginBatch() {
+        batchDepth++;
+    }
+
+    /**
+     * Ends a batch started by {@link #beginBatch()}, delivering its changes if it was the outermost.
+     */
+    public void endBatch() {
+        assert batchDepth > 0 : "endBatch() should follow beginBatch()";
+        if (--batchDepth > 0 || pendingChanges.isEmpty()) {
+            return;
+        }
+        List<TaskChange> changes = Collections.unmodifiableList(pendingChanges);
+        pendingChanges = new ArrayList<>();
+        for (TaskListener listener : new ArrayList<>(listeners)) {
+            listener.onChanges(changes);
+        }
+    }
+
+    /**
+     * Queues a change for the listeners, delivering it at once if no batch is open.
+     */
+    private void record(TaskChange.Kind kind, Task task, int index, String field) {
+        if (listeners.isEmpty()) {
+            return;
+        }
+        pendingChanges.add(new TaskChange(kind, task, index, field));
+        if (batchDepth == 0) {
+            beginBatch();
+            endBatch();
+        }
+    }
+
+    /**
+     * Returns a number that changes whenever a task is added, removed, marked, unmarked or updated.
+     *
+     * @return the modification version of the list
+     */
+    public long getVersion() {
+        return version;
+    }
+
     /**
      * Returns the number of tasks in this {@code TaskList}.
      *
@@ -76,14 +526,50 @@ public class TaskList {
 
     /**
      * Returns a list of tasks that occur on the specified date.
+     * <p>
+     * Served from the primitive date columns rather than by asking every task.
+     * Recurring tasks are listed after the others, once per occurrence on that date.
+     * </p>
      *
      * @param date the date to filter tasks by
      * @return a List of tasks that fall on the given date
      */
     public List<Task> getTasksOnDate(LocalDate date) {
-        return this.tasks.stream()
-                .filter(t -> t.fallsOnDate(date))
-                .toList();
+        List<Task> results = new ArrayList<>();
+        for (int i : dates.indicesOn((int) date.toEpochDay())) {
+            results.add(tasks.get(i));
+        }
+        long dayStart = date.toEpochDay() * DateTimeUtil.MINUTES_PER_DAY;
+        for (Task t : recurring) {
+            results.addAll(t.getOccurrencesBetween(dayStart, dayStart + DateTimeUtil.MINUTES_PER_DAY - 1));
+        }
+        return results;
+    }
+
+    /**
+     * Returns the other events in this list whose durations overlap the given event.
+     * <p>
+     * Events that only touch, where one ends exactly when the other starts, do not clash.
+     * Recurring events are not checked for clashes.
+     * </p>
+     *
+     * @param event the event to check, which may or may not be in this list
+     * @return the clashing events, ordered by start time
+     */
+    public List<Task> getConflicts(Event event) {
+        List<Task> clashes = eventTimeline.overlapping(
+                event.getStartEpochMinute(), Math.max(event.getStartEpochMinute(), event.getEndEpochMinute()), false);
+        clashes.remove(event);
+        return clashes;
+    }
+
+    /**
+     * Returns every pair of events in this list whose durations overlap.
+     *
+     * @return the clashing pairs of one-off events, found with a sweep line in O(n log n + k)
+     */
+    public List<Conflict> getAllConflicts() {
+        return eventTimeline.conflicts();
     }
 
     /**
@@ -118,6 +604,38 @@ public class TaskList {
         return taskNo;
     }
 
+    /**
+     * Validates a set of task numbers such as {@code 3,7,9-20}.
+     * <p>
+     * Numbers and inclusive ranges are separated by commas. Duplicates and
+     * overlapping ranges are merged.
+     * </p>
+     *
+     * @param numbers the task numbers as a String
+     * @return the validated task numbers in ascending order, without duplicates
+     * @throws InvalidTaskNumberException if a number or range is malformed
+     * @throws TaskIndexOutOfBoundsException if a task number is less than 1 or greater than the number of tasks
+     */
+    public int[] checkTaskNumbers(String numbers) throws InvalidTaskNumberException, TaskIndexOutOfBoundsException {
+        BitSet selected = new BitSet();
+        for (String part : numbers.split(",")) {
+            String range = part.strip();
+            int dashIdx = range.indexOf('-');
+            if (dashIdx == -1) {
+                selected.set(checkTaskNumber(range));
+                continue;
+            }
+            int low = checkTaskNumber(range.substring(0, dashIdx).strip());
+            int high = checkTaskNumber(range.substring(dashIdx + 1).strip());
+            if (low > high) {
+                throw new InvalidTaskNumberException(
+                        "Your range " + range + " is back to front! Try " + high + "-" + low);
+            }
+            selected.set(low, high + 1);
+        }
+        return selected.stream().toArray();
+    }
+
     /**
      * Updates a task at the specified index.
      *
@@ -129,11 +647,199 @@ public class TaskList {
      */
     public Task updateTask(String index, String field, String value)
             throws InvalidTaskNumberException, TaskIndexOutOfBoundsException {
-        Task task = this.tasks.get(checkTaskNumber(index) - 1);
+        int i = checkTaskNumber(index) - 1;
+        Task task = this.tasks.get(i);
         task.update(field, value);
+        version++;
+        dates.set(i, task);
+        upcoming.update(task);
+        timeline.update(task);
+        eventTimeline.update(task);
+        if (fuzzy != null) {
+            fuzzy.update(task);
+        }
+        stats.update(task);
+        forEachSortedView(view -> view.update(task));
+        record(TaskChange.Kind.UPDATED, task, i, field.toLowerCase());
         return task;
     }
 
+    /**
+     * Returns the pending tasks that start or are due the soonest.
+     * <p>
+     * Deadlines are ordered by their due date-time and events by their start.
+     * Completed tasks and to-dos are left out, and a recurring task is ordered by
+     * its earliest pending occurrence. Served from a heap that is kept
+     * up to date on every change, so the cost depends on {@code n} rather than
+     * on the size of the list.
+     * </p>
+     *
+     * @param n the maximum number of tasks to return
+     * @return up to {@code n} tasks, soonest first
+     */
+    public List<Task> getUpcoming(int n) {
+        return upcoming.peek(n);
+    }
+
+    /**
+     * Returns the tasks that take place at any point between two date-times, in time order.
+     * <p>
+     * A deadline matches if it is due within the range, and an event matches if
+     * any part of it lies within the range. Both ends of the range are inclusive.
+     * A recurring task matches once for each of its occurrences in the range.
+     * </p>
+     *
+     * @param from the start of the range
+     * @param to   the end of the range
+     * @return a List of deadlines and events overlapping the range, ordered by start time
+     */
+    public List<Task> getTasksBetween(LocalDateTime from, LocalDateTime to) {
+        long fromMinute = DateTimeUtil.toEpochMinute(from);
+        long toMinute = DateTimeUtil.toEpochMinute(to);
+        List<Task> results = timeline.overlapping(fromMinute, toMinute, true);
+        if (recurring.isEmpty()) {
+            return results;
+        }
+        for (Task t : recurring) {
+            results.addAll(t.getOccurrencesBetween(fromMinute, toMinute));
+        }
+        results.sort(Comparator.comparingLong(Task::getStartEpochMinute));
+        return results;
+    }
+
+    /**
+     * Returns the tasks that match a query, dated tasks in time order followed by todos.
+     * <p>
+     * The query is planned against the indexes of the list: the candidates come from
+     * the index of one-off events if only events can match, from the time index if the
+     * query has a date bound that leaves out most dated tasks, and from the whole list
+     * otherwise. Recurring tasks are always candidates when an index is used, as
+     * the indexes leave them out. Each candidate is checked against every condition
+     * at once, so the tasks are visited in a single pass.
+     * </p>
+     *
+     * @param query the conditions to filter by
+     * @return a List of the matching tasks
+     */
+    public List<Task> query(TaskQuery query) {
+        List<Task> results = new ArrayList<>();
+        Consumer<Task> collect = t -> {
+            if (query.matches(t)) {
+                results.add(t);
+            }
+        };
+        // Candidates must start before the bound and end after the other bound
+        long from = query.getEndsAfter() == Long.MIN_VALUE ? Long.MIN_VALUE : query.getEndsAfter() + 1;
+        long to = query.getStartsBefore() == Long.MAX_VALUE ? Long.MAX_VALUE : query.getStartsBefore() - 1;
+        switch (choosePlan(query, from, to)) {
+        case TAGS:
+            getTagMatches(query.getTags(), query.getStatus()).forEach(id -> collect.accept(byId.get(id)));
+            break;
+        case EVENTS:
+            eventTimeline.forEachOverlapping(from, to, true, collect);
+            recurring.forEach(collect);
+            break;
+        case TIMELINE:
+            timeline.forEachOverlapping(from, to, true, collect);
+            recurring.forEach(collect);
+            break;
+        default:
+            tasks.forEach(collect);
+            break;
+        }
+        results.sort(Comparator.comparingLong(t -> t.getStartEpochMinute() == Task.NO_DATE_TIME
+                ? Long.MAX_VALUE : t.getStartEpochMinute()));
+        return results;
+    }
+
+    /**
+     * Picks where the candidates of a query come from, by estimating how many candidates
+     * each index would yield: the size of the rarest tag, or the number of tasks starting
+     * in the date range. Walking a tree costs more per task than scanning the list or a
+     * bitmap, so the time indexes count double.
+     */
+    private QueryPlan choosePlan(TaskQuery query, long from, long to) {
+        QueryPlan plan = QueryPlan.SCAN;
+        long cost = tasks.size();
+        if (!query.getTags().isEmpty()) {
+            long rarest = Long.MAX_VALUE;
+            for (String tag : query.getTags()) {
+                TaskBitmap bitmap = tagged.get(tag);
+                rarest = Math.min(rarest, bitmap == null ? 0 : bitmap.size());
+            }
+            if (rarest < cost) {
+                plan = QueryPlan.TAGS;
+                cost = rarest;
+            }
+        }
+        if (query.isOnly(Event.class)) {
+            long events = 2L * (eventTimeline.countStartingBetween(from, to) + recurring.size());
+            if (events < cost) {
+                plan = QueryPlan.EVENTS;
+                cost = events;
+            }
+        } else if (query.hasDateBound() || query.isOnly(Deadline.class)) {
+            long dated = 2L * (timeline.countStartingBetween(from, to) + recurring.size());
+            if (dated < cost) {
+                plan = QueryPlan.TIMELINE;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * Where the candidates of a query come from.
+     */
+    private enum QueryPlan {
+        /** Every task in the list. */
+        SCAN,
+        /** The tasks with all the query's tags and its done status, from the bitmaps. */
+        TAGS,
+        /** The dated tasks in the query's date range, and the recurring tasks. */
+        TIMELINE,
+        /** The one-off events in the query's date range, and the recurring tasks. */
+        EVENTS
+    }
+
+    /**
+     * Returns the tasks that have all the given tags, in list order.
+     * <p>
+     * Served by intersecting the bitmaps of the tags, rarest first, and then the
+     * bitmap of completed tasks, so the cost depends on the number of tagged tasks
+     * rather than on the size of the list.
+     * </p>
+     *
+     * @param tags      at least one tag, as returned by {@link Task#normalizeTag(String)}
+     * @param isDone    whether the tasks must be complete or incomplete, or {@code null} for either
+     * @return a List of the tasks with every tag
+     */
+    public List<Task> getTasksTagged(List<String> tags, Boolean isDone) {
+        List<Task> results = new ArrayList<>();
+        getTagMatches(tags, isDone).forEach(id -> results.add(byId.get(id)));
+        return results;
+    }
+
+    private TaskBitmap getTagMatches(List<String> tags, Boolean isDone) {
+        assert !tags.isEmpty() : "Tasks can only be matched by at least one tag";
+        List<TaskBitmap> bitmaps = new ArrayList<>(tags.size());
+        for (String tag : tags) {
+            TaskBitmap bitmap = tagged.get(tag);
+            if (bitmap == null) {
+                return new TaskBitmap();
+            }
+            bitmaps.add(bitmap);
+        }
+        bitmaps.sort(Comparator.comparingInt(TaskBitmap::size));
+        TaskBitmap matches = bitmaps.get(0);
+        for (int i = 1; i < bitmaps.size() && matches.size() > 0; i++) {
+            matches = matches.and(bitmaps.get(i));
+        }
+        if (isDone != null) {
+            matches = isDone ? matches.and(done) : matches.andNot(done);
+        }
+        return matches;
+    }
+
     /**
      * Returns a list of tasks that contains a given keyword.
      *
@@ -149,4 +855,23 @@ public class TaskList {
         }
         return results;
     }
+
+    /**
+     * Returns the tasks with words close to the words of a term, allowing for typos.
+     * <p>
+     * Matching ignores case. Served from a BK-tree over the words of all descriptions,
+     * which is built on the first search and kept up to date from then on.
+     * </p>
+     *
+     * @param term  the words to search tasks by
+     * @return a List of the matching tasks, closest match first
+     * @see FuzzyIndex#search(String)
+     */
+    public List<Task> findFuzzy(String term) {
+        if (fuzzy == null) {
+            fuzzy = new FuzzyIndex();
+            tasks.forEach(fuzzy::add);
+        }
+        return fuzzy.search(term);
+    }
 }
@@ -0,0 +1,23 @@
+package agnes.task;
+
+import java.util.List;
+
+/**
+ * Represents something kept in step with a {@code TaskList}, e.g. the saved file.
+ * <p>
+ * Changes are delivered in batches, on the thread that made them, once the outermost
+ * batch ends. A single change outside any batch is delivered on its own.
+ * </p>
+ *
+ * @see TaskList#addListener(TaskListener)
+ * @see TaskList#beginBatch()
+ */
+@FunctionalInterface
+public interface TaskListener {
+    /**
+     * Called after a batch of changes has been made to the list.
+     *
+     * @param changes The changes, in the order they were made. Never empty.
+     */
+    void onChanges(List<TaskChange> changes);
+}
@@ -0,0 +1,250 @@
+package agnes.task;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+import agnes.exception.InvalidDescriptionException;
+import agnes.util.DateTimeUtil;
+
+/**
+ * A combination of conditions that tasks are filtered by, e.g.
+ * {@code type:deadline is:undone before:2026-03-20 #work report}.
+ * <p>
+ * The conditions are separated by spaces and a task must meet all of them:
+ * </p>
+ * <ul>
+ *     <li>{@code type:todo}, {@code type:deadline} or {@code type:event}</li>
+ *     <li>{@code is:done} or {@code is:undone}</li>
+ *     <li>{@code before:DATE}: starts before {@code DATE}</li>
+ *     <li>{@code after:DATE}: ends after {@code DATE}</li>
+ *     <li>{@code #tag}: has the tag</li>
+ *     <li>any other word, or several words in double quotes: the description contains it</li>
+ * </ul>
+ * <p>
+ * {@code DATE} is {@code yyyy-MM-dd} or {@code yyyy-MM-ddTHHmm}. A date without a time
+ * means the whole day, so {@code before:2026-03-20} and {@code after:2026-03-20} both
+ * leave out that day. Todos have no dates and never meet a date condition. A recurring
+ * task is judged by its next occurrence that is not done yet.
+ * </p>
+ * <p>
+ * The conditions are checked together in {@link #matches(Task)}, cheapest first, so
+ * {@link TaskList#query(TaskQuery)} filters in a single pass over its candidates.
+ * </p>
+ */
+public class TaskQuery {
+    private static final String TYPE_KEY = "type:";
+    private static final String STATUS_KEY = "is:";
+    private static final String BEFORE_KEY = "before:";
+    private static final String AFTER_KEY = "after:";
+    private static final String DATE_FORMAT_MESSAGE = "Date format should be yyyy-MM-dd or yyyy-MM-ddTHHmm";
+
+    private Class<? extends Task> type;
+    private Boolean isDone;
+    private long startsBefore = Long.MAX_VALUE;
+    private long endsAfter = Long.MIN_VALUE;
+    private final List<String> texts = new ArrayList<>();
+    private final List<String> tags = new ArrayList<>();
+
+    private TaskQuery() {
+    }
+
+    /**
+     * Parses the conditions of a query.
+     *
+     * @param input The conditions, separated by spaces.
+     * @return      The parsed query.
+     * @throws InvalidDescriptionException If there are no conditions or a condition is malformed.
+     */
+    public static TaskQuery parse(String input) throws InvalidDescriptionException {
+        TaskQuery query = new TaskQuery();
+        for (String token : tokenize(input)) {
+            if (token.startsWith(TYPE_KEY)) {
+                query.type = parseType(token.substring(TYPE_KEY.length()));
+            } else if (token.startsWith(STATUS_KEY)) {
+                query.isDone = parseStatus(token.substring(STATUS_KEY.length()));
+            } else if (token.startsWith(BEFORE_KEY)) {
+                LocalDateTime before = parseDate(token.substring(BEFORE_KEY.length()), false);
+                query.startsBefore = Math.min(query.startsBefore, DateTimeUtil.toEpochMinute(before));
+            } else if (token.startsWith(AFTER_KEY)) {
+                LocalDateTime after = parseDate(token.substring(AFTER_KEY.length()), true);
+                query.endsAfter = Math.max(query.endsAfter, DateTimeUtil.toEpochMinute(after));
+            } else if (token.startsWith("#")) {
+                query.tags.add(parseTag(token));
+            } else {
+                query.texts.add(token);
+            }
+        }
+        if (query.type == null && query.isDone == null && !query.hasDateBound()
+                && query.texts.isEmpty() && query.tags.isEmpty()) {
+            throw new InvalidDescriptionException("Tell me what to look for!");
+        }
+        return query;
+    }
+
+    /**
+     * Splits the input at spaces, keeping words in double quotes together.
+     */
+    private static List<String> tokenize(String input) throws InvalidDescriptionException {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < input.length()) {
+            if (input.charAt(i) == ' ') {
+                i++;
+            } else if (input.charAt(i) == '"') {
+                int close = input.indexOf('"', i + 1);
+                if (close == -1) {
+                    throw new InvalidDescriptionException("You forgot to close your quotes...");
+                }
+                if (close > i + 1) {
+                    tokens.add(input.substring(i + 1, close));
+                }
+                i = close + 1;
+            } else {
+                int end = input.indexOf(' ', i);
+                end = end == -1 ? input.length() : end;
+                tokens.add(input.substring(i, end));
+                i = end;
+            }
+        }
+        return tokens;
+    }
+
+    private static Class<? extends Task> parseType(String value) throws InvalidDescriptionException {
+        switch (value) {
+        case "todo":
+            return ToDo.class;
+        case "deadline":
+            return Deadline.class;
+        case "event":
+            return Event.class;
+        default:
+            throw new InvalidDescriptionException("The type can be todo, deadline or event");
+        }
+    }
+
+    private static Boolean parseStatus(String value) throws InvalidDescriptionException {
+        switch (value) {
+        case "done":
+            return true;
+        case "undone":
+            return false;
+        default:
+            throw new InvalidDescriptionException("A task can only be is:done or is:undone");
+        }
+    }
+
+    /**
+     * Parses a {@code #tag} condition.
+     *
+     * @param token The condition, starting with {@code #}.
+     * @return      The tag, as returned by {@link Task#normalizeTag(String)}.
+     * @throws InvalidDescriptionException If the tag is malformed.
+     */
+    public static String parseTag(String token) throws InvalidDescriptionException {
+        try {
+            return Task.normalizeTag(token);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidDescriptionException(e.getMessage());
+        }
+    }
+
+    private static LocalDateTime parseDate(String value, boolean isEnd) throws InvalidDescriptionException {
+        String dateTime = value.replace('T', ' ');
+        try {
+            return isEnd ? DateTimeUtil.parseEndDateTime(dateTime) : DateTimeUtil.parseDateTime(dateTime);
+        } catch (DateTimeParseException e) {
+            throw new InvalidDescriptionException(DATE_FORMAT_MESSAGE);
+        }
+    }
+
+    /**
+     * Returns whether the query only matches tasks of one type.
+     *
+     * @param taskType The type of task.
+     * @return         {@code true} if the query has a {@code type:} condition for that type.
+     */
+    boolean isOnly(Class<? extends Task> taskType) {
+        return type == taskType;
+    }
+
+    /**
+     * Returns the tags matching tasks must have.
+     *
+     * @return The tags, which may be empty.
+     */
+    List<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * Returns whether matching tasks must be complete or incomplete.
+     *
+     * @return The status, or {@code null} if either will do.
+     */
+    Boolean getStatus() {
+        return isDone;
+    }
+
+    /**
+     * Returns whether the query has a {@code before:} or {@code after:} condition.
+     *
+     * @return {@code true} if only tasks with dates can match.
+     */
+    boolean hasDateBound() {
+        return startsBefore != Long.MAX_VALUE || endsAfter != Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns the epoch minute matching tasks must start before.
+     *
+     * @return The bound, or {@code Long.MAX_VALUE} if there is none.
+     */
+    long getStartsBefore() {
+        return startsBefore;
+    }
+
+    /**
+     * Returns the epoch minute matching tasks must end after.
+     *
+     * @return The bound, or {@code Long.MIN_VALUE} if there is none.
+     */
+    long getEndsAfter() {
+        return endsAfter;
+    }
+
+    /**
+     * Returns whether a task meets every condition of the query.
+     *
+     * @param t The task to check.
+     * @return  {@code true} if the task matches.
+     */
+    boolean matches(Task t) {
+        if (type != null && !type.isInstance(t)) {
+            return false;
+        }
+        if (isDone != null && t.isComplete() != isDone) {
+            return false;
+        }
+        if (hasDateBound()) {
+            long start = t.getStartEpochMinute();
+            if (start == Task.NO_DATE_TIME || start >= startsBefore
+                    || Math.max(start, t.getEndEpochMinute()) <= endsAfter) {
+                return false;
+            }
+        }
+        for (String tag : tags) {
+            if (!t.hasTag(tag)) {
+                return false;
+            }
+        }
+        String message = t.getMessage();
+        for (String text : texts) {
+            if (!message.contains(text)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,236 @@
+package agnes.task;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import agnes.util.DateTimeUtil;
+
+/**
+ * Counts the tasks of a {@code TaskList} by type and status, and its pending deadlines by day.
+ * <p>
+ * The counts are adjusted on every change to the list, so an overview never scans it.
+ * Pending deadlines are kept in day buckets: a Fenwick tree of how many are due on each
+ * day, plus the minutes of the day they are due at. Counting the deadlines due before
+ * or after some moment sums the whole days in O(log d) for {@code d} days covered and
+ * looks up the minutes of the one day the moment falls on.
+ * </p>
+ */
+class TaskStats {
+    private static final int INITIAL_DAYS = 1024;
+    private static final int MINUTES_PER_DAY = 24 * 60;
+
+    /** What each task was counted as, so it can be uncounted however it changed since. */
+    private final Map<Task, Counted> counted = new IdentityHashMap<>();
+    private final Map<Long, DayBucket> buckets = new HashMap<>();
+    private int todos;
+    private int deadlines;
+    private int events;
+    private int done;
+    private int[] tree = new int[0];
+    private long origin;
+
+    /**
+     * How a task was counted.
+     */
+    private static final class Counted {
+        private final boolean isDone;
+        private final long dueMinute;
+
+        private Counted(boolean isDone, long dueMinute) {
+            this.isDone = isDone;
+            this.dueMinute = dueMinute;
+        }
+    }
+
+    /**
+     * The minutes of the day that the pending deadlines of one day are due at, in order.
+     */
+    private static final class DayBucket {
+        private int[] minutes = new int[2];
+        private int size;
+
+        private void add(int minute) {
+            int at = insertionPoint(minute);
+            if (size == minutes.length) {
+                minutes = Arrays.copyOf(minutes, size * 2);
+            }
+            System.arraycopy(minutes, at, minutes, at + 1, size - at);
+            minutes[at] = minute;
+            size++;
+        }
+
+        private void remove(int minute) {
+            int at = insertionPoint(minute);
+            assert at < size && minutes[at] == minute : "Only counted minutes are removed";
+            System.arraycopy(minutes, at + 1, minutes, at, size - at - 1);
+            size--;
+        }
+
+        /**
+         * Returns the number of minutes before the given one.
+         */
+        private int insertionPoint(int minute) {
+            int lo = 0;
+            int hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (minutes[mid] < minute) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * Counts a task that was added to the list.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        if (t instanceof Deadline) {
+            deadlines++;
+        } else if (t instanceof Event) {
+            events++;
+        } else {
+            todos++;
+        }
+        count(t);
+    }
+
+    /**
+     * Uncounts a task that was removed from the list.
+     *
+     * @param t The task that was removed.
+     */
+    void remove(Task t) {
+        if (!counted.containsKey(t)) {
+            return;
+        }
+        uncount(t);
+        if (t instanceof Deadline) {
+            deadlines--;
+        } else if (t instanceof Event) {
+            events--;
+        } else {
+            todos--;
+        }
+    }
+
+    /**
+     * Recounts a task that was marked, unmarked or updated.
+     *
+     * @param t The task that changed.
+     */
+    void update(Task t) {
+        if (!counted.containsKey(t)) {
+            return;
+        }
+        uncount(t);
+        count(t);
+    }
+
+    private void count(Task t) {
+        boolean isDone = t.isComplete();
+        long due = t instanceof Deadline && !isDone ? t.getStartEpochMinute() : Task.NO_DATE_TIME;
+        counted.put(t, new Counted(isDone, due));
+        if (isDone) {
+            done++;
+        }
+        if (due != Task.NO_DATE_TIME) {
+            long day = DateTimeUtil.toEpochDay(due);
+            addToTree(day, 1);
+            buckets.computeIfAbsent(day, d -> new DayBucket()).add((int) (due - day * MINUTES_PER_DAY));
+        }
+    }
+
+    private void uncount(Task t) {
+        Counted c = counted.remove(t);
+        if (c.isDone) {
+            done--;
+        }
+        if (c.dueMinute != Task.NO_DATE_TIME) {
+            long day = DateTimeUtil.toEpochDay(c.dueMinute);
+            DayBucket bucket = buckets.get(day);
+            bucket.remove((int) (c.dueMinute - day * MINUTES_PER_DAY));
+            if (bucket.size == 0) {
+                buckets.remove(day);
+            }
+            addToTree(day, -1);
+        }
+    }
+
+    /**
+     * Returns an overview of the counted tasks.
+     *
+     * @param nowMinute The current epoch minute, which deadlines are overdue or due after.
+     * @return          The overview.
+     */
+    TaskSummary summarize(long nowMinute) {
+        long today = DateTimeUtil.toEpochDay(nowMinute);
+        long sunday = today + 7 - LocalDate.ofEpochDay(today).getDayOfWeek().getValue();
+        DayBucket bucket = buckets.get(today);
+        int dueToday = bucket == null ? 0 : bucket.size;
+        int overdueToday = bucket == null ? 0 : bucket.insertionPoint((int) (nowMinute - today * MINUTES_PER_DAY));
+        int overdue = countDaysUpTo(today - 1) + overdueToday;
+        int dueThisWeek = countDaysUpTo(sunday) - countDaysUpTo(today) + dueToday - overdueToday;
+        return new TaskSummary(todos, deadlines, events, done, overdue, dueThisWeek);
+    }
+
+    /**
+     * Adds to the number of deadlines due on a day, first widening the tree if it does not cover the day.
+     * Must be called before the day's bucket changes, as widening rebuilds the tree from the buckets.
+     */
+    private void addToTree(long day, int delta) {
+        if (day < origin || day >= origin + tree.length) {
+            grow(day);
+        }
+        for (int i = (int) (day - origin) + 1; i <= tree.length; i += i & -i) {
+            tree[i - 1] += delta;
+        }
+    }
+
+    /**
+     * Returns the number of deadlines due on or before a day.
+     */
+    private int countDaysUpTo(long day) {
+        if (day < origin) {
+            return 0;
+        }
+        int sum = 0;
+        for (int i = (int) Math.min(day - origin + 1, tree.length); i > 0; i -= i & -i) {
+            sum += tree[i - 1];
+        }
+        return sum;
+    }
+
+    /**
+     * Rebuilds the tree over a range of days at least twice as wide that also covers the given day,
+     * leaving the extra room on the side the day was missing from.
+     */
+    private void grow(long day) {
+        long low = tree.length == 0 ? day - INITIAL_DAYS / 2 : Math.min(origin, day);
+        long high = tree.length == 0 ? low + INITIAL_DAYS - 1 : Math.max(origin + tree.length - 1, day);
+        long length = Math.max(INITIAL_DAYS, tree.length * 2L);
+        while (length < high - low + 1) {
+            length *= 2;
+        }
+        origin = tree.length > 0 && day < origin ? high - length + 1 : low;
+        tree = new int[Math.toIntExact(length)];
+        for (Map.Entry<Long, DayBucket> e : buckets.entrySet()) {
+            tree[(int) (e.getKey() - origin)] += e.getValue().size;
+        }
+        // Linear-time Fenwick build: push each node's sum up to its parent
+        for (int i = 1; i <= tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent <= tree.length) {
+                tree[parent - 1] += tree[i - 1];
+            }
+        }
+    }
+}
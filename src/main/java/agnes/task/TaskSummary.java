@@ -0,0 +1,64 @@
+package agnes.task;
+
+/**
+ * Represents an overview of a {@code TaskList} at some moment.
+ */
+public class TaskSummary {
+    private final int todos;
+    private final int deadlines;
+    private final int events;
+    private final int done;
+    private final int overdue;
+    private final int dueThisWeek;
+
+    /**
+     * Creates an overview of a list.
+     *
+     * @param todos         The number of todos.
+     * @param deadlines     The number of deadlines.
+     * @param events        The number of events.
+     * @param done          The number of completed tasks.
+     * @param overdue       The number of pending deadlines that are past due.
+     * @param dueThisWeek   The number of pending deadlines due from now until the end of Sunday.
+     */
+    public TaskSummary(int todos, int deadlines, int events, int done, int overdue, int dueThisWeek) {
+        this.todos = todos;
+        this.deadlines = deadlines;
+        this.events = events;
+        this.done = done;
+        this.overdue = overdue;
+        this.dueThisWeek = dueThisWeek;
+    }
+
+    public int getTodos() {
+        return todos;
+    }
+
+    public int getDeadlines() {
+        return deadlines;
+    }
+
+    public int getEvents() {
+        return events;
+    }
+
+    public int getTotal() {
+        return todos + deadlines + events;
+    }
+
+    public int getDone() {
+        return done;
+    }
+
+    public int getPending() {
+        return getTotal() - done;
+    }
+
+    public int getOverdue() {
+        return overdue;
+    }
+
+    public int getDueThisWeek() {
+        return dueThisWeek;
+    }
+}
@@ -0,0 +1,293 @@
+package agnes.task;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Navigable index of the dated tasks of a {@code TaskList}, ordered by start time.
+ * <p>
+ * A {@code Deadline} covers the single minute it is due, and an {@code Event} covers
+ * its whole duration. The index is a treap (a randomised balanced search tree) keyed on
+ * the start minute, where every node also remembers the latest end minute in its subtree.
+ * That lets an overlap query skip whole subtrees that end too early and stop as soon as
+ * tasks start too late, so all {@code k} tasks overlapping a range come back in time
+ * order in about O(log n + k). Nodes also count their subtree, so the number of tasks
+ * starting in a range is known in O(log n) without visiting them.
+ */
+class TimeIndex {
+    private final Predicate<Task> filter;
+    private final Map<Task, Node> nodes = new IdentityHashMap<>();
+    private final Random random = new Random(2103);
+    private Node root;
+    private long nextSequence;
+
+    /**
+     * Creates an index of every dated task.
+     */
+    TimeIndex() {
+        this(t -> true);
+    }
+
+    /**
+     * Creates an index of the dated tasks accepted by a filter.
+     *
+     * @param filter Decides which tasks are tracked, e.g. only events.
+     */
+    TimeIndex(Predicate<Task> filter) {
+        this.filter = filter;
+    }
+
+    /**
+     * Starts tracking a task that was added to the list, if it has a date-time.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        long start = t.getStartEpochMinute();
+        if (start == Task.NO_DATE_TIME || !filter.test(t)) {
+            return;
+        }
+        Node node = new Node(t, start, Math.max(start, t.getEndEpochMinute()), nextSequence++, random.nextInt());
+        nodes.put(t, node);
+        Node[] parts = split(root, node.start, node.sequence);
+        root = merge(merge(parts[0], node), parts[1]);
+    }
+
+    /**
+     * Stops tracking a task that was removed from the list.
+     *
+     * @param t The task that was removed.
+     */
+    void remove(Task t) {
+        Node node = nodes.remove(t);
+        if (node == null) {
+            return;
+        }
+        Node[] before = split(root, node.start, node.sequence);
+        Node[] after = split(before[1], node.start, node.sequence + 1);
+        assert after[0] == node : "Only the removed task should have its key";
+        root = merge(before[0], after[1]);
+    }
+
+    /**
+     * Refreshes a task whose date-times may have changed.
+     *
+     * @param t The task that changed.
+     */
+    void update(Task t) {
+        remove(t);
+        add(t);
+    }
+
+    /**
+     * Returns the tasks that overlap the range from {@code from} to {@code to}, in order of start time.
+     *
+     * @param from          The start of the range, as an epoch minute.
+     * @param to            The end of the range, as an epoch minute.
+     * @param isInclusive   Whether a task that only touches an end of the range counts as overlapping.
+     * @return              The overlapping tasks.
+     */
+    List<Task> overlapping(long from, long to, boolean isInclusive) {
+        List<Task> results = new ArrayList<>();
+        collect(root, from, to, isInclusive, results::add);
+        return results;
+    }
+
+    /**
+     * Passes the tasks that overlap the range from {@code from} to {@code to} to an action,
+     * in order of start time, without collecting them first.
+     *
+     * @param from          The start of the range, as an epoch minute.
+     * @param to            The end of the range, as an epoch minute.
+     * @param isInclusive   Whether a task that only touches an end of the range counts as overlapping.
+     * @param action        What to do with each overlapping task.
+     */
+    void forEachOverlapping(long from, long to, boolean isInclusive, Consumer<Task> action) {
+        collect(root, from, to, isInclusive, action);
+    }
+
+    /**
+     * Returns how many tracked tasks start within a range, both ends inclusive.
+     *
+     * @param from  The earliest start, as an epoch minute.
+     * @param to    The latest start, as an epoch minute.
+     * @return      The number of tasks starting in the range.
+     */
+    int countStartingBetween(long from, long to) {
+        if (to < from) {
+            return 0;
+        }
+        return countStartingBefore(to, true) - countStartingBefore(from, false);
+    }
+
+    /**
+     * Returns the number of tracked tasks.
+     *
+     * @return The number of tasks in the index.
+     */
+    int size() {
+        return nodes.size();
+    }
+
+    private int countStartingBefore(long minute, boolean isInclusive) {
+        int count = 0;
+        Node n = root;
+        while (n != null) {
+            if (n.start < minute || (isInclusive && n.start == minute)) {
+                count += Node.sizeOf(n.left) + 1;
+                n = n.right;
+            } else {
+                n = n.left;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns all tracked tasks in order of start time.
+     *
+     * @return The tracked tasks.
+     */
+    List<Task> inOrder() {
+        return overlapping(Long.MIN_VALUE, Long.MAX_VALUE, true);
+    }
+
+    /**
+     * Returns every pair of tracked tasks whose durations overlap, using a sweep line.
+     * <p>
+     * Tasks are visited in start order while a heap holds those still running,
+     * ordered by end. Each task clashes with everything still running when it
+     * starts, so the whole report takes O(n log n + k) for {@code k} clashes.
+     * Tasks that merely touch end to start do not clash.
+     * </p>
+     *
+     * @return The clashing pairs, ordered by the start of the later task.
+     */
+    List<Conflict> conflicts() {
+        List<Conflict> results = new ArrayList<>();
+        PriorityQueue<Node> running = new PriorityQueue<>((a, b) -> Long.compare(a.end, b.end));
+        List<Node> ordered = new ArrayList<>(nodes.size());
+        collectNodes(root, ordered);
+        for (Node n : ordered) {
+            while (!running.isEmpty() && running.peek().end <= n.start) {
+                running.poll();
+            }
+            for (Node other : running) {
+                // Only an instant starting together with a longer task can fail this
+                if (n.end > other.start) {
+                    results.add(new Conflict(other.task, n.task));
+                }
+            }
+            running.add(n);
+        }
+        return results;
+    }
+
+    private static void collectNodes(Node n, List<Node> out) {
+        if (n == null) {
+            return;
+        }
+        collectNodes(n.left, out);
+        out.add(n);
+        collectNodes(n.right, out);
+    }
+
+    private static void collect(Node n, long from, long to, boolean isInclusive, Consumer<Task> out) {
+        if (n == null || (isInclusive ? n.maxEnd < from : n.maxEnd <= from)) {
+            return;
+        }
+        collect(n.left, from, to, isInclusive, out);
+        if (isInclusive ? n.start > to : n.start >= to) {
+            return;
+        }
+        if (isInclusive ? n.end >= from : n.end > from) {
+            out.accept(n.task);
+        }
+        collect(n.right, from, to, isInclusive, out);
+    }
+
+    /**
+     * Splits a subtree into the nodes ordered before the given key and the rest.
+     */
+    private static Node[] split(Node n, long start, long sequence) {
+        if (n == null) {
+            return new Node[] {null, null};
+        }
+        boolean isBefore = n.start < start || (n.start == start && n.sequence < sequence);
+        if (isBefore) {
+            Node[] parts = split(n.right, start, sequence);
+            n.right = parts[0];
+            n.refresh();
+            return new Node[] {n, parts[1]};
+        }
+        Node[] parts = split(n.left, start, sequence);
+        n.left = parts[1];
+        n.refresh();
+        return new Node[] {parts[0], n};
+    }
+
+    /**
+     * Joins two subtrees where every node of {@code a} is ordered before every node of {@code b}.
+     */
+    private static Node merge(Node a, Node b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            a.refresh();
+            return a;
+        }
+        b.left = merge(a, b.left);
+        b.refresh();
+        return b;
+    }
+
+    /**
+     * A task in the treap, holding the latest end minute and the size of its subtree.
+     */
+    private static class Node {
+        private final Task task;
+        private final long start;
+        private final long end;
+        private final long sequence;
+        private final int priority;
+        private long maxEnd;
+        private int size = 1;
+        private Node left;
+        private Node right;
+
+        Node(Task task, long start, long end, long sequence, int priority) {
+            this.task = task;
+            this.start = start;
+            this.end = end;
+            this.sequence = sequence;
+            this.priority = priority;
+            this.maxEnd = end;
+        }
+
+        void refresh() {
+            maxEnd = end;
+            size = 1 + sizeOf(left) + sizeOf(right);
+            if (left != null) {
+                maxEnd = Math.max(maxEnd, left.maxEnd);
+            }
+            if (right != null) {
+                maxEnd = Math.max(maxEnd, right.maxEnd);
+            }
+        }
+
+        static int sizeOf(Node n) {
+            return n == null ? 0 : n.size;
+        }
+    }
+}
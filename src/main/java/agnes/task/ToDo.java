@@ -20,8 +20,9 @@ public class ToDo extends Task {
     @Override
     public String toFileFormat() {
         return String.format(
-                "T | %s",
-                super.toFileFormat()
+                "T | %s%s",
+                super.toFileFormat(),
+                toTagFileFormat()
         );
     }
 
@@ -0,0 +1,153 @@
+package agnes.task;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Indexed binary min-heap of the pending tasks of a {@code TaskList}, ordered by
+ * when they start or are due ({@code Deadline.by}, {@code Event.from}).
+ * <p>
+ * Completed tasks and tasks without a date-time are not held. The position of
+ * every task in the heap is tracked, so a task can be removed or re-keyed in
+ * O(log n) when it is deleted, marked, unmarked or updated, and the next
+ * {@code k} tasks can be read in O(k log k) without disturbing the heap.
+ */
+class UpcomingIndex {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Task[] heap = new Task[INITIAL_CAPACITY];
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int size;
+    private final Map<Task, Integer> positions = new IdentityHashMap<>();
+
+    /**
+     * Starts tracking a task that was added to the list, if it is pending and dated.
+     *
+     * @param t The task that was added.
+     */
+    void add(Task t) {
+        update(t);
+    }
+
+    /**
+     * Stops tracking a task that was removed from the list.
+     *
+     * @param t The task that was removed.
+     */
+    void remove(Task t) {
+        Integer position = positions.remove(t);
+        if (position == null) {
+            return;
+        }
+        int last = --size;
+        if (position != last) {
+            move(last, position);
+            siftDown(position);
+            siftUp(position);
+        }
+        heap[last] = null;
+    }
+
+    /**
+     * Refreshes a task whose completion status or date-time may have changed.
+     *
+     * @param t The task that changed.
+     */
+    void update(Task t) {
+        boolean isTracked = !t.isComplete() && t.getStartEpochMinute() != Task.NO_DATE_TIME;
+        Integer position = positions.get(t);
+        if (!isTracked) {
+            remove(t);
+        } else if (position == null) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+                keys = Arrays.copyOf(keys, size * 2);
+            }
+            heap[size] = t;
+            keys[size] = t.getStartEpochMinute();
+            positions.put(t, size);
+            siftUp(size++);
+        } else {
+            keys[position] = t.getStartEpochMinute();
+            siftDown(position);
+            siftUp(position);
+        }
+    }
+
+    /**
+     * Returns the {@code n} pending tasks that start or are due the soonest, soonest first.
+     *
+     * @param n The maximum number of tasks to return.
+     * @return  Up to {@code n} tasks.
+     */
+    List<Task> peek(int n) {
+        List<Task> result = new ArrayList<>(Math.min(n, size));
+        if (size == 0 || n <= 0) {
+            return result;
+        }
+        // The smallest unvisited entry is always a child of one already returned
+        PriorityQueue<Integer> frontier = new PriorityQueue<>((a, b) -> Long.compare(keys[a], keys[b]));
+        frontier.add(0);
+        while (!frontier.isEmpty() && result.size() < n) {
+            int i = frontier.poll();
+            result.add(heap[i]);
+            int left = 2 * i + 1;
+            if (left < size) {
+                frontier.add(left);
+            }
+            if (left + 1 < size) {
+                frontier.add(left + 1);
+            }
+        }
+        return result;
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (keys[parent] <= keys[i]) {
+                return;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && keys[left] < keys[smallest]) {
+                smallest = left;
+            }
+            if (right < size && keys[right] < keys[smallest]) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            swap(i, smallest);
+            i = smallest;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Task task = heap[a];
+        long key = keys[a];
+        move(b, a);
+        heap[b] = task;
+        keys[b] = key;
+        positions.put(task, b);
+    }
+
+    private void move(int from, int to) {
+        heap[to] = heap[from];
+        keys[to] = keys[from];
+        positions.put(heap[to], to);
+    }
+}
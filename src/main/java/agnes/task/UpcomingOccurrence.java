@@ -0,0 +1,66 @@
+package agnes.task;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * The next time a task is due or starts, frozen when it was looked up.
+ * <p>
+ * It keeps copies of what it needs to find the occurrences after it, so another
+ * thread can walk through them, e.g. to remind the user, while the task itself keeps
+ * changing. Occurrences that were done when it was made stay skipped.
+ * </p>
+ */
+public final class UpcomingOccurrence {
+    private final LocalDateTime time;
+    private final Recurrence recurrence;
+    private final LocalDateTime first;
+    private final long index;
+    private final int[] markedAfter;
+
+    /**
+     * Creates the occurrence {@code index} of a recurring task, or a one-off time if
+     * {@code recurrence} is {@code null}.
+     *
+     * @param time          When the occurrence is due or starts.
+     * @param recurrence    How often the task repeats, or {@code null}.
+     * @param first         When the first occurrence is due or starts.
+     * @param index         The index of this occurrence.
+     * @param markedAfter   The done occurrences after this one, in ascending order; not copied.
+     */
+    UpcomingOccurrence(LocalDateTime time, Recurrence recurrence, LocalDateTime first, long index,
+            int[] markedAfter) {
+        this.time = time;
+        this.recurrence = recurrence;
+        this.first = first;
+        this.index = index;
+        this.markedAfter = markedAfter;
+    }
+
+    /**
+     * Returns when this occurrence is due or starts.
+     *
+     * @return The date-time of the occurrence.
+     */
+    public LocalDateTime getTime() {
+        return time;
+    }
+
+    /**
+     * Returns the next occurrence that was not done when this one was looked up.
+     *
+     * @return The following occurrence, or {@code null} if the task does not repeat.
+     */
+    public UpcomingOccurrence next() {
+        if (recurrence == null) {
+            return null;
+        }
+        long k = index + 1;
+        int i = Arrays.binarySearch(markedAfter, (int) Math.min(k, Integer.MAX_VALUE));
+        while (i >= 0 && i < markedAfter.length && markedAfter[i] == k) {
+            k++;
+            i++;
+        }
+        return new UpcomingOccurrence(recurrence.getOccurrence(first, k), recurrence, first, k, markedAfter);
+    }
+}
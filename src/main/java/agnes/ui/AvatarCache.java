@@ -0,0 +1,85 @@
+package agnes.ui;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+import javafx.stage.Screen;
+
+/**
+ * Caches the avatar images shown beside each dialog bubble.
+ * <p>
+ * Each avatar is decoded once at the size it is displayed at (scaled up for
+ * HiDPI screens) and clipped to a rounded square a single time. The resulting
+ * {@code Image} is shared by every {@code DialogBox}, so a bubble no longer
+ * scales and clips the full resolution picture on its own.
+ * <p>
+ * Must be used on the JavaFX Application Thread, as the rounded corners are
+ * rendered with a node snapshot.
+ */
+public class AvatarCache {
+    /** Matches the {@code fitWidth}/{@code fitHeight} of the ImageView in DialogBox.fxml. */
+    public static final double AVATAR_SIZE = 99.0;
+    private static final double ARC_SIZE = 30.0;
+
+    private static final Map<String, Image> CACHE = new HashMap<>();
+
+    private AvatarCache() {
+    }
+
+    /**
+     * Returns the rounded avatar for the given resource path, decoding it on first use.
+     *
+     * @param path  The classpath location of the image, e.g. {@code /images/agnes.jpg}.
+     * @return      The shared, pre-scaled and pre-clipped avatar.
+     * @throws NullPointerException If no image exists at the given path.
+     */
+    public static Image get(String path) {
+        double scale = getOutputScale();
+        String key = path + "@" + scale;
+        Image cached = CACHE.get(key);
+        if (cached == null) {
+            cached = render(path, scale);
+            CACHE.put(key, cached);
+        }
+        return cached;
+    }
+
+    /**
+     * Decodes the image straight to its on-screen pixel size and bakes the rounded clip into it.
+     *
+     * @param path  The classpath location of the image.
+     * @param scale The output scale of the screen the avatar is drawn on.
+     * @return      The rendered avatar.
+     */
+    private static Image render(String path, double scale) {
+        InputStream in = AvatarCache.class.getResourceAsStream(path);
+        if (in == null) {
+            throw new NullPointerException("Missing image resource: " + path);
+        }
+        double size = AVATAR_SIZE * scale;
+        Image decoded = new Image(in, size, size, true, true);
+
+        ImageView view = new ImageView(decoded);
+        Rectangle clip = new Rectangle(decoded.getWidth(), decoded.getHeight());
+        clip.setArcWidth(ARC_SIZE * scale);
+        clip.setArcHeight(ARC_SIZE * scale);
+        view.setClip(clip);
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        params.setViewport(new Rectangle2D(0, 0, decoded.getWidth(), decoded.getHeight()));
+        return view.snapshot(params, null);
+    }
+
+    private static double getOutputScale() {
+        Screen screen = Screen.getPrimary();
+        return Math.max(1.0, Math.max(screen.getOutputScaleX(), screen.getOutputScaleY()));
+    }
+}
@@ -12,7 +12,6 @@ import javafx.scene.control.Label;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.HBox;
-import javafx.scene.shape.Rectangle;
 
 
 /**
@@ -41,15 +40,9 @@ public class DialogBox extends HBox {
         }
 
         dialog.setText(text);
+        // The avatar comes from AvatarCache already scaled and rounded,
+        // so the bubble neither clips nor rescales it at draw time.
         displayPicture.setImage(img);
-
-        Rectangle clip = new Rectangle();
-        clip.setArcWidth(30);
-        clip.setArcHeight(30);
-        clip.widthProperty().bind(displayPicture.fitWidthProperty());
-        clip.heightProperty().bind(displayPicture.fitHeightProperty());
-
-        displayPicture.setClip(clip);
     }
 
     private void flip() {
@@ -1,9 +1,11 @@
 package agnes.ui;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 import agnes.Agnes;
 import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.ScrollPane;
@@ -43,8 +45,8 @@ public class MainWindow extends AnchorPane {
             //Missing Error Handling Image loading in MainWindow doesn't handle
             //NullPointerException if images are missing.
             //
-            userImage = new Image(this.getClass().getResourceAsStream("/images/yiheng.jpg"));
-            dukeImage = new Image(this.getClass().getResourceAsStream("/images/agnes.jpg"));
+            userImage = AvatarCache.get("/images/yiheng.jpg");
+            dukeImage = AvatarCache.get("/images/agnes.jpg");
         } catch (NullPointerException e) {
             System.err.println("Error loading images: " + e.getMessage());
         }
@@ -56,10 +58,20 @@ public class MainWindow extends AnchorPane {
         );
     }
 
-    /** Injects the Agnes instance and Stage reference */
+    /**
+     * Injects the Agnes instance and Stage reference, and shows its reminders, and changes
+     * picked up from the task file, as they happen
+     */
     public void setAgnes(Agnes d, Stage stage) {
         agnes = d;
         this.stage = stage;
+        Consumer<List<String>> notice = messages -> Platform.runLater(() -> {
+            for (String msg : messages) {
+                dialogContainer.getChildren().add(DialogBox.getAgnesDialog(msg, dukeImage));
+            }
+        });
+        agnes.startReminders(notice);
+        agnes.startWatching(notice);
     }
 
     /**
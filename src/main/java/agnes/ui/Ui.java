@@ -1,13 +1,26 @@
 package agnes.ui;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import agnes.Agnes;
+import agnes.metrics.CommandMetrics;
+import agnes.metrics.LatencyHistogram;
+import agnes.parser.Command;
+import agnes.parser.ResponseCache;
+import agnes.storage.Storage;
+import agnes.task.Conflict;
+import agnes.task.DescriptionPool;
+import agnes.task.SortKey;
 import agnes.task.Task;
 import agnes.task.TaskList;
+import agnes.task.TaskSummary;
+import agnes.util.DateTimeUtil;
 
 /**
  * Handles all user interactions and output formatting for the Agnes application.
@@ -19,6 +32,7 @@ import agnes.task.TaskList;
 public class Ui {
 
     private static final String LINE = "\t------------------------------------";
+    private static final int BULK_PREVIEW_SIZE = 5;
 
     /**
      * Wraps a message to be printed with the dotted lines for visual.
@@ -105,6 +119,31 @@ public class Ui {
         return List.of(wrap(lines.toArray(new String[0])));
     }
 
+    /**
+     * Returns a String of a list of tasks taking place within a period.
+     * <p>
+     * If the list is empty, returns a message indicating no tasks were found.
+     * </p>
+     *
+     * @param tasks the tasks within the period, in time order
+     * @param from  the start of the period
+     * @param to    the end of the period
+     */
+    public List<String> getTasksBetween(List<Task> tasks, LocalDateTime from, LocalDateTime to) {
+        assert tasks != null : "Task list for period display should not be null";
+        String period = DateTimeUtil.formatDateTime(from) + " and " + DateTimeUtil.formatDateTime(to);
+        if (tasks.isEmpty()) {
+            return List.of(wrap("Nothing between " + period + ". Free and easy!"));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, tasks.size())
+                .mapToObj(i -> (i + 1) + ". " + tasks.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Here's what's happening between " + period + ":");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
     /**
      * Returns a message of a list of tasks containing a certain given keyword.
      * <p>
@@ -130,6 +169,153 @@ public class Ui {
         return List.of(wrap(lines.toArray(new String[0])));
     }
 
+    /**
+     * Returns a message of the tasks with some tags.
+     * <p>
+     * If the list is empty, returns a message indicating no tasks were found.
+     * </p>
+     *
+     * @param tasks     the tasks with every tag, in list order
+     * @param filter    the tags and status as the user typed them
+     */
+    public List<String> getTasksTagged(List<Task> tasks, String filter) {
+        assert tasks != null : "Tagged task list should not be null";
+        if (tasks.isEmpty()) {
+            return List.of(wrap("No tasks with " + filter + " leh..."));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, tasks.size())
+                .mapToObj(i -> (i + 1) + ". " + tasks.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Here are your tasks with " + filter + ":");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a message of the first tasks of the list in some order.
+     * <p>
+     * If only some of the tasks are shown, says how many more there are.
+     * If the list is empty, returns a message indicating no tasks were found.
+     * </p>
+     *
+     * @param tasks     the tasks shown, in order
+     * @param total     the number of tasks in the list
+     * @param key       the order the tasks are in
+     */
+    public List<String> getSortedTasks(List<Task> tasks, int total, SortKey key) {
+        assert tasks != null : "Sorted task list should not be null";
+        if (tasks.isEmpty()) {
+            return List.of(wrap("No tasks in your list!"));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, tasks.size())
+                .mapToObj(i -> (i + 1) + ". " + tasks.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Here are your tasks by " + key.getDescription() + ":");
+        if (total > tasks.size()) {
+            lines.add("... and " + (total - tasks.size()) + " more");
+        }
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a message of the tasks matching a query.
+     * <p>
+     * If the list is empty, returns a message indicating no tasks were found.
+     * </p>
+     *
+     * @param tasks     the matching tasks, dated tasks in time order followed by todos
+     * @param query     the conditions as the user typed them
+     */
+    public List<String> getQueryResults(List<Task> tasks, String query) {
+        assert tasks != null : "Query results list should not be null";
+        if (tasks.isEmpty()) {
+            return List.of(wrap("Nothing matches " + query + " leh..."));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, tasks.size())
+                .mapToObj(i -> (i + 1) + ". " + tasks.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Here's what matches " + query + ":");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a message of the next pending tasks in time order.
+     * <p>
+     * If the list is empty, returns a message indicating nothing is coming up.
+     * </p>
+     *
+     * @param tasks the upcoming tasks, soonest first
+     */
+    public List<String> getUpcomingTasks(List<Task> tasks) {
+        assert tasks != null : "Upcoming tasks should not be null";
+        if (tasks.isEmpty()) {
+            return List.of(wrap("Nothing coming up. Shiok!"));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, tasks.size())
+                .mapToObj(i -> (i + 1) + ". " + tasks.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Here's what's coming up next:");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a warning that a newly added event clashes with existing events.
+     *
+     * @param clashes the existing events overlapping the new one
+     */
+    public List<String> getClashWarning(List<Task> clashes) {
+        assert clashes != null && !clashes.isEmpty() : "Clash warning needs at least one clash";
+        List<String> lines = java.util.stream.IntStream.range(0, clashes.size())
+                .mapToObj(i -> (i + 1) + ". " + clashes.get(i))
+                .collect(Collectors.toList());
+        lines.add(0, "Eh careful, this clashes with:");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a message listing every pair of events that clash.
+     * <p>
+     * If there are none, returns a message saying so.
+     * </p>
+     *
+     * @param conflicts the clashing pairs of events
+     */
+    public List<String> getConflicts(List<Conflict> conflicts) {
+        assert conflicts != null : "Conflicts should not be null";
+        if (conflicts.isEmpty()) {
+            return List.of(wrap("No clashes. Your schedule is steady!"));
+        }
+
+        List<String> lines = java.util.stream.IntStream.range(0, conflicts.size())
+                .mapToObj(i -> (i + 1) + ". " + conflicts.get(i).getFirst()
+                        + "\n   clashes with " + conflicts.get(i).getSecond())
+                .collect(Collectors.toList());
+        lines.add(0, "These events clash:");
+
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a reminder that a deadline is due or an event is starting.
+     *
+     * @param message the description of the task being reminded of
+     * @param time    when the task is due or starts
+     */
+    public List<String> getReminder(String message, LocalDateTime time) {
+        assert message != null : "Reminded task should have a description";
+        return List.of(wrap(
+                "Ding dong! Reminder for " + DateTimeUtil.formatDateTime(time) + ":",
+                message
+        ));
+    }
 
     /**
      * Returns a message indicating that a new task has been added.
@@ -163,6 +349,22 @@ public class Ui {
         ));
     }
 
+    /**
+     * Returns a single summary of many tasks deleted at once.
+     * Only the first few tasks are listed.
+     *
+     * @param removed    the tasks that were deleted
+     * @param totalTasks the total number of tasks remaining
+     */
+    public List<String> getTasksDeleted(List<Task> removed, int totalTasks) {
+        assert totalTasks >= 0 : "Total task count cannot be negative";
+        List<String> lines = new ArrayList<>();
+        lines.add("Siao EH. I've removed " + removed.size() + " tasks:");
+        lines.addAll(getPreview(removed));
+        lines.add("Now you have " + totalTasks + " tasks in the list.");
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
     /**
      * Returns a message indicating whether a task has been marked as done or not done.
      *
@@ -180,6 +382,88 @@ public class Ui {
         ));
     }
 
+    /**
+     * Returns a single summary of many tasks marked as done or not done at once.
+     * Only the first few tasks are listed.
+     *
+     * @param tasks  the tasks being marked
+     * @param isDone true if the tasks are marked as done, false otherwise
+     */
+    public List<String> getTasksMarked(List<Task> tasks, boolean isDone) {
+        List<String> lines = new ArrayList<>();
+        lines.add(isDone
+                ? "Nice! I've marked " + tasks.size() + " tasks as done:"
+                : "WTF... FINE..., I've marked " + tasks.size() + " tasks as not done yet:");
+        lines.addAll(getPreview(tasks));
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Lists the first {@value #BULK_PREVIEW_SIZE} tasks of a bulk change, and how many more there were.
+     */
+    private List<String> getPreview(List<Task> tasks) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < Math.min(BULK_PREVIEW_SIZE, tasks.size()); i++) {
+            lines.add(tasks.get(i).toString());
+        }
+        if (tasks.size() > BULK_PREVIEW_SIZE) {
+            lines.add("... and " + (tasks.size() - BULK_PREVIEW_SIZE) + " more");
+        }
+        return lines;
+    }
+
+    /**
+     * Returns a summary of the tasks imported from a file.
+     *
+     * @param imported   the number of tasks added
+     * @param skipped    the number of records that could not be read
+     * @param totalTasks the total number of tasks after importing
+     */
+    public List<String> getTasksImported(int imported, int skipped, int totalTasks) {
+        List<String> lines = new ArrayList<>();
+        lines.add("Shiok! I've imported " + imported + " tasks.");
+        if (skipped > 0) {
+            lines.add("I skipped " + skipped + " records I couldn't make sense of.");
+        }
+        lines.add("Now you have " + totalTasks + " tasks in the list.");
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a summary of the changes to the task file that were merged into the list.
+     *
+     * @param result     what the reload merged and set aside
+     * @param totalTasks the total number of tasks after reloading
+     */
+    public List<String> getTasksReloaded(Storage.ReloadResult result, int totalTasks) {
+        if (!result.hasChanges()) {
+            return List.of(wrap("Your task file hasn't changed since I last saved it."));
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("Your task file was changed, so I've picked up " + result.getAdded() + " new, "
+                + result.getChanged() + " changed and " + result.getRemoved() + " removed tasks.");
+        if (result.getSkipped() > 0) {
+            lines.add("I skipped " + result.getSkipped() + " lines I couldn't make sense of.");
+        }
+        if (!result.getConflicts().isEmpty()) {
+            lines.add("These lines clashed with changes you made here, so I kept yours"
+                    + " and put them in the " + Storage.CONFLICTS_SUFFIX + " file:");
+            lines.addAll(result.getConflicts());
+        }
+        lines.add("Now you have " + totalTasks + " tasks in the list.");
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns a message indicating that the tasks were written to a file.
+     *
+     * @param count the number of tasks written
+     * @param file  the file written to
+     */
+    public List<String> getTasksExported(int count, String file) {
+        return List.of(wrap("Done! I've exported " + count + " tasks to " + file + "."));
+    }
+
     /**
      * Returns a list of messages to curse at the user.
      *
@@ -212,4 +496,81 @@ public class Ui {
         ));
     }
 
+    /**
+     * Returns an overview of the tasks in the list.
+     *
+     * @param summary   the counts of the tasks
+     * @return          the list of display messages to the user.
+     */
+    public List<String> getSummary(TaskSummary summary) {
+        assert summary != null : "Summary should not be null";
+        return List.of(wrap(
+                "Here's how your tasks are doing:",
+                String.format("%d tasks: %d todos, %d deadlines, %d events",
+                        summary.getTotal(), summary.getTodos(), summary.getDeadlines(), summary.getEvents()),
+                String.format("%d done, %d pending", summary.getDone(), summary.getPending()),
+                String.format("%d overdue, %d due this week", summary.getOverdue(), summary.getDueThisWeek())));
+    }
+
+    /**
+     * Returns the latency distribution of every command and storage operation used so far.
+     *
+     * @param metrics   the collected latencies
+     * @return          the list of display messages to the user.
+     */
+    public List<String> getLatencyStats(CommandMetrics metrics) {
+        assert metrics != null : "Metrics should not be null";
+        Map<Command, LatencyHistogram> commands = metrics.getCommandHistograms();
+        Map<String, LatencyHistogram> operations = metrics.getOperationHistograms();
+
+        List<String> lines = new ArrayList<>();
+        lines.add("Here's where the time went:");
+        commands.forEach((command, h) -> lines.add(formatLatency(command.name().toLowerCase(), h)));
+        operations.forEach((operation, h) -> lines.add(formatLatency(operation, h)));
+        return List.of(wrap(lines.toArray(new String[0])));
+    }
+
+    /**
+     * Returns how much the description pool has deduplicated so far.
+     *
+     * @param pool  the pool shared by all tasks
+     * @return      the list of display messages to the user.
+     */
+    public List<String> getDescriptionPoolStats(DescriptionPool pool) {
+        assert pool != null : "Description pool should not be null";
+        return List.of(wrap(
+                "Descriptions I'm sharing between tasks: " + pool.size(),
+                String.format("Reused %d of %d descriptions, saving about %.1f KB",
+                        pool.getHits(), pool.getHits() + pool.getMisses(), pool.getBytesSaved() / 1024.0)
+        ));
+    }
+
+    /**
+     * Returns how often responses to read-only commands were reused.
+     *
+     * @param cache the cache of responses
+     * @return      the list of display messages to the user.
+     */
+    public List<String> getResponseCacheStats(ResponseCache cache) {
+        assert cache != null : "Response cache should not be null";
+        return List.of(wrap(
+                String.format("Answers I remembered: %d hits, %d misses, %d of %d kept",
+                        cache.getHits(), cache.getMisses(), cache.size(), cache.getCapacity())));
+    }
+
+    private String formatLatency(String name, LatencyHistogram h) {
+        return String.format("%s: %d calls, p50 %s, p99 %s, max %s",
+                name,
+                h.getCount(),
+                formatNanos(h.getValueAtPercentile(50)),
+                formatNanos(h.getValueAtPercentile(99)),
+                formatNanos(h.getMax()));
+    }
+
+    private String formatNanos(long nanos) {
+        if (nanos < 1_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
 }
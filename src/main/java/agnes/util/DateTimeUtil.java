@@ -1,7 +1,9 @@
 package agnes.util;
 
+import java.time.DateTimeException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
@@ -18,6 +20,8 @@ public class DateTimeUtil {
     private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     private static final DateTimeFormatter FORMATTED_DATE_TIME = DateTimeFormatter.ofPattern("MMM dd yyyy HH:mm");
     private static final DateTimeFormatter FORMATTED_DATE_ONLY = DateTimeFormatter.ofPattern("MMM dd yyyy");
+    /** Number of minutes in a day. */
+    public static final long MINUTES_PER_DAY = 24 * 60;
 
     /**
      * Convert's the user's {@code String} input of DateTime into {@code LocalDateTime} object.
@@ -29,6 +33,10 @@ public class DateTimeUtil {
      * @throws DateTimeParseException       If the input format is incorrect.
      */
     public static LocalDateTime parseDateTime(String input) throws DateTimeParseException {
+        LocalDateTime parsed = parseDigits(input);
+        if (parsed != null) {
+            return parsed;
+        }
         try {
             return LocalDateTime.parse(input, DATE_TIME_FORMAT);
         } catch (DateTimeParseException e) {
@@ -37,6 +45,70 @@ public class DateTimeUtil {
         }
     }
 
+    /**
+     * Parses well-formed {@code yyyy-MM-dd HHmm} and {@code yyyy-MM-dd} input without a
+     * {@code DateTimeFormatter}, which is several times faster when importing many dates.
+     *
+     * @param input The user's input string.
+     * @return      The date-time, or {@code null} if the input needs the formatters to decide.
+     */
+    private static LocalDateTime parseDigits(String input) {
+        boolean hasTime = input.length() == 15 && input.charAt(10) == ' ';
+        if (!(hasTime || input.length() == 10) || input.charAt(4) != '-' || input.charAt(7) != '-') {
+            return null;
+        }
+        int year = digits(input, 0, 4);
+        int month = digits(input, 5, 7);
+        int day = digits(input, 8, 10);
+        int hour = hasTime ? digits(input, 11, 13) : 0;
+        int minute = hasTime ? digits(input, 13, 15) : 0;
+        if ((year | month | day | hour | minute) < 0) {
+            return null;
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute);
+        } catch (DateTimeException e) {
+            // Leave out-of-range fields to the formatters' resolving rules
+            return null;
+        }
+    }
+
+    private static int digits(String input, int from, int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            char c = input.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Convert's the user's {@code String} input of the end of a period into {@code LocalDateTime}.
+     * <p>
+     * Accepts the same formats as {@link #parseDateTime(String)}, but a date without a
+     * time means the end of that day rather than its start, so that the whole day is included.
+     * </p>
+     *
+     * @param input                         The user's input string.
+     * @return                              The parsed {@code LocalDateTime}.
+     * @throws DateTimeParseException       If the input format is incorrect.
+     */
+    public static LocalDateTime parseEndDateTime(String input) throws DateTimeParseException {
+        LocalDateTime parsed = parseDigits(input);
+        if (parsed != null) {
+            return input.length() == 10 ? parsed.withHour(23).withMinute(59) : parsed;
+        }
+        try {
+            return LocalDateTime.parse(input, DATE_TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            LocalDate date = LocalDate.parse(input, DATE_FORMAT);
+            return date.atTime(23, 59);
+        }
+    }
+
     /**
      * Parses a formatted DateTime string (as stored in task.txt) into a {@code LocalDateTime} object.
      * <p>
@@ -71,4 +143,39 @@ public class DateTimeUtil {
         }
         return dt.format(outDateTime);
     }
+
+    /**
+     * Converts a {@code LocalDateTime} into the number of minutes since 1970-01-01 00:00.
+     * <p>
+     * Tasks store their date-times in this compact form, as user input never carries
+     * seconds. Any seconds in {@code dt} are dropped.
+     * </p>
+     *
+     * @param dt    The {@code LocalDateTime} object
+     * @return      The epoch minute of {@code dt}.
+     */
+    public static long toEpochMinute(LocalDateTime dt) {
+        return Math.floorDiv(dt.toEpochSecond(ZoneOffset.UTC), 60);
+    }
+
+    /**
+     * Converts an epoch minute created by {@link #toEpochMinute(LocalDateTime)} back into a
+     * {@code LocalDateTime}.
+     *
+     * @param epochMinute   The number of minutes since 1970-01-01 00:00.
+     * @return              The corresponding {@code LocalDateTime}.
+     */
+    public static LocalDateTime fromEpochMinute(long epochMinute) {
+        return LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Returns the epoch day (days since 1970-01-01) that an epoch minute falls on.
+     *
+     * @param epochMinute   The number of minutes since 1970-01-01 00:00.
+     * @return              The epoch day of the minute.
+     */
+    public static long toEpochDay(long epochMinute) {
+        return Math.floorDiv(epochMinute, MINUTES_PER_DAY);
+    }
 }
@@ -0,0 +1,89 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+public class AgnesServerTest {
+    private static AgnesServer startServer() throws Exception {
+        Agnes agnes = new Agnes(Files.createTempDirectory("agnes").resolve("tasks.txt").toString());
+        return new AgnesServer(agnes, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+    }
+
+    private static List<String> readReply(BufferedReader in) throws Exception {
+        List<String> lines = new ArrayList<>();
+        String line;
+        while (!(line = in.readLine()).equals(".")) {
+            lines.add(line.startsWith(".") ? line.substring(1) : line);
+        }
+        return lines;
+    }
+
+    @Test
+    public void serve_pipelinedCommands_repliesInOrder() throws Exception {
+        int count = 2000;
+        try (AgnesServer server = startServer(); Socket socket = new Socket()) {
+            socket.connect(server.getAddress());
+            BufferedReader in = new BufferedReader(
+                    new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+            // Write every command before reading any reply, from another thread so that
+            // the server's backpressure cannot deadlock the test
+            Thread writer = new Thread(() -> {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < count; i++) {
+                    sb.append("todo task ").append(i).append('\n');
+                }
+                sb.append("\n").append("find task 1999\r\n").append("bye\n").append("list\n");
+                try {
+                    OutputStream out = socket.getOutputStream();
+                    out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+
+            for (int i = 0; i < count; i++) {
+                List<String> reply = readReply(in);
+                assertTrue(reply.contains("Now you have " + (i + 1) + " tasks in the list."),
+                        reply.toString());
+            }
+            assertTrue(readReply(in).toString().contains("task 1999"));
+            assertTrue(readReply(in).get(0).contains("Goodbye"));
+            assertNull(in.readLine(), "The connection should close after bye");
+            writer.join();
+        }
+    }
+
+    @Test
+    public void serve_twoClients_shareOneList() throws Exception {
+        try (AgnesServer server = startServer(); Socket first = new Socket(); Socket second = new Socket()) {
+            first.connect(server.getAddress());
+            second.connect(server.getAddress());
+            BufferedReader firstIn = new BufferedReader(new InputStreamReader(first.getInputStream()));
+            BufferedReader secondIn = new BufferedReader(new InputStreamReader(second.getInputStream()));
+
+            first.getOutputStream().write("todo from first\n".getBytes(StandardCharsets.UTF_8));
+            readReply(firstIn);
+            second.getOutputStream().write("list\n".getBytes(StandardCharsets.UTF_8));
+            List<String> reply = readReply(secondIn);
+            assertEquals(2, reply.size());
+            assertTrue(reply.get(1).contains("from first"));
+        }
+    }
+}
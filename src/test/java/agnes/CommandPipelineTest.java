@@ -0,0 +1,68 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.metrics.CommandMetrics;
+import agnes.parser.Parser;
+import agnes.pipeline.CommandPipeline;
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+import agnes.ui.Ui;
+
+public class CommandPipelineTest {
+    @Test
+    public void publish_manyProducers_appliedOnceInOrderAndSaved() throws Exception {
+        int producers = 4;
+        int perProducer = 2000;
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        TaskList tasks = new TaskList();
+        Storage storage = new Storage(file.toString());
+        CommandMetrics metrics = new CommandMetrics();
+        Parser parser = new Parser(tasks, storage, new Ui(), metrics);
+        List<List<String>> replies = new ArrayList<>();
+
+        try (CommandPipeline pipeline = new CommandPipeline(parser, tasks, storage, metrics, 64)) {
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                List<String> received = Collections.synchronizedList(new ArrayList<>());
+                replies.add(received);
+                String name = "producer" + p;
+                threads.add(new Thread(() -> {
+                    for (int i = 0; i < perProducer; i++) {
+                        pipeline.publish("todo " + name + " task " + i, response -> received.add(response.get(0)));
+                    }
+                }));
+            }
+            threads.forEach(Thread::start);
+            for (Thread t : threads) {
+                t.join();
+            }
+            pipeline.awaitReplies();
+            assertTrue(pipeline.call("list").get(0).contains("producer3 task 1999"));
+        }
+
+        assertEquals(producers * perProducer, tasks.size());
+        for (int p = 0; p < producers; p++) {
+            List<String> received = replies.get(p);
+            assertEquals(perProducer, received.size());
+            for (int i = 0; i < perProducer; i++) {
+                assertTrue(received.get(i).contains("producer" + p + " task " + i + "\n"), received.get(i));
+            }
+        }
+
+        TaskList loaded = new TaskList();
+        storage.load(loaded);
+        assertEquals(tasks.size(), loaded.size());
+        long saves = metrics.getOperationHistograms().get(CommandMetrics.STORAGE_SAVE).getCount();
+        assertTrue(saves < producers * perProducer, "Saves should be batched, but there were " + saves);
+    }
+}
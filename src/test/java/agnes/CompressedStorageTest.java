@@ -0,0 +1,121 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.storage.Storage;
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class CompressedStorageTest {
+
+    private static TaskList manyTasks(int count) {
+        TaskList tasks = new TaskList();
+        LocalDateTime start = LocalDateTime.of(2026, 1, 1, 9, 0);
+        for (int i = 0; i < count; i++) {
+            switch (i % 3) {
+            case 0:
+                tasks.addTask(new ToDo("todo number " + i));
+                break;
+            case 1:
+                tasks.addTask(new Deadline("deadline " + i, start.plusHours(i),
+                        i % 100 == 1 ? Recurrence.parse("week") : null));
+                break;
+            default:
+                tasks.addTask(new Event("event " + i, start.plusHours(i), start.plusHours(i + 2)));
+                break;
+            }
+            if (i % 7 == 0) {
+                tasks.markTask(i);
+            }
+        }
+        return tasks;
+    }
+
+    private static void assertSameTasks(TaskList expected, TaskList actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toFileFormat(), actual.get(i).toFileFormat());
+        }
+    }
+
+    @Test
+    public void saveAndLoad_compressedFile_roundTripsAcrossManyBlocks() throws Exception {
+        Path dir = Files.createTempDirectory("agnes");
+        Path file = dir.resolve("tasks.agz");
+        TaskList original = manyTasks(20000);
+        Storage storage = new Storage(file.toString());
+        storage.save(original);
+        assertTrue(Files.size(file) > 0);
+
+        TaskList loaded = new TaskList();
+        new Storage(file.toString()).load(loaded);
+        assertSameTasks(original, loaded);
+
+        // Saving again after an edit reuses most blocks, but must still store the edit
+        original.removeTask(10000);
+        original.addTask(new ToDo("added later"));
+        storage.save(original);
+        TaskList reloaded = new TaskList();
+        new Storage(file.toString()).load(reloaded);
+        assertSameTasks(original, reloaded);
+    }
+
+    @Test
+    public void load_missingCompressedFile_migratesPlainFile() throws Exception {
+        Path dir = Files.createTempDirectory("agnes");
+        TaskList original = manyTasks(50);
+        new Storage(dir.resolve("tasks.txt").toString()).save(original);
+
+        TaskList loaded = new TaskList();
+        new Storage(dir.resolve("tasks.agz").toString()).load(loaded);
+        assertSameTasks(original, loaded);
+    }
+
+    @Test
+    public void load_corruptBlock_loadsOtherBlocksAndKeepsCopy() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.agz");
+        TaskList tasks = manyTasks(5000);
+        new Storage(file.toString()).save(tasks);
+        byte[] bytes = Files.readAllBytes(file);
+        // Inside the first block, just after the header
+        bytes[8] ^= 0x5A;
+        Files.write(file, bytes);
+
+        Storage storage = new Storage(file.toString());
+        TaskList loaded = new TaskList();
+        storage.load(loaded);
+        assertTrue(loaded.size() > 0 && loaded.size() < 5000, "Only the corrupt block is lost: " + loaded.size());
+        assertEquals(tasks.get(4999).toFileFormat(), loaded.get(loaded.size() - 1).toFileFormat());
+
+        storage.save(loaded);
+        Path copy = Path.of(file + Storage.DAMAGED_SUFFIX);
+        assertArrayEquals(bytes, Files.readAllBytes(copy));
+    }
+
+    @Test
+    public void load_damagedIndex_loadsNothingAndKeepsCopy() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.agz");
+        new Storage(file.toString()).save(manyTasks(200));
+        byte[] bytes = Files.readAllBytes(file);
+        // The compressed length of the only block, in the index just before the footer
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 16 - 8, -5);
+        Files.write(file, bytes);
+
+        TaskList loaded = new TaskList();
+        new Storage(file.toString()).load(loaded);
+        assertEquals(0, loaded.size());
+        assertArrayEquals(bytes, Files.readAllBytes(Path.of(file + Storage.DAMAGED_SUFFIX)));
+    }
+}
@@ -0,0 +1,47 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.task.DescriptionPool;
+import agnes.task.ToDo;
+
+public class DescriptionPoolTest {
+
+    @Test
+    public void internReturnsSharedCopyTest() {
+        DescriptionPool pool = new DescriptionPool(10);
+        String first = new String("Math Homework");
+        String second = new String("Math Homework");
+
+        assertTrue(pool.intern(first) == first);
+        assertTrue(pool.intern(second) == first);
+        assertEquals(1, pool.getHits());
+        assertTrue(pool.getBytesSaved() > 0);
+    }
+
+    @Test
+    public void poolIsBoundedTest() {
+        DescriptionPool pool = new DescriptionPool(1);
+        String kept = "gym";
+        String notKept = new String("standup");
+        pool.intern(kept);
+        pool.intern(notKept);
+
+        assertEquals(1, pool.size());
+        assertTrue(pool.intern(new String("standup")) != notKept);
+    }
+
+    @Test
+    public void tasksShareDescriptionsTest() {
+        ToDo a = new ToDo(new String("water the plants"));
+        ToDo b = new ToDo(new String("water the plants"));
+        assertTrue(a.getMessage() == b.getMessage());
+
+        b.setMessage(new String("read book"));
+        a.setMessage(new String("read book"));
+        assertTrue(a.getMessage() == b.getMessage());
+    }
+}
@@ -0,0 +1,109 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class FuzzySearchTest {
+
+    @Test
+    public void findFuzzy_typo_rankedByDistance() {
+        TaskList tasks = new TaskList();
+        ToDo homework = new ToDo("CS2103 homework");
+        ToDo homeworks = new ToDo("more homeworks");
+        ToDo housework = new ToDo("housework");
+        tasks.addTask(homeworks);
+        tasks.addTask(new ToDo("buy milk"));
+        tasks.addTask(housework);
+        tasks.addTask(homework);
+
+        assertEquals(List.of(), tasks.find("homewrok"));
+        assertEquals(List.of(homework), tasks.findFuzzy("homewrok"));
+        assertEquals(List.of(homework, homeworks, housework), tasks.findFuzzy("homework"));
+        assertEquals(List.of(homework), tasks.findFuzzy("HOMEWORK cs2103"));
+        assertEquals(List.of(), tasks.findFuzzy("ox"));
+    }
+
+    @Test
+    public void findFuzzy_afterUpdateAndDelete_staysUpToDate() throws Exception {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new ToDo("laundry"));
+        tasks.addTask(new ToDo("groceries"));
+        assertEquals(1, tasks.findFuzzy("laundy").size());
+
+        tasks.updateTask("1", "/description", "ironing");
+        assertEquals(List.of(), tasks.findFuzzy("laundy"));
+        assertEquals(List.of(tasks.get(0)), tasks.findFuzzy("ironnig"));
+
+        tasks.removeTask(0);
+        assertEquals(List.of(), tasks.findFuzzy("ironnig"));
+        tasks.addTask(new ToDo("iron shirts"));
+        assertEquals(List.of(tasks.get(1)), tasks.findFuzzy("irn"));
+    }
+
+    /**
+     * Compares the BK-tree with a direct edit distance check of every word, while tasks
+     * come and go often enough for the tree to be rebuilt.
+     */
+    @Test
+    public void findFuzzy_randomWords_matchesBruteForce() throws Exception {
+        Random random = new Random(42);
+        TaskList tasks = new TaskList();
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 4000; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 3 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(6)));
+            }
+            words.add(word.toString());
+        }
+        tasks.findFuzzy("warm up");
+        // Only to-dos are added, so no deadline is ever moved
+        RandomTaskChanges.apply(random, tasks, 6000, (r, step) -> new ToDo(words.get(r.nextInt(words.size()))),
+                r -> null, step -> {
+                    if (step % 200 != 0) {
+                        return;
+                    }
+                    String term = words.get(random.nextInt(words.size()));
+                    int max = term.length() <= 5 ? 1 : 2;
+                    List<Task> found = tasks.findFuzzy(term);
+                    int expected = 0;
+                    for (Task t : tasks.getAll()) {
+                        if (levenshtein(term, t.getMessage()) <= max) {
+                            expected++;
+                            assertTrue(found.contains(t), term + " should find " + t.getMessage());
+                        }
+                    }
+                    assertEquals(expected, found.size());
+                    for (int i = 1; i < found.size(); i++) {
+                        assertTrue(levenshtein(term, found.get(i - 1).getMessage())
+                                <= levenshtein(term, found.get(i).getMessage()));
+                    }
+                });
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) {
+            for (int j = 0; j <= b.length(); j++) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                } else {
+                    int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                    d[i][j] = Math.min(d[i - 1][j - 1] + cost, Math.min(d[i - 1][j], d[i][j - 1]) + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
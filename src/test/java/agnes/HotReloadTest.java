@@ -0,0 +1,187 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.storage.Storage;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class HotReloadTest {
+
+    private static List<String> todos(String... descriptions) {
+        List<String> lines = new ArrayList<>();
+        for (String description : descriptions) {
+            lines.add("T | 0 | " + description);
+        }
+        return lines;
+    }
+
+    private static List<String> describe(TaskList tasks) {
+        List<String> lines = new ArrayList<>();
+        for (Task t : tasks.getAll()) {
+            lines.add(t.toFileFormat());
+        }
+        return lines;
+    }
+
+    /**
+     * Rewrites the file as an editor would, moving its modification time on so that the
+     * change is seen even on file systems with coarse timestamps.
+     */
+    private static void edit(Path file, List<String> lines) throws Exception {
+        FileTime before = Files.getLastModifiedTime(file);
+        Files.write(file, lines);
+        Files.setLastModifiedTime(file, FileTime.fromMillis(before.toMillis() + 2000));
+    }
+
+    @Test
+    public void reload_externalEdits_mergedInPlace() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, todos("a", "b", "c", "d", "e"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList();
+        storage.load(tasks);
+        Task untouched = tasks.get(0);
+
+        edit(file, todos("a", "new", "b", "C", "d"));
+        assertTrue(storage.hasExternalChanges());
+        Storage.ReloadResult result = storage.reload(tasks);
+
+        assertEquals(todos("a", "new", "b", "C", "d"), describe(tasks));
+        assertEquals(1, result.getAdded());
+        assertEquals(1, result.getChanged());
+        assertEquals(1, result.getRemoved());
+        assertTrue(result.getConflicts().isEmpty());
+        assertTrue(untouched == tasks.get(0), "Unchanged lines should keep their tasks");
+        assertFalse(storage.hasExternalChanges());
+        assertFalse(storage.reload(tasks).hasChanges());
+    }
+
+    @Test
+    public void reload_editClashingWithUnsavedChange_setAside() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, todos("a", "b", "c", "d"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList();
+        storage.load(tasks);
+
+        // Marked in Agnes, but not saved yet, while the file changes the same and another line
+        tasks.markTask(1);
+        edit(file, todos("a", "b from editor", "c", "d from editor"));
+        Storage.ReloadResult result = storage.reload(tasks);
+
+        List<String> merged = List.of("T | 0 | a", "T | 1 | b", "T | 0 | c", "T | 0 | d from editor");
+        assertEquals(merged, describe(tasks));
+        assertEquals(List.of("T | 0 | b from editor"), result.getConflicts());
+        assertEquals(merged, Files.readAllLines(file));
+        List<String> conflicts = Files.readAllLines(Path.of(file + Storage.CONFLICTS_SUFFIX));
+        assertEquals("T | 0 | b from editor", conflicts.get(conflicts.size() - 1));
+    }
+
+    @Test
+    public void reload_unparsableLineInFile_notSeenAsNew() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, List.of("T | 0 | a", "garbage", "T | 0 | b"));
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList();
+        storage.load(tasks);
+
+        edit(file, List.of("T | 0 | a", "garbage", "T | 0 | b", "T | 0 | c"));
+        Storage.ReloadResult result = storage.reload(tasks);
+        assertEquals(todos("a", "b", "c"), describe(tasks));
+        assertEquals(1, result.getAdded());
+        assertEquals(0, result.getSkipped());
+        assertTrue(result.getConflicts().isEmpty());
+    }
+
+    @Test
+    public void write_afterExternalEdit_doesNotOverwriteIt() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        TaskList tasks = new TaskList();
+        storage.load(tasks);
+        tasks.addTask(new ToDo("a"));
+        storage.save(tasks);
+        assertFalse(storage.hasExternalChanges(), "Agnes's own writes are not external changes");
+
+        edit(file, todos("a", "b"));
+        tasks.addTask(new ToDo("c"));
+        assertFalse(storage.save(tasks));
+        assertEquals(todos("a", "b"), Files.readAllLines(file));
+
+        Storage.ReloadResult result = storage.reload(tasks);
+        assertEquals(List.of("T | 0 | b"), result.getConflicts());
+        assertEquals(todos("a", "c"), Files.readAllLines(file));
+    }
+
+    @Test
+    public void reload_randomEdits_matchFile() throws Exception {
+        Random random = new Random(50);
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        for (int round = 0; round < 50; round++) {
+            List<String> lines = new ArrayList<>();
+            int size = random.nextInt(200);
+            for (int i = 0; i < size; i++) {
+                lines.add("T | 0 | task " + random.nextInt(20));
+            }
+            Files.write(file, lines);
+            Storage storage = new Storage(file.toString());
+            TaskList tasks = new TaskList();
+            storage.load(tasks);
+
+            for (int edits = random.nextInt(20); edits > 0; edits--) {
+                int at = lines.isEmpty() ? 0 : random.nextInt(lines.size());
+                if (random.nextBoolean() || lines.isEmpty()) {
+                    lines.add(at, "T | 0 | task " + random.nextInt(20));
+                } else {
+                    lines.remove(at);
+                }
+            }
+            edit(file, lines);
+            storage.reload(tasks);
+            assertEquals(lines, describe(tasks), "Round " + round);
+        }
+    }
+
+    @Test
+    public void getResponse_changeAfterExternalEdit_mergedAndSaved() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, todos("a", "z"));
+        Agnes agnes = new Agnes(file.toString());
+
+        // Not watching, so only the next change notices the edit
+        edit(file, todos("a", "from editor", "z"));
+        String response = String.join("\n", agnes.getResponse("todo b"));
+        assertTrue(response.contains("picked up 1 new"), response);
+        assertEquals(todos("a", "from editor", "z", "b"), Files.readAllLines(file));
+    }
+
+    @Test
+    public void startWatching_externalEdit_reloadedByItself() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, todos("a"));
+        Agnes agnes = new Agnes(file.toString());
+        CountDownLatch reloaded = new CountDownLatch(1);
+        agnes.startWatching(messages -> reloaded.countDown());
+        agnes.getResponse("todo b");
+
+        edit(file, List.of("T | 0 | a", "T | 0 | b", "T | 1 | from editor"));
+        assertTrue(reloaded.await(10, TimeUnit.SECONDS), "The edit should be noticed");
+        String list = String.join("\n", agnes.getResponse("list"));
+        assertTrue(list.contains("3. [T] [X] from editor"), list);
+    }
+}
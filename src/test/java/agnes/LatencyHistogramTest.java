@@ -0,0 +1,43 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.metrics.LatencyHistogram;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramTest() {
+        LatencyHistogram h = new LatencyHistogram();
+        assertEquals(0, h.getCount());
+        assertEquals(0, h.getValueAtPercentile(99));
+    }
+
+    @Test
+    public void smallValuesAreExactTest() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            h.record(i);
+        }
+        assertEquals(50, h.getCount());
+        assertEquals(25, h.getValueAtPercentile(50));
+        assertEquals(50, h.getValueAtPercentile(100));
+        assertEquals(1, h.getMin());
+    }
+
+    @Test
+    public void percentilesWithinRelativeErrorTest() {
+        LatencyHistogram h = new LatencyHistogram();
+        for (long i = 1; i <= 100_000; i++) {
+            h.record(i * 1_000);
+        }
+        long p50 = h.getValueAtPercentile(50);
+        long p99 = h.getValueAtPercentile(99);
+        assertTrue(Math.abs(p50 - 50_000_000L) <= 50_000_000L * 0.035, "p50 was " + p50);
+        assertTrue(Math.abs(p99 - 99_000_000L) <= 99_000_000L * 0.035, "p99 was " + p99);
+        assertEquals(100_000_000L, h.getMax());
+    }
+}
@@ -4,6 +4,8 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -39,4 +41,28 @@ class ParserTest {
         assertNotNull(result);
         assertEquals(1, tasks.size());
     }
+
+    @Test
+    void testParseTodoWithTags() {
+        parser.parse("todo read #school chapter 3 #Urgent");
+        assertEquals("read chapter 3", tasks.get(0).getMessage());
+        assertEquals(List.of("school", "urgent"), tasks.get(0).getTags());
+
+        var result = parser.parse("list #urgent #school is:undone");
+        assertTrue(result.get(0).contains("read chapter 3 #school #urgent"));
+        assertTrue(parser.parse("todo #bad!tag").get(0).contains("Tags can only have"));
+    }
+
+    @Test
+    void testParseSortedList() {
+        parser.parse("todo read book");
+        parser.parse("deadline essay /by 2026-04-01");
+        parser.parse("deadline slides /by 2026-03-01");
+
+        var result = parser.parse("list /sort by 2");
+        assertTrue(result.get(0).contains("1. [D] [ ] slides"));
+        assertTrue(result.get(0).contains("2. [D] [ ] essay"));
+        assertTrue(result.get(0).contains("... and 1 more"));
+        assertTrue(parser.parse("list /sort priority").get(0).contains("I can only sort by"));
+    }
 }
@@ -0,0 +1,106 @@
+package agnes;
+
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.function.Function;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+/**
+ * Drives a {@code TaskList} through random adds, marks, updates and deletes, so that what
+ * it keeps up to date can be checked against a direct computation after every step.
+ */
+final class RandomTaskChanges {
+
+    /**
+     * Makes the task added at a step.
+     */
+    interface TaskMaker {
+        Task make(Random random, int step);
+    }
+
+    /**
+     * Checks the list after a step.
+     */
+    interface Check {
+        void afterStep(int step) throws Exception;
+    }
+
+    private RandomTaskChanges() {
+    }
+
+    /**
+     * Applies random changes, adding to-dos, deadlines and events at times from {@code randomTime}.
+     *
+     * @param random        The source of every choice, which the check may also use.
+     * @param tasks         The list to change.
+     * @param steps         How many changes to make.
+     * @param randomTime    When added tasks fall and moved deadlines are due.
+     * @param check         What to check after each change.
+     */
+    static void apply(Random random, TaskList tasks, int steps, Function<Random, LocalDateTime> randomTime,
+            Check check) throws Exception {
+        apply(random, tasks, steps, (r, step) -> randomTask(r, step, randomTime.apply(r)), randomTime, check);
+    }
+
+    /**
+     * Applies random changes: adds, marks or unmarks, updates, and deletes of one or two
+     * tasks at a time. A deadline is updated by moving it, any other task by renaming it.
+     *
+     * @param random        The source of every choice, which the check may also use.
+     * @param tasks         The list to change.
+     * @param steps         How many changes to make.
+     * @param newTask       Makes the tasks to add.
+     * @param randomTime    When moved deadlines are due.
+     * @param check         What to check after each change.
+     */
+    static void apply(Random random, TaskList tasks, int steps, TaskMaker newTask,
+            Function<Random, LocalDateTime> randomTime, Check check) throws Exception {
+        for (int step = 0; step < steps; step++) {
+            int action = random.nextInt(10);
+            if (tasks.size() == 0 || action < 4) {
+                tasks.addTask(newTask.make(random, step));
+            } else if (action < 6) {
+                int i = random.nextInt(tasks.size());
+                if (random.nextBoolean()) {
+                    tasks.markTask(i);
+                } else {
+                    tasks.unmarkTask(i);
+                }
+            } else if (action < 8) {
+                int i = random.nextInt(tasks.size());
+                if (tasks.get(i) instanceof Deadline) {
+                    LocalDateTime by = randomTime.apply(random);
+                    tasks.updateTask(String.valueOf(i + 1), "/by", String.format("%tF %<tH%<tM", by));
+                } else {
+                    tasks.updateTask(String.valueOf(i + 1), "/description", "renamed " + step);
+                }
+            } else if (random.nextBoolean()) {
+                tasks.removeTask(random.nextInt(tasks.size()));
+            } else {
+                int first = random.nextInt(tasks.size());
+                int second = random.nextInt(tasks.size());
+                int[] indices = first == second
+                        ? new int[] {first}
+                        : new int[] {Math.min(first, second), Math.max(first, second)};
+                tasks.removeTasks(indices);
+            }
+            check.afterStep(step);
+        }
+    }
+
+    private static Task randomTask(Random random, int step, LocalDateTime when) {
+        switch (random.nextInt(3)) {
+        case 0:
+            return new ToDo("todo " + step);
+        case 1:
+            return new Deadline("deadline " + step, when);
+        default:
+            return new Event("event " + step, when, when.plusHours(2));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.storage.Storage;
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.OccurrenceMarks;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class RecurrenceTest {
+
+    @Test
+    public void parse_acceptsUnitsAndCounts_test() {
+        assertEquals("every month", Recurrence.parse("month").toString());
+        assertEquals("every month", Recurrence.parse("monthly").toString());
+        assertEquals("every 2 weeks", Recurrence.parse("2 weeks").toString());
+        assertEquals("every day", Recurrence.parse(" Day ").toString());
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("fortnight"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("0 days"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("two weeks"));
+    }
+
+    @Test
+    public void parse_intervalBeyondHundredYears_rejected_test() {
+        assertEquals("every 100 years", Recurrence.parse("100 years").toString());
+        assertEquals("every 36600 days", Recurrence.parse("36600 days").toString());
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("101 years"));
+        assertThrows(IllegalArgumentException.class, () -> Recurrence.parse("2000000000 years"));
+        assertThrows(IllegalArgumentException.class, () -> new Recurrence(1201, Recurrence.Unit.MONTH));
+
+        // Every occurrence that can be marked stays a valid date-time
+        Recurrence longest = Recurrence.parse("100 years");
+        LocalDateTime last = longest.getOccurrence(LocalDateTime.of(9999, 12, 31, 23, 59),
+                OccurrenceMarks.MAX_OCCURRENCE + 1);
+        assertTrue(last.getYear() > 9999);
+    }
+
+    @Test
+    public void getResponse_hugeInterval_nothingAdded_test() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Agnes agnes = new Agnes(file.toString());
+        agnes.getResponse("deadline rent /by 2026-01-31 /every 2000000000 years");
+        agnes.getResponse("todo read");
+        assertEquals(List.of("T | 0 | read"), Files.readAllLines(file));
+    }
+
+    @Test
+    public void load_outOfRangeOrRejectedLines_skipped_test() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        Files.write(file, List.of(
+                "D | 0 | rent | Jan 31 2026 00:00 | every 2000000000 years",
+                "D | 0 | gym | Jan 31 2026 00:00 | every week | done 0-2000000000",
+                "T | 0 | rejected",
+                "T | 0 | read"));
+        TaskList tasks = new TaskList();
+        // Stands in for any way the list can reject a task it is given
+        tasks.addListener(changes -> {
+            if (changes.get(0).getTask().getMessage().equals("rejected")) {
+                throw new IllegalStateException("Rejected");
+            }
+        });
+        new Storage(file.toString()).load(tasks);
+        assertEquals("read", tasks.get(tasks.size() - 1).getMessage());
+    }
+
+    @Test
+    public void getOccurrence_monthlyKeepsDayOfMonth_test() {
+        Recurrence monthly = Recurrence.parse("month");
+        LocalDateTime first = LocalDateTime.of(2026, 1, 31, 9, 0);
+
+        assertEquals(LocalDateTime.of(2026, 2, 28, 9, 0), monthly.getOccurrence(first, 1));
+        assertEquals(LocalDateTime.of(2026, 3, 31, 9, 0), monthly.getOccurrence(first, 2));
+        assertEquals(1, monthly.getIndexAtOrBefore(first, LocalDateTime.of(2026, 3, 30, 9, 0)));
+        assertEquals(2, monthly.getIndexAtOrBefore(first, LocalDateTime.of(2026, 3, 31, 9, 0)));
+        assertEquals(-1, monthly.getIndexAtOrBefore(first, LocalDateTime.of(2026, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void occurrenceMarks_roundTripsThroughFileFormat_test() {
+        OccurrenceMarks marks = new OccurrenceMarks();
+        marks.mark(5);
+        marks.mark(0);
+        marks.mark(1);
+        marks.mark(6);
+        marks.mark(9);
+        assertEquals("0-1,5-6,9", marks.toFileFormat());
+        assertEquals(2, marks.getFirstUnmarked());
+        assertEquals(9, marks.getLastMarked());
+
+        marks.unmark(0);
+        assertEquals("1,5-6,9", OccurrenceMarks.parse(marks.toFileFormat()).toFileFormat());
+        assertFalse(marks.isMarked(0));
+        assertTrue(marks.isMarked(6));
+    }
+
+    @Test
+    public void occurrenceMarks_parseHugeOrInvalidRanges_test() {
+        OccurrenceMarks prefix = OccurrenceMarks.parse("3-5,0-" + OccurrenceMarks.MAX_OCCURRENCE + ",7");
+        assertEquals(OccurrenceMarks.MAX_OCCURRENCE + 1, prefix.getFirstUnmarked());
+        assertEquals("0-" + OccurrenceMarks.MAX_OCCURRENCE, prefix.toFileFormat());
+        assertEquals("0-1,5-7,9", OccurrenceMarks.parse("9,6-7,0,5-6,1").toFileFormat());
+
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("0-2147483647"));
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("0-2000000000"));
+        assertThrows(IllegalArgumentException.class, () -> prefix.mark(OccurrenceMarks.MAX_OCCURRENCE + 1));
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("5-3"));
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("-3"));
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("1-2-3"));
+        assertThrows(NumberFormatException.class, () -> OccurrenceMarks.parse("1-2000000000"));
+    }
+
+    @Test
+    public void mark_completesOneOccurrenceAtATime_test() {
+        Deadline rent = new Deadline("pay rent", LocalDateTime.of(2026, 1, 1, 0, 0), Recurrence.parse("month"));
+
+        rent.setMarked();
+        rent.setMarked();
+        assertFalse(rent.isComplete());
+        assertEquals("[D] [ ] pay rent (by: Mar 01 2026, every month)", rent.toString());
+        assertEquals("D | 0 | pay rent | Jan 01 2026 | every month | done 0-1", rent.toFileFormat());
+
+        rent.setUnmarked();
+        assertEquals("[D] [ ] pay rent (by: Feb 01 2026, every month)", rent.toString());
+    }
+
+    @Test
+    public void taskList_expandsOccurrencesOnlyInQueriedRange_test() {
+        TaskList tasks = new TaskList();
+        Event standup = new Event("standup", LocalDateTime.of(2026, 3, 2, 9, 30),
+                LocalDateTime.of(2026, 3, 2, 9, 45), Recurrence.parse("week"));
+        Deadline report = new Deadline("report", LocalDateTime.of(2026, 3, 10, 12, 0));
+        tasks.addTask(new ToDo("read"));
+        tasks.addTask(standup);
+        tasks.addTask(report);
+        tasks.markTask(1);
+
+        List<Task> march = tasks.getTasksBetween(LocalDateTime.of(2026, 3, 1, 0, 0),
+                LocalDateTime.of(2026, 3, 31, 23, 59));
+        assertEquals(6, march.size());
+        assertEquals("[E] [X] standup (from: Mar 02 2026 09:30 to: Mar 02 2026 09:45)", march.get(0).toString());
+        assertEquals(report, march.get(2));
+        assertEquals("[E] [ ] standup (from: Mar 30 2026 09:30 to: Mar 30 2026 09:45)", march.get(5).toString());
+
+        assertEquals(1, tasks.getTasksOnDate(LocalDate.of(2027, 3, 1)).size());
+        assertTrue(tasks.getTasksOnDate(LocalDate.of(2027, 3, 2)).isEmpty());
+        assertTrue(standup.fallsOnDate(LocalDate.of(2027, 3, 1)));
+        assertTrue(tasks.getTasksOnDate(LocalDate.of(2026, 3, 1)).isEmpty());
+
+        // The next pending occurrence is what counts as upcoming
+        assertEquals(List.of(standup, report), tasks.getUpcoming(5));
+        assertEquals("[E] [ ] standup (from: Mar 09 2026 09:30 to: Mar 09 2026 09:45, every week)",
+                tasks.getUpcoming(5).get(0).toString());
+    }
+}
@@ -0,0 +1,86 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import agnes.parser.Parser;
+import agnes.parser.ResponseCache;
+import agnes.storage.Storage;
+import agnes.task.TaskList;
+import agnes.ui.Ui;
+
+public class ResponseCacheTest {
+    private Parser parser;
+    private ResponseCache cache;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        TaskList tasks = new TaskList();
+        Storage storage = new Storage(Files.createTempDirectory("agnes").resolve("tasks.txt").toString());
+        parser = new Parser(tasks, storage, new Ui());
+        cache = parser.getResponseCache();
+    }
+
+    @Test
+    public void parse_repeatedReadOnlyRequest_servedFromCache() {
+        parser.parse("todo read book");
+        List<String> first = parser.parse("list");
+        assertEquals(first, parser.parse("LIST  "));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        parser.parse("find book");
+        parser.parse("find book");
+        assertEquals(2, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void clear_cachedResponses_recomputed() {
+        parser.parse("list");
+        cache.clear();
+        assertEquals(0, cache.size());
+        parser.parse("list");
+        assertEquals(0, cache.getHits());
+        assertEquals(2, cache.getMisses());
+    }
+
+    @Test
+    public void parse_afterMutation_responseRecomputed() {
+        parser.parse("todo read book");
+        parser.parse("list");
+        parser.parse("mark 1");
+        List<String> marked = parser.parse("list");
+        assertTrue(marked.get(0).contains("[X]"));
+        assertEquals(0, cache.getHits());
+
+        parser.parse("todo write essay");
+        assertTrue(parser.parse("list").get(0).contains("write essay"));
+        parser.parse("delete 1");
+        assertFalse(parser.parse("list").get(0).contains("read book"));
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    public void parse_manyDistinctRequests_leastRecentlyUsedEvicted() {
+        parser.parse("todo read book");
+        parser.parse("find keep");
+        for (int i = 0; i < cache.getCapacity(); i++) {
+            parser.parse("find word" + i);
+            parser.parse("find keep");
+        }
+        assertEquals(cache.getCapacity(), cache.size());
+        long hits = cache.getHits();
+        parser.parse("find keep");
+        assertEquals(hits + 1, cache.getHits());
+        parser.parse("find word0");
+        assertEquals(hits + 1, cache.getHits());
+    }
+}
@@ -0,0 +1,89 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.SortKey;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class SortedListTest {
+    private static final LocalDateTime START = LocalDateTime.of(2026, 3, 1, 9, 0);
+
+    @Test
+    public void getSorted_byDate_todosLastTiesInAddedOrder() throws Exception {
+        TaskList tasks = new TaskList();
+        ToDo todo = new ToDo("todo");
+        Deadline late = new Deadline("late", START.plusDays(5));
+        Event early = new Event("early", START, START.plusHours(1));
+        Deadline tie = new Deadline("tie", START);
+        tasks.addTask(todo);
+        tasks.addTask(late);
+        tasks.addTask(early);
+        tasks.addTask(tie);
+
+        assertEquals(List.of(early, tie, late, todo), tasks.getSorted(SortKey.BY, 10));
+        assertEquals(List.of(early, tie), tasks.getSorted(SortKey.BY, 2));
+
+        tasks.updateTask("2", "/by", "2026-02-01 0900");
+        assertEquals(List.of(late, early, tie, todo), tasks.getSorted(SortKey.BY, 10));
+
+        tasks.markTask(0);
+        assertEquals(List.of(late, early, tie), tasks.getSorted(SortKey.STATUS, 3));
+        assertEquals(List.of(todo, late), tasks.getSorted(SortKey.ADDED, 2));
+    }
+
+    @Test
+    public void from_unknownKey_exceptionThrown() {
+        assertEquals(SortKey.STATUS, SortKey.from("Status"));
+        assertThrows(IllegalArgumentException.class, () -> SortKey.from("priority"));
+    }
+
+    /**
+     * Applies random adds, marks, updates and deletes, checking the sorted views
+     * against a stable sort of the list after every step.
+     */
+    @Test
+    public void getSorted_randomChanges_matchesStableSort() throws Exception {
+        Random random = new Random(44);
+        TaskList tasks = new TaskList();
+        RandomTaskChanges.apply(random, tasks, 2000, r -> START.plusHours(r.nextInt(24 * 14)), step -> {
+            int limit = 1 + random.nextInt(tasks.size() + 2);
+            for (SortKey key : SortKey.values()) {
+                List<Task> expected = new ArrayList<>(tasks.getAll());
+                expected.sort(comparator(key));
+                assertEquals(expected.subList(0, Math.min(limit, expected.size())),
+                        tasks.getSorted(key, limit), key + " after step " + step);
+            }
+        });
+    }
+
+    private static LocalDateTime start(Task t) {
+        if (t instanceof Deadline) {
+            return ((Deadline) t).getBy();
+        }
+        return t instanceof Event ? ((Event) t).getFrom() : null;
+    }
+
+    private static Comparator<Task> comparator(SortKey key) {
+        switch (key) {
+        case BY:
+            return Comparator.comparing(SortedListTest::start, Comparator.nullsLast(Comparator.naturalOrder()));
+        case STATUS:
+            return Comparator.comparing(Task::isComplete);
+        default:
+            return (a, b) -> 0;
+        }
+    }
+}
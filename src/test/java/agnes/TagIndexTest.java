@@ -0,0 +1,154 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.storage.Storage;
+import agnes.task.Deadline;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.TaskQuery;
+import agnes.task.ToDo;
+
+public class TagIndexTest {
+    private static final String[] TAGS = {"work", "school", "urgent", "rare"};
+
+    private static ToDo tagged(String description, String... tags) {
+        ToDo t = new ToDo(description);
+        t.setTags(List.of(tags));
+        return t;
+    }
+
+    @Test
+    public void getTasksTagged_tagsAndStatus_listOrder() {
+        TaskList tasks = new TaskList();
+        ToDo a = tagged("a", "work", "urgent");
+        ToDo b = tagged("b", "#Work");
+        ToDo c = tagged("c", "urgent", "work", "urgent");
+        tasks.addTask(a);
+        tasks.addTask(b);
+        tasks.addTask(c);
+        tasks.markTask(2);
+
+        assertEquals(List.of("urgent", "work"), c.getTags());
+        assertEquals(List.of(a, b, c), tasks.getTasksTagged(List.of("work"), null));
+        assertEquals(List.of(a, c), tasks.getTasksTagged(List.of("work", "urgent"), null));
+        assertEquals(List.of(c), tasks.getTasksTagged(List.of("urgent"), true));
+        assertEquals(List.of(a), tasks.getTasksTagged(List.of("urgent"), false));
+        assertEquals(List.of(), tasks.getTasksTagged(List.of("missing", "work"), null));
+
+        tasks.removeTask(0);
+        assertEquals(List.of(c), tasks.getTasksTagged(List.of("urgent"), null));
+    }
+
+    @Test
+    public void saveAndLoad_tags_roundTrip() throws Exception {
+        Path file = Files.createTempDirectory("agnes").resolve("tasks.txt");
+        TaskList tasks = new TaskList();
+        tasks.addTask(tagged("plain todo", "home"));
+        Deadline deadline = new Deadline("essay", LocalDateTime.of(2026, 4, 1, 23, 59));
+        deadline.setTags(List.of("school", "urgent"));
+        tasks.addTask(deadline);
+        tasks.addTask(new ToDo("no tags"));
+        new Storage(file.toString()).save(tasks);
+
+        TaskList loaded = new TaskList();
+        new Storage(file.toString()).load(loaded);
+        assertEquals(3, loaded.size());
+        for (int i = 0; i < tasks.size(); i++) {
+            assertEquals(tasks.get(i).toFileFormat(), loaded.get(i).toFileFormat());
+        }
+        assertEquals(List.of(loaded.get(1)), loaded.getTasksTagged(List.of("school"), false));
+    }
+
+    @Test
+    public void query_tagsWithOtherConditions_usesTags() throws Exception {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 50; i++) {
+            tasks.addTask(tagged("filler " + i, "work"));
+        }
+        Deadline report = new Deadline("report", LocalDateTime.of(2026, 3, 18, 12, 0));
+        report.setTags(List.of("work", "rare"));
+        tasks.addTask(report);
+        tasks.addTask(tagged("rare todo", "rare"));
+
+        assertEquals(List.of(report), tasks.query(TaskQuery.parse("#rare #work")));
+        assertEquals(List.of(report), tasks.query(TaskQuery.parse("#rare before:2026-03-19")));
+        assertEquals(List.of(tasks.get(51)), tasks.query(TaskQuery.parse("#rare type:todo is:undone")));
+    }
+
+    /**
+     * Compares the bitmaps with a direct check of every task, on a list big enough to
+     * need several bitmap chunks, with dense and sparse tags, and enough deletions to
+     * renumber the tasks.
+     */
+    @Test
+    public void getTasksTagged_randomChanges_matchesBruteForce() {
+        Random random = new Random(43);
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 150_000; i++) {
+            List<String> tags = new ArrayList<>();
+            if (random.nextInt(2) == 0) {
+                tags.add("work");
+            }
+            if (random.nextInt(10) == 0) {
+                tags.add("school");
+            }
+            if (random.nextInt(3) == 0) {
+                tags.add("urgent");
+            }
+            if (random.nextInt(5000) == 0) {
+                tags.add("rare");
+            }
+            ToDo t = new ToDo("task " + i);
+            t.setTags(tags);
+            tasks.addTask(t);
+            if (random.nextInt(4) == 0) {
+                tasks.markTask(tasks.size() - 1);
+            }
+        }
+
+        for (int round = 0; round < 12; round++) {
+            if (round % 3 == 2) {
+                int[] indices = random.ints(0, tasks.size()).distinct().limit(tasks.size() / 2).sorted().toArray();
+                tasks.removeTasks(indices);
+            } else {
+                for (int k = 0; k < 2000; k++) {
+                    int i = random.nextInt(tasks.size());
+                    if (random.nextBoolean()) {
+                        tasks.markTask(i);
+                    } else {
+                        tasks.unmarkTask(i);
+                    }
+                }
+            }
+
+            List<String> query = new ArrayList<>();
+            for (String tag : TAGS) {
+                if (random.nextInt(3) == 0) {
+                    query.add(tag);
+                }
+            }
+            if (query.isEmpty()) {
+                query.add(TAGS[random.nextInt(TAGS.length)]);
+            }
+            Boolean isDone = random.nextInt(3) == 0 ? null : random.nextBoolean();
+
+            List<Task> expected = new ArrayList<>();
+            for (Task t : tasks.getAll()) {
+                if (t.getTags().containsAll(query) && (isDone == null || t.isComplete() == isDone)) {
+                    expected.add(t);
+                }
+            }
+            assertEquals(expected, tasks.getTasksTagged(query, isDone), query + " " + isDone);
+        }
+    }
+}
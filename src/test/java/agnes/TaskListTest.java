@@ -1,19 +1,27 @@
 package agnes;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.jupiter.api.Test;
 
 import agnes.exception.InvalidTaskNumberException;
 import agnes.exception.TaskIndexOutOfBoundsException;
+import agnes.task.Conflict;
 import agnes.task.Deadline;
 import agnes.task.Event;
+import agnes.task.Task;
 import agnes.task.TaskList;
 import agnes.task.ToDo;
 
@@ -76,4 +84,216 @@ public class TaskListTest {
             );
         }
     }
+
+    @Test
+    public void getTasksOnDate_matchesFallsOnDate_test() {
+        LocalDateTime jan30 = LocalDateTime.of(2026, 1, 30, 8, 0);
+        TaskList l = new TaskList();
+        l.addTask(new ToDo("x"));
+        l.addTask(new Deadline("y", jan30));
+        l.addTask(new Event("z", jan30.minusDays(1), jan30.plusDays(2)));
+        l.addTask(new Event("w", jan30.plusDays(1), jan30.plusDays(1)));
+
+        for (int offset = -3; offset <= 3; offset++) {
+            LocalDate date = jan30.toLocalDate().plusDays(offset);
+            List<Task> expected = l.getAll().stream().filter(t -> t.fallsOnDate(date)).toList();
+            assertEquals(expected, l.getTasksOnDate(date));
+        }
+    }
+
+    @Test
+    public void getTasksOnDate_afterUpdateAndRemove_test() throws Exception {
+        LocalDateTime jan30 = LocalDateTime.of(2026, 1, 30, 0, 0);
+        TaskList l = new TaskList();
+        Deadline d = new Deadline("y", jan30);
+        Event e = new Event("z", jan30, jan30);
+        l.addTask(new ToDo("x"));
+        l.addTask(d);
+        l.addTask(e);
+
+        l.updateTask("2", "/by", "2026-02-01");
+        assertEquals(List.of(e), l.getTasksOnDate(jan30.toLocalDate()));
+        assertEquals(List.of(d), l.getTasksOnDate(LocalDate.of(2026, 2, 1)));
+
+        l.removeTask(0);
+        assertEquals(List.of(e), l.getTasksOnDate(jan30.toLocalDate()));
+        assertEquals(LocalDateTime.of(2026, 2, 1, 0, 0), d.getBy());
+    }
+
+    @Test
+    public void updateTask_invalidField_versionUnchanged_test() throws Exception {
+        TaskList l = new TaskList();
+        l.addTask(new ToDo("x"));
+        long version = l.getVersion();
+        assertThrows(IllegalArgumentException.class, () -> l.updateTask("1", "/by", "2026-02-01"));
+        assertEquals(version, l.getVersion());
+        l.updateTask("1", "/description", "y");
+        assertTrue(l.getVersion() != version);
+    }
+
+    @Test
+    public void getUpcoming_followsMutations_test() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2026, 3, 1, 9, 0);
+        TaskList l = new TaskList();
+        Deadline late = new Deadline("late", base.plusDays(5));
+        Event early = new Event("early", base.plusDays(1), base.plusDays(2));
+        Deadline middle = new Deadline("middle", base.plusDays(3));
+        l.addTask(new ToDo("no date"));
+        l.addTask(late);
+        l.addTask(early);
+        l.addTask(middle);
+
+        assertEquals(List.of(early, middle, late), l.getUpcoming(5));
+        assertEquals(List.of(early), l.getUpcoming(1));
+
+        l.markTask(2);
+        assertEquals(List.of(middle, late), l.getUpcoming(5));
+
+        l.updateTask("2", "/by", "2026-03-02");
+        assertEquals(List.of(late, middle), l.getUpcoming(5));
+
+        l.unmarkTask(2);
+        l.removeTask(3);
+        assertEquals(List.of(late, early), l.getUpcoming(5));
+    }
+
+    @Test
+    public void getTasksBetween_matchesBruteForce_test() throws Exception {
+        Random random = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList l = new TaskList();
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime start = base.plusMinutes(random.nextInt(60 * 24 * 60));
+            if (random.nextBoolean()) {
+                l.addTask(new Deadline("d" + i, start));
+            } else {
+                l.addTask(new Event("e" + i, start, start.plusMinutes(random.nextInt(60 * 24 * 5))));
+            }
+            if (i % 3 == 0) {
+                l.addTask(new ToDo("t" + i));
+            }
+        }
+        for (int i = 0; i < 50; i++) {
+            l.removeTask(random.nextInt(l.size()));
+            l.updateTask(String.valueOf(1 + random.nextInt(l.size())), "/description", "renamed");
+        }
+
+        for (int i = 0; i < 100; i++) {
+            LocalDateTime from = base.plusMinutes(random.nextInt(60 * 24 * 60));
+            LocalDateTime to = from.plusMinutes(random.nextInt(60 * 24 * 7));
+            List<Task> expected = new ArrayList<>();
+            for (Task t : l.getAll()) {
+                if (startOf(t) != null && !startOf(t).isAfter(to) && !endOf(t).isBefore(from)) {
+                    expected.add(t);
+                }
+            }
+            List<Task> actual = l.getTasksBetween(from, to);
+            assertEquals(expected.size(), actual.size());
+            assertTrue(actual.containsAll(expected));
+            List<LocalDateTime> starts = actual.stream().map(TaskListTest::startOf).toList();
+            assertEquals(starts.stream().sorted(Comparator.naturalOrder()).toList(), starts);
+        }
+    }
+
+    @Test
+    public void checkTaskNumbers_mergesRangesAndLists_test() throws Exception {
+        TaskList l = new TaskList();
+        for (int i = 0; i < 20; i++) {
+            l.addTask(new ToDo("t" + i));
+        }
+
+        assertArrayEquals(new int[] {3, 7, 9, 10, 11, 12}, l.checkTaskNumbers("3,7,9-12"));
+        assertArrayEquals(new int[] {1, 2, 3, 4}, l.checkTaskNumbers(" 2-4 , 1, 3 "));
+        assertArrayEquals(new int[] {5}, l.checkTaskNumbers("5"));
+        assertThrows(InvalidTaskNumberException.class, () -> l.checkTaskNumbers("4-2"));
+        assertThrows(InvalidTaskNumberException.class, () -> l.checkTaskNumbers("1,,2"));
+        assertThrows(TaskIndexOutOfBoundsException.class, () -> l.checkTaskNumbers("19-21"));
+    }
+
+    @Test
+    public void removeTasks_matchesRemovingOneByOne_test() throws Exception {
+        Random random = new Random(11);
+        LocalDateTime base = LocalDateTime.of(2026, 5, 1, 9, 0);
+        TaskList bulk = new TaskList();
+        TaskList single = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            Task t = random.nextBoolean()
+                    ? new Deadline("d" + i, base.plusHours(random.nextInt(24 * 30)))
+                    : new ToDo("t" + i);
+            bulk.addTask(t);
+            single.addTask(t);
+        }
+
+        int[] indices = random.ints(80, 0, 200).distinct().sorted().toArray();
+        List<Task> removed = bulk.removeTasks(indices);
+        for (int i = indices.length - 1; i >= 0; i--) {
+            single.removeTask(indices[i]);
+        }
+
+        assertEquals(indices.length, removed.size());
+        assertEquals(single.getAll(), bulk.getAll());
+        assertEquals(single.getUpcoming(300), bulk.getUpcoming(300));
+        for (int day = 0; day < 30; day++) {
+            LocalDate date = base.toLocalDate().plusDays(day);
+            assertEquals(single.getTasksOnDate(date), bulk.getTasksOnDate(date));
+        }
+        assertEquals(single.getTasksBetween(base, base.plusDays(30)), bulk.getTasksBetween(base, base.plusDays(30)));
+    }
+
+    @Test
+    public void conflicts_matchBruteForce_test() {
+        Random random = new Random(7);
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 0, 0);
+        TaskList l = new TaskList();
+        for (int i = 0; i < 200; i++) {
+            LocalDateTime start = base.plusHours(random.nextInt(24 * 30));
+            l.addTask(new Event("e" + i, start, start.plusHours(random.nextInt(6))));
+            l.addTask(new Deadline("d" + i, start));
+        }
+
+        int expected = 0;
+        List<Task> all = l.getAll();
+        for (int i = 0; i < all.size(); i++) {
+            if (!(all.get(i) instanceof Event)) {
+                continue;
+            }
+            Event a = (Event) all.get(i);
+            List<Task> clashes = new ArrayList<>();
+            for (int j = 0; j < all.size(); j++) {
+                if (i == j || !(all.get(j) instanceof Event)) {
+                    continue;
+                }
+                Event b = (Event) all.get(j);
+                if (a.getFrom().isBefore(b.getTo()) && b.getFrom().isBefore(a.getTo())) {
+                    clashes.add(b);
+                    expected++;
+                }
+            }
+            List<Task> actual = l.getConflicts(a);
+            assertEquals(clashes.size(), actual.size());
+            assertTrue(actual.containsAll(clashes));
+        }
+
+        List<Conflict> pairs = l.getAllConflicts();
+        assertEquals(expected / 2, pairs.size());
+        for (Conflict c : pairs) {
+            Event a = (Event) c.getFirst();
+            Event b = (Event) c.getSecond();
+            assertTrue(a.getFrom().isBefore(b.getTo()) && b.getFrom().isBefore(a.getTo()));
+        }
+    }
+
+    private static LocalDateTime startOf(Task t) {
+        if (t instanceof Deadline) {
+            return ((Deadline) t).getBy();
+        }
+        return t instanceof Event ? ((Event) t).getFrom() : null;
+    }
+
+    private static LocalDateTime endOf(Task t) {
+        if (t instanceof Deadline) {
+            return ((Deadline) t).getBy();
+        }
+        return t instanceof Event ? ((Event) t).getTo() : null;
+    }
 }
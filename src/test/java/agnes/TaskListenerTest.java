@@ -0,0 +1,88 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.metrics.CommandMetrics;
+import agnes.parser.Parser;
+import agnes.storage.Storage;
+import agnes.task.Deadline;
+import agnes.task.TaskChange;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+import agnes.ui.Ui;
+
+public class TaskListenerTest {
+    private static List<String> describe(List<TaskChange> changes) {
+        return changes.stream()
+                .map(c -> c.getKind() + " " + c.getIndex() + (c.getField() == null ? "" : " " + c.getField()))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void changes_bulkOperations_deliveredAsOneBatch() throws Exception {
+        TaskList tasks = new TaskList();
+        List<List<String>> batches = new ArrayList<>();
+        tasks.addListener(changes -> batches.add(describe(changes)));
+
+        tasks.addTask(new ToDo("a"));
+        tasks.addTasks(List.of(new ToDo("b"), new Deadline("c", LocalDateTime.of(2026, 3, 1, 9, 0)), new ToDo("d")));
+        tasks.markTasks(new int[] {0, 2}, true);
+        tasks.updateTask("3", "/BY", "2026-03-02 0900");
+        tasks.removeTasks(new int[] {1, 3});
+        tasks.unmarkTask(0);
+
+        assertEquals(List.of(
+                List.of("ADDED 0"),
+                List.of("ADDED 1", "ADDED 2", "ADDED 3"),
+                List.of("MARKED 0", "MARKED 2"),
+                List.of("UPDATED 2 /by"),
+                List.of("REMOVED 1", "REMOVED 3"),
+                List.of("UNMARKED 0")), batches);
+    }
+
+    @Test
+    public void changes_nestedBatches_deliveredWhenOutermostEnds() {
+        TaskList tasks = new TaskList();
+        List<List<String>> batches = new ArrayList<>();
+        tasks.addListener(changes -> batches.add(describe(changes)));
+
+        tasks.beginBatch();
+        tasks.addTask(new ToDo("a"));
+        tasks.addTasks(List.of(new ToDo("b")));
+        tasks.removeTask(0);
+        assertEquals(0, batches.size());
+        tasks.endBatch();
+
+        tasks.beginBatch();
+        tasks.endBatch();
+        assertEquals(List.of(List.of("ADDED 0", "ADDED 1", "REMOVED 0")), batches);
+    }
+
+    @Test
+    public void parse_eachChangingCommand_savedOnce() throws Exception {
+        TaskList tasks = new TaskList();
+        CommandMetrics metrics = new CommandMetrics();
+        Storage storage = new Storage(Files.createTempDirectory("agnes").resolve("tasks.txt").toString());
+        Parser parser = new Parser(tasks, storage, new Ui(), metrics);
+
+        parser.parse("todo a");
+        parser.parse("todo b");
+        parser.parse("mark 1-2");
+        parser.parse("list");
+        parser.parse("delete 1,2");
+        parser.parse("delete 1");
+
+        assertEquals(4, metrics.getOperationHistograms().get(CommandMetrics.STORAGE_SAVE).getCount());
+        TaskList loaded = new TaskList();
+        storage.load(loaded);
+        assertEquals(0, loaded.size());
+    }
+}
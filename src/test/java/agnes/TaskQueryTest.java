@@ -0,0 +1,169 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.exception.InvalidDescriptionException;
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.TaskQuery;
+import agnes.task.ToDo;
+
+public class TaskQueryTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2026, 3, 1, 0, 0);
+    private static final String[] WORDS = {"report", "lunch", "gym", "call mum"};
+
+    @Test
+    public void query_combinedConditions_matchesOnlyThoseTasks() throws Exception {
+        TaskList tasks = new TaskList();
+        Deadline report = new Deadline("finish report", LocalDateTime.of(2026, 3, 18, 12, 0));
+        Deadline doneReport = new Deadline("draft report", LocalDateTime.of(2026, 3, 17, 12, 0));
+        doneReport.setMarked();
+        tasks.addTask(new ToDo("read report"));
+        tasks.addTask(new Deadline("late report", LocalDateTime.of(2026, 3, 21, 9, 0)));
+        tasks.addTask(report);
+        tasks.addTask(doneReport);
+        tasks.addTask(new Event("report review", LocalDateTime.of(2026, 3, 16, 9, 0),
+                LocalDateTime.of(2026, 3, 16, 10, 0)));
+
+        assertEquals(List.of(report),
+                tasks.query(TaskQuery.parse("type:deadline is:undone before:2026-03-20 report")));
+        assertEquals(List.of(report), tasks.query(TaskQuery.parse("\"finish report\"")));
+        assertEquals(5, tasks.query(TaskQuery.parse("report")).size());
+        assertEquals(List.of(tasks.get(1)), tasks.query(TaskQuery.parse("after:2026-03-20")));
+        assertEquals(List.of(tasks.get(4), doneReport), tasks.query(TaskQuery.parse("before:2026-03-18")));
+        assertEquals(List.of(tasks.get(4), doneReport, report),
+                tasks.query(TaskQuery.parse("before:2026-03-18T1201")));
+    }
+
+    @Test
+    public void query_recurringTask_judgedByNextOccurrence() throws Exception {
+        TaskList tasks = new TaskList();
+        for (int i = 0; i < 20; i++) {
+            tasks.addTask(new ToDo("filler " + i));
+        }
+        Deadline rent = new Deadline("pay rent", LocalDateTime.of(2026, 1, 31, 0, 0), Recurrence.parse("month"));
+        rent.setMarked();
+        tasks.addTask(rent);
+
+        // Planned on the time index, which leaves recurring tasks out
+        assertEquals(List.of(rent), tasks.query(TaskQuery.parse("type:deadline after:2026-02-27")));
+        assertEquals(List.of(), tasks.query(TaskQuery.parse("type:deadline before:2026-02-28")));
+        assertEquals(List.of(rent), tasks.query(TaskQuery.parse("type:deadline is:undone")));
+    }
+
+    @Test
+    public void parse_malformedConditions_exceptionThrown() {
+        assertThrows(InvalidDescriptionException.class, () -> TaskQuery.parse(""));
+        assertThrows(InvalidDescriptionException.class, () -> TaskQuery.parse("type:chore"));
+        assertThrows(InvalidDescriptionException.class, () -> TaskQuery.parse("is:maybe"));
+        assertThrows(InvalidDescriptionException.class, () -> TaskQuery.parse("before:friday"));
+        assertThrows(InvalidDescriptionException.class, () -> TaskQuery.parse("\"unclosed"));
+    }
+
+    /**
+     * Compares every plan against a direct check of the conditions on randomly generated
+     * lists, from lists of mostly todos to lists of only events.
+     */
+    @Test
+    public void query_randomTasksAndQueries_matchesBruteForce() throws Exception {
+        Random random = new Random(41);
+        for (int round = 0; round < 30; round++) {
+            int todoPercent = random.nextInt(101);
+            TaskList tasks = new TaskList();
+            List<long[]> ranges = new ArrayList<>();
+            for (int i = 0; i < 300; i++) {
+                String description = WORDS[random.nextInt(WORDS.length)] + " " + i;
+                LocalDateTime start = BASE.plusMinutes(random.nextInt(60 * 24 * 60));
+                Task t;
+                if (random.nextInt(100) < todoPercent) {
+                    t = new ToDo(description);
+                    ranges.add(null);
+                } else if (random.nextBoolean()) {
+                    t = new Deadline(description, start);
+                    ranges.add(new long[] {minutes(start), minutes(start)});
+                } else {
+                    LocalDateTime end = start.plusMinutes(random.nextInt(60 * 24 * 5));
+                    t = new Event(description, start, end);
+                    ranges.add(new long[] {minutes(start), minutes(end)});
+                }
+                if (random.nextInt(3) == 0) {
+                    t.setMarked();
+                }
+                tasks.addTask(t);
+            }
+
+            for (int q = 0; q < 40; q++) {
+                String[] types = {null, "todo", "deadline", "event"};
+                String type = types[random.nextInt(types.length)];
+                int status = random.nextInt(3);
+                LocalDateTime before = random.nextBoolean() ? null : BASE.plusDays(random.nextInt(62));
+                LocalDateTime after = random.nextBoolean() ? null : BASE.plusDays(random.nextInt(62));
+                String word = random.nextBoolean() ? null : WORDS[random.nextInt(WORDS.length)];
+
+                StringBuilder input = new StringBuilder();
+                if (type != null) {
+                    input.append(" type:").append(type);
+                }
+                if (status > 0) {
+                    input.append(status == 1 ? " is:done" : " is:undone");
+                }
+                if (before != null) {
+                    input.append(" before:").append(before.toLocalDate());
+                }
+                if (after != null) {
+                    input.append(" after:").append(after.toLocalDate());
+                }
+                if (word != null) {
+                    input.append(" \"").append(word).append('"');
+                }
+                if (input.length() == 0) {
+                    continue;
+                }
+
+                List<Task> expected = new ArrayList<>();
+                List<long[]> expectedRanges = new ArrayList<>();
+                for (int i = 0; i < tasks.size(); i++) {
+                    Task t = tasks.get(i);
+                    long[] range = ranges.get(i);
+                    boolean matches = (type == null || t.getClass().getSimpleName().equalsIgnoreCase(type))
+                            && (status == 0 || t.isComplete() == (status == 1))
+                            && (before == null || (range != null && range[0] < minutes(before)))
+                            && (after == null || (range != null && range[1] > minutes(after) + 60 * 24 - 1))
+                            && (word == null || t.getMessage().contains(word));
+                    if (matches) {
+                        expected.add(t);
+                        expectedRanges.add(range);
+                    }
+                }
+                List<Integer> order = new ArrayList<>();
+                for (int i = 0; i < expected.size(); i++) {
+                    order.add(i);
+                }
+                order.sort(Comparator.comparingLong(i -> expectedRanges.get(i) == null
+                        ? Long.MAX_VALUE : expectedRanges.get(i)[0]));
+                List<Task> sorted = new ArrayList<>();
+                for (int i : order) {
+                    sorted.add(expected.get(i));
+                }
+
+                assertEquals(sorted, tasks.query(TaskQuery.parse(input.toString().strip())), input.toString());
+            }
+        }
+    }
+
+    private static long minutes(LocalDateTime time) {
+        return time.toEpochSecond(java.time.ZoneOffset.UTC) / 60;
+    }
+}
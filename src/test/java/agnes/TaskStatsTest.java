@@ -0,0 +1,107 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.TaskSummary;
+import agnes.task.ToDo;
+
+public class TaskStatsTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 18, 12, 30);
+
+    @Test
+    public void getSummary_mixedTasks_counted() {
+        TaskList tasks = new TaskList();
+        tasks.addTask(new ToDo("read"));
+        tasks.addTask(new Deadline("overdue", NOW.minusMinutes(1)));
+        tasks.addTask(new Deadline("later today", NOW.plusHours(2)));
+        tasks.addTask(new Deadline("sunday night", LocalDateTime.of(2026, 3, 22, 23, 59)));
+        tasks.addTask(new Deadline("next monday", LocalDateTime.of(2026, 3, 23, 0, 0)));
+        tasks.addTask(new Event("party", NOW, NOW.plusHours(3)));
+        tasks.markTask(0);
+
+        TaskSummary summary = tasks.getSummary(NOW);
+        assertEquals(1, summary.getTodos());
+        assertEquals(4, summary.getDeadlines());
+        assertEquals(1, summary.getEvents());
+        assertEquals(1, summary.getDone());
+        assertEquals(5, summary.getPending());
+        assertEquals(1, summary.getOverdue());
+        assertEquals(2, summary.getDueThisWeek());
+
+        tasks.markTask(1);
+        tasks.removeTask(2);
+        summary = tasks.getSummary(NOW);
+        assertEquals(0, summary.getOverdue());
+        assertEquals(1, summary.getDueThisWeek());
+        assertEquals(3, summary.getDeadlines());
+    }
+
+    /**
+     * Applies random adds, marks, updates and deletes, with deadlines spread over
+     * decades, checking the summary against a scan of the list after every step.
+     */
+    @Test
+    public void getSummary_randomChanges_matchesScan() throws Exception {
+        Random random = new Random(45);
+        TaskList tasks = new TaskList();
+        RandomTaskChanges.apply(random, tasks, 3000, TaskStatsTest::randomTime, step -> {
+            LocalDateTime now = random.nextInt(4) == 0 ? randomTime(random) : NOW;
+            assertSummary(scan(tasks, now), tasks.getSummary(now), "after step " + step);
+        });
+    }
+
+    private static LocalDateTime randomTime(Random random) {
+        if (random.nextInt(20) == 0) {
+            return NOW.plusDays(random.nextInt(2 * 365 * 30) - 365 * 30);
+        }
+        return NOW.plusMinutes(random.nextInt(60 * 24 * 21) - 60 * 24 * 7);
+    }
+
+    private static TaskSummary scan(TaskList tasks, LocalDateTime now) {
+        LocalDateTime weekEnd = now.toLocalDate().with(TemporalAdjusters.nextOrSame(DayOfWeek.SUNDAY))
+                .plusDays(1).atStartOfDay();
+        int todos = 0;
+        int deadlines = 0;
+        int events = 0;
+        int done = 0;
+        int overdue = 0;
+        int dueThisWeek = 0;
+        for (Task t : tasks.getAll()) {
+            done += t.isComplete() ? 1 : 0;
+            if (t instanceof Deadline) {
+                deadlines++;
+                LocalDateTime by = ((Deadline) t).getBy();
+                if (!t.isComplete() && by.isBefore(now)) {
+                    overdue++;
+                } else if (!t.isComplete() && by.isBefore(weekEnd)) {
+                    dueThisWeek++;
+                }
+            } else if (t instanceof Event) {
+                events++;
+            } else {
+                todos++;
+            }
+        }
+        return new TaskSummary(todos, deadlines, events, done, overdue, dueThisWeek);
+    }
+
+    private static void assertSummary(TaskSummary expected, TaskSummary actual, String message) {
+        assertEquals(expected.getTodos(), actual.getTodos(), message);
+        assertEquals(expected.getDeadlines(), actual.getDeadlines(), message);
+        assertEquals(expected.getEvents(), actual.getEvents(), message);
+        assertEquals(expected.getDone(), actual.getDone(), message);
+        assertEquals(expected.getOverdue(), actual.getOverdue(), message);
+        assertEquals(expected.getDueThisWeek(), actual.getDueThisWeek(), message);
+    }
+}
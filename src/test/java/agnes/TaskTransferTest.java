@@ -0,0 +1,138 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.storage.TaskTransfer;
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class TaskTransferTest {
+
+    private static TaskList sampleTasks() {
+        TaskList tasks = new TaskList();
+        ToDo quoted = new ToDo("buy \"milk\", eggs; bread");
+        quoted.setMarked();
+        quoted.setTags(List.of("home", "errands"));
+        tasks.addTask(quoted);
+        tasks.addTask(new Deadline("pay rent", LocalDateTime.of(2026, 1, 31, 0, 0), Recurrence.parse("month")));
+        tasks.addTask(new Event("retreat", LocalDateTime.of(2026, 3, 20, 18, 0), LocalDateTime.of(2026, 3, 22, 12, 0)));
+        tasks.addTask(new Deadline("a very long description that definitely needs to be folded "
+                + "because it is longer than seventy five octets, even with \u00fcn\u00efc\u00f6d\u00e9",
+                LocalDateTime.of(2026, 4, 1, 9, 30)));
+        tasks.markTask(1);
+        return tasks;
+    }
+
+    private static void assertRoundTrip(String suffix, boolean keepsOccurrences) throws Exception {
+        Path file = Files.createTempFile("agnes", suffix);
+        try {
+            TaskList original = sampleTasks();
+            assertEquals(4, TaskTransfer.exportTo(file, original));
+
+            TaskList imported = new TaskList();
+            List<Task> added = new ArrayList<>();
+            TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, imported, added::add);
+            assertEquals(4, result.getImported());
+            assertEquals(0, result.getSkipped());
+            assertEquals(imported.getAll(), added);
+            for (int i = 0; i < original.size(); i++) {
+                Task expected = original.get(i);
+                Task actual = imported.get(i);
+                if (!keepsOccurrences && expected.isRecurring()) {
+                    assertEquals(expected.getRecurrence().toString(), actual.getRecurrence().toString());
+                    continue;
+                }
+                assertEquals(expected.toString(), actual.toString());
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void csv_roundTrip_test() throws Exception {
+        assertRoundTrip(".csv", true);
+    }
+
+    @Test
+    public void ics_roundTrip_test() throws Exception {
+        assertRoundTrip(".ics", false);
+    }
+
+    @Test
+    public void ics_foldsLongLines_test() throws Exception {
+        Path file = Files.createTempFile("agnes", ".ics");
+        try {
+            TaskTransfer.exportTo(file, sampleTasks());
+            for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                assertTrue(line.getBytes(StandardCharsets.UTF_8).length <= 75, line);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void csv_skipsMalformedRows_test() throws Exception {
+        Path file = Files.createTempFile("agnes", ".csv");
+        try {
+            Files.writeString(file, String.join("\n",
+                    "type,done,description,start,end",
+                    "todo,0,read",
+                    "deadline,1,\"multi\nline\",2026-02-01 1200",
+                    "deadline,0,no date,",
+                    "chore,0,unknown type",
+                    "",
+                    "event,0,meetup,2026-02-03,2026-02-03"));
+            TaskList tasks = new TaskList();
+            TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, tasks, t -> { });
+
+            assertEquals(3, result.getImported());
+            assertEquals(2, result.getSkipped());
+            assertEquals("[D] [X] multi\nline (by: Feb 01 2026 12:00)", tasks.get(1).toString());
+            assertEquals("[E] [ ] meetup (from: Feb 03 2026 to: Feb 03 2026 23:59)", tasks.get(2).toString());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void csv_strayQuote_skipsOnlyItsRow_test() throws Exception {
+        Path file = Files.createTempFile("agnes", ".csv");
+        try {
+            List<String> rows = new ArrayList<>();
+            rows.add("type,done,description");
+            rows.add("todo,0,\"stray quote");
+            for (int i = 0; i < 1000; i++) {
+                rows.add("todo,0,row " + i);
+            }
+            // A stray quote near the end runs into the end of the file
+            rows.add("todo,0,\"stray again");
+            rows.add("todo,0,last");
+            Files.writeString(file, String.join("\n", rows));
+            TaskList tasks = new TaskList();
+            TaskTransfer.ImportResult result = TaskTransfer.importFrom(file, tasks, t -> { });
+
+            assertEquals(1001, result.getImported());
+            assertEquals(2, result.getSkipped());
+            assertEquals("row 0", tasks.get(0).getMessage());
+            assertEquals("last", tasks.get(1000).getMessage());
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
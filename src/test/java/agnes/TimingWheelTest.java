@@ -0,0 +1,138 @@
+package agnes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import agnes.reminder.ReminderScheduler;
+import agnes.reminder.TimingWheel;
+import agnes.task.Deadline;
+import agnes.task.Event;
+import agnes.task.Recurrence;
+import agnes.task.Task;
+import agnes.task.TaskList;
+import agnes.task.ToDo;
+
+public class TimingWheelTest {
+
+    /** A clock that only moves when told to. */
+    private static class ManualClock extends Clock {
+        private Instant now;
+
+        ManualClock(LocalDateTime start) {
+            this.now = start.toInstant(ZoneOffset.UTC);
+        }
+
+        void advanceMinutes(long minutes) {
+            now = now.plusSeconds(minutes * 60);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Test
+    public void advanceTo_matchesBruteForce_test() {
+        Random random = new Random(37);
+        long start = 29_000_000L;
+        TimingWheel<Integer> wheel = new TimingWheel<>(start);
+        Map<Integer, Long> expected = new HashMap<>();
+        // The wheel compares by identity, so reuse the same boxed items
+        Integer[] items = new Integer[2000];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = Integer.valueOf(i);
+        }
+        long now = start;
+
+        for (int round = 0; round < 400; round++) {
+            for (int i = 0; i < 50; i++) {
+                Integer item = items[random.nextInt(items.length)];
+                int op = random.nextInt(10);
+                if (op < 7) {
+                    // Mostly near, sometimes beyond the whole wheel
+                    long delay = op < 5 ? 1 + random.nextInt(5000) : 1 + (long) random.nextInt(40_000_000);
+                    wheel.schedule(item, now + delay);
+                    expected.put(item, now + delay);
+                } else {
+                    assertEquals(expected.remove(item) != null, wheel.cancel(item));
+                }
+            }
+            long target = now + (random.nextInt(4) == 0 ? random.nextInt(300_000) : random.nextInt(500));
+            List<Integer> fired = wheel.advanceTo(target);
+            now = target;
+
+            Set<Integer> due = new HashSet<>();
+            expected.entrySet().removeIf(e -> e.getValue() <= target && due.add(e.getKey()));
+            assertEquals(due, new HashSet<>(fired));
+            assertEquals(due.size(), fired.size());
+            assertEquals(expected.size(), wheel.size());
+        }
+    }
+
+    @Test
+    public void reminderScheduler_followsTaskChanges_test() throws Exception {
+        ManualClock clock = new ManualClock(LocalDateTime.of(2026, 3, 1, 8, 0));
+        ReminderScheduler reminders = new ReminderScheduler(clock);
+        TaskList tasks = new TaskList();
+        Deadline report = new Deadline("report", LocalDateTime.of(2026, 3, 1, 9, 0));
+        Deadline old = new Deadline("old", LocalDateTime.of(2026, 2, 1, 9, 0));
+        Event standup = new Event("standup", LocalDateTime.of(2026, 2, 23, 8, 30),
+                LocalDateTime.of(2026, 2, 23, 8, 45), Recurrence.parse("day"));
+        tasks.addTask(report);
+        tasks.addTask(old);
+        tasks.addTask(standup);
+        tasks.addTask(new ToDo("read"));
+        reminders.scheduleAll(tasks);
+        assertEquals(2, reminders.size());
+
+        List<String> fired = new ArrayList<>();
+        clock.advanceMinutes(30);
+        reminders.fireDue((message, time) -> fired.add(message + " " + time));
+        assertEquals(List.of("standup 2026-03-01T08:30"), fired);
+
+        // Postponed, so no reminder at 09:00
+        tasks.updateTask("1", "/by", "2026-03-01 1000");
+        reminders.schedule(report);
+        clock.advanceMinutes(60);
+        reminders.fireDue((message, time) -> fired.add(message + " " + time));
+        assertEquals(1, fired.size());
+
+        // Marking a stand-up leaves the later ones to be reminded of
+        tasks.markTask(2);
+        reminders.schedule(standup);
+        clock.advanceMinutes(24 * 60);
+        reminders.fireDue((message, time) -> fired.add(message + " " + time));
+        assertEquals(List.of("standup 2026-03-01T08:30", "report 2026-03-01T10:00", "standup 2026-03-02T08:30"),
+                fired);
+
+        assertEquals(1, reminders.size());
+        Task removed = tasks.removeTask(2);
+        reminders.cancel(removed);
+        assertEquals(0, reminders.size());
+    }
+}
@@ -12,6 +12,9 @@ then
     rm ACTUAL.TXT
 fi
 
+# start from an empty task list so that the output is deterministic
+rm -f ./data/tasks.txt
+
 # compile the code into the bin folder, terminates if error occurred
 if ! javac -cp ../src/main/java -Xlint:none -d ../bin ../src/main/java/agnes/*.java
 then
@@ -20,7 +23,7 @@ then
 fi
 
 # run the program, feed commands from input.txt file and redirect the output to the ACTUAL.TXT
-java -classpath ../bin Agnes < input.txt > ACTUAL.TXT
+java -classpath ../bin agnes.AgnesCli < input.txt > ACTUAL.TXT
 
 # convert to UNIX format
 cp EXPECTED.TXT EXPECTED-UNIX.TXT